@@ -0,0 +1,246 @@
+package ru.at.library.api.helpers;
+
+import io.restassured.response.Response;
+import ru.at.library.core.utils.profiler.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+
+/**
+ * Генератор нагрузки с фиксированной частотой (открытая модель).
+ * <p>
+ * Запрос с номером i запускается в момент {@code старт + i / rps} независимо от того, завершились ли предыдущие,
+ * поэтому медленный сервер не снижает частоту отправки. Задержка отсчитывается от запланированного момента,
+ * а не от фактического старта: если не успевает сам генератор или запрос ждёт свободного соединения,
+ * это время входит в задержку и не теряется из перцентилей.
+ * <p>
+ * Одновременно выполняется не более {@code api.load.maxInFlight} запросов (по умолчанию 1000).
+ * Запросы сверх лимита не отправляются и учитываются как ошибки, чтобы перегруженный сервер
+ * не приводил к неограниченному росту числа потоков.
+ */
+public final class LoadGenerator {
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("api.load.maxInFlight", 1000);
+
+    /**
+     * Отставание запуска от расписания, начиная с которого в отчёт добавляется предупреждение
+     */
+    private static final long START_LAG_WARNING_MS = 100;
+
+    /**
+     * Ширина полосы в текстовом распределении задержек
+     */
+    private static final int REPORT_BAR_WIDTH = 50;
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Отправляет запросы с заданной частотой и собирает статистику задержек.
+     * Задержки учитываются для всех завершённых запросов, в том числе неуспешных.
+     *
+     * @param rps           частота запросов в секунду
+     * @param durationSec   длительность нагрузки, секунд
+     * @param threadFactory фабрика потоков, выполняющих запросы (обычно виртуальные потоки сценария)
+     * @param request       отправка одного запроса
+     * @param success       признак успешного ответа по статус-коду
+     * @return результат после завершения всех отправленных запросов
+     */
+    public static Result run(int rps, int durationSec, ThreadFactory threadFactory,
+                             Callable<Response> request, IntPredicate success) {
+        if (rps < 1 || durationSec < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Частота и длительность нагрузки должны быть больше 0, указано %d запросов/с, %d с", rps, durationSec));
+        }
+        long scheduled = (long) rps * durationSec;
+        Result result = new Result(rps, durationSec, scheduled);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory)) {
+            for (long i = 0; i < scheduled; i++) {
+                long intended = start + i * 1_000_000_000L / rps;
+                long delay;
+                while ((delay = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                if (!inFlight.tryAcquire()) {
+                    result.dropped.increment();
+                    continue;
+                }
+                executor.execute(() -> {
+                    result.startLagNanos.accumulate(System.nanoTime() - intended);
+                    try {
+                        Response response = request.call();
+                        result.record(System.nanoTime() - intended, success.test(response.statusCode()),
+                                "статус " + response.statusCode());
+                    } catch (Exception e) {
+                        result.record(System.nanoTime() - intended, false, e.toString());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Нагрузка была прервана", e);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Результат нагрузки: распределение задержек, ошибки и фактическая частота
+     */
+    public static final class Result {
+        private final int targetRps;
+        private final int durationSec;
+        private final long scheduled;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        /**
+         * Наибольшее опоздание запуска запроса относительно расписания
+         */
+        private final LongAccumulator startLagNanos = new LongAccumulator(Math::max, 0L);
+        private volatile long elapsedNanos;
+
+        private Result(int targetRps, int durationSec, long scheduled) {
+            this.targetRps = targetRps;
+            this.durationSec = durationSec;
+            this.scheduled = scheduled;
+        }
+
+        private void record(long latencyNanos, boolean ok, String description) {
+            histogram.record(latencyNanos);
+            if (!ok) {
+                errors.increment();
+                firstError.compareAndSet(null, description);
+            }
+        }
+
+        /**
+         * @return количество запланированных запросов
+         */
+        public long getScheduled() {
+            return scheduled;
+        }
+
+        /**
+         * @return количество завершённых запросов
+         */
+        public long getCompleted() {
+            return histogram.getCount();
+        }
+
+        /**
+         * @return количество ошибок, включая неотправленные запросы
+         */
+        public long getErrors() {
+            return errors.sum() + dropped.sum();
+        }
+
+        /**
+         * @return количество запросов, не отправленных из-за лимита одновременных запросов
+         */
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        /**
+         * @return доля ошибок от запланированных запросов, %
+         */
+        public double getErrorRatePercent() {
+            return scheduled > 0 ? getErrors() * 100.0 / scheduled : 0.0;
+        }
+
+        /**
+         * @param percentile перцентиль от 0 до 100
+         * @return задержка, мс
+         */
+        public double getPercentileMs(double percentile) {
+            return toMillis(histogram.percentileNanos(percentile));
+        }
+
+        public double getMaxMs() {
+            return toMillis(histogram.getMaxNanos());
+        }
+
+        public double getMeanMs() {
+            long count = histogram.getCount();
+            return count > 0 ? toMillis(histogram.getTotalNanos() / count) : 0.0;
+        }
+
+        /**
+         * Наибольшее опоздание запуска запроса относительно расписания, мс.
+         * Большое значение означает, что не успевает сам генератор (процессор, пул соединений),
+         * и задержки включают ожидание на стороне клиента.
+         */
+        public double getMaxStartLagMs() {
+            return toMillis(startLagNanos.get());
+        }
+
+        /**
+         * @return фактическая частота завершённых запросов в секунду
+         */
+        public double getAchievedRps() {
+            return elapsedNanos > 0 ? histogram.getCount() * 1_000_000_000.0 / elapsedNanos : 0.0;
+        }
+
+        /**
+         * Текстовый отчёт: итоги и распределение задержек
+         *
+         * @param title описание нагрузки (метод и адрес)
+         */
+        public String formatReport(String title) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "Нагрузка: %s, %d запросов/с, %d с%n", title, targetRps, durationSec));
+            sb.append(String.format(Locale.ROOT, "Запланировано: %d, завершено: %d, ошибок: %d (%.2f%%), не отправлено из-за лимита: %d%n",
+                    scheduled, getCompleted(), getErrors(), getErrorRatePercent(), getDropped()));
+            sb.append(String.format(Locale.ROOT, "Фактическая частота: %.1f запросов/с за %.1f с%n",
+                    getAchievedRps(), elapsedNanos / 1_000_000_000.0));
+            sb.append(String.format(Locale.ROOT, "Задержка, мс: среднее %.1f, p50 %.1f, p95 %.1f, p99 %.1f, максимум %.1f%n",
+                    getMeanMs(), getPercentileMs(50), getPercentileMs(95), getPercentileMs(99), getMaxMs()));
+            if (getMaxStartLagMs() >= START_LAG_WARNING_MS) {
+                sb.append(String.format(Locale.ROOT,
+                        "Внимание: запуск запросов отставал от расписания до %.1f мс - генератор не успевает, задержки включают ожидание на стороне клиента%n",
+                        getMaxStartLagMs()));
+            }
+            String error = firstError.get();
+            if (error != null) {
+                sb.append("Первая ошибка: ").append(error).append(System.lineSeparator());
+            }
+            long total = histogram.getCount();
+            if (total == 0) {
+                return sb.toString();
+            }
+            long[] largest = {1};
+            histogram.forEachBucket((upperBoundMicros, count) -> largest[0] = Math.max(largest[0], count));
+            sb.append(System.lineSeparator()).append(String.format(Locale.ROOT, "%12s %10s %8s%n", "до, мс", "запросов", "накоп. %"));
+            long[] seen = {0};
+            histogram.forEachBucket((upperBoundMicros, count) -> {
+                seen[0] += count;
+                sb.append(String.format(Locale.ROOT, "%12.3f %10d %8.2f %s%n",
+                        upperBoundMicros / 1000.0, count, seen[0] * 100.0 / total,
+                        "#".repeat((int) Math.max(1, count * REPORT_BAR_WIDTH / largest[0]))));
+            });
+            return sb.toString();
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+}
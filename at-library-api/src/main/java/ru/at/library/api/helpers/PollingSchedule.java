@@ -0,0 +1,111 @@
+package ru.at.library.api.helpers;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Интервалы между запросами при ожидании ответа (polling).
+ * <p>
+ * Фиксированный интервал используется шагами "каждые Nс/Mс". Нарастающий интервал начинается с короткой паузы,
+ * чтобы быстро завершившаяся операция не ждала полный период, и растёт экспоненциально до предела,
+ * чтобы долгие операции не нагружали общий стенд. Случайное отклонение (jitter) разводит во времени
+ * запросы параллельных сценариев. Пауза, запрошенная сервером в заголовке Retry-After, соблюдается всегда.
+ * <p>
+ * Настройки нарастающего интервала (системные свойства):
+ * api.poll.initialMs - первая пауза, по умолчанию 250 мс;
+ * api.poll.maxIntervalMs - наибольшая пауза, по умолчанию 5000 мс;
+ * api.poll.multiplier - множитель паузы, по умолчанию 2;
+ * api.poll.jitter - случайное отклонение паузы в долях, по умолчанию 0.2 (±20%).
+ */
+public final class PollingSchedule {
+
+    private static final long INITIAL_MS = Long.getLong("api.poll.initialMs", 250L);
+    private static final long MAX_INTERVAL_MS = Long.getLong("api.poll.maxIntervalMs", 5000L);
+    private static final double MULTIPLIER = Double.parseDouble(System.getProperty("api.poll.multiplier", "2"));
+    private static final double JITTER = Double.parseDouble(System.getProperty("api.poll.jitter", "0.2"));
+
+    private final long initialMs;
+    private final long maxMs;
+    private final double multiplier;
+    private final double jitter;
+
+    private PollingSchedule(long initialMs, long maxMs, double multiplier, double jitter) {
+        if (initialMs < 0 || maxMs < initialMs || multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Некорректные параметры ожидания: первая пауза %d мс, предел %d мс, множитель %s, отклонение %s",
+                    initialMs, maxMs, multiplier, jitter));
+        }
+        this.initialMs = initialMs;
+        this.maxMs = maxMs;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Фиксированный интервал без случайного отклонения
+     */
+    public static PollingSchedule fixed(long periodMs) {
+        return new PollingSchedule(periodMs, periodMs, 1, 0);
+    }
+
+    /**
+     * Нарастающий интервал с параметрами из системных свойств
+     */
+    public static PollingSchedule backoff() {
+        return exponential(INITIAL_MS, MAX_INTERVAL_MS, MULTIPLIER, JITTER);
+    }
+
+    /**
+     * Нарастающий интервал с явными параметрами
+     *
+     * @param initialMs  первая пауза, мс
+     * @param maxMs      наибольшая пауза, мс
+     * @param multiplier множитель паузы после каждого запроса, не меньше 1
+     * @param jitter     случайное отклонение паузы в долях, от 0 до 1
+     */
+    public static PollingSchedule exponential(long initialMs, long maxMs, double multiplier, double jitter) {
+        return new PollingSchedule(initialMs, maxMs, multiplier, jitter);
+    }
+
+    /**
+     * Пауза перед следующим запросом
+     *
+     * @param attempt      номер выполненного запроса, начиная с 0
+     * @param retryAfterMs пауза, запрошенная сервером, или отрицательное значение, если сервер её не указал
+     * @return пауза, мс
+     */
+    public long nextDelayMs(int attempt, long retryAfterMs) {
+        double delay = Math.min(maxMs, initialMs * Math.pow(multiplier, attempt));
+        if (jitter > 0) {
+            delay *= 1 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble();
+        }
+        return Math.max(Math.min(maxMs, Math.round(delay)), retryAfterMs);
+    }
+
+    /**
+     * Разбор заголовка Retry-After: количество секунд или дата в формате HTTP
+     *
+     * @param value     значение заголовка
+     * @param nowMillis текущее время, мс
+     * @return пауза, мс, или -1, если заголовок отсутствует или некорректен
+     */
+    public static long parseRetryAfterMs(String value, long nowMillis) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0L, Long.parseLong(trimmed) * 1000L);
+        } catch (NumberFormatException ignored) {
+            // не число секунд, пробуем дату
+        }
+        try {
+            long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0L, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package ru.at.library.api.helpers;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.config.SSLConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.RequestSpecification;
+import lombok.extern.log4j.Log4j2;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Общий пул HTTP-соединений для запросов RestAssured.
+ * <p>
+ * По умолчанию RestAssured создаёт для каждого запроса новый HttpClient с собственным соединением,
+ * поэтому каждый шаг заново открывает TCP-соединение и выполняет TLS-рукопожатие. Здесь клиенты по-прежнему
+ * создаются на каждый запрос (RestAssured меняет параметры клиента, поэтому один экземпляр нельзя делить между потоками),
+ * но все они берут соединения из одного потокобезопасного пула, созданного один раз на прогон.
+ * Соединения переиспользуются с keep-alive, HTTPS-соединения используют один SSLContext, поэтому
+ * новые соединения к тем же хостам возобновляют TLS-сессию.
+ * <p>
+ * RestAssured регистрирует схему https с SSL-настройками запроса (relaxedHTTPSValidation, keystore, truststore)
+ * в реестре схем менеджера соединений, то есть в пуле. Поэтому у каждой SSL-настройки, заданной на весь прогон
+ * ({@code RestAssured.config}), свой пул, а запросы с собственными SSL-настройками пул не используют:
+ * иначе доверие ко всем сертификатам одного запроса досталось бы всем остальным.
+ * <p>
+ * Настройки (системные свойства):
+ * api.http.pool.enabled - использовать пул, по умолчанию true;
+ * api.http.pool.maxTotal - максимум соединений, по умолчанию 200;
+ * api.http.pool.maxPerRoute - максимум соединений к одному хосту, по умолчанию 50;
+ * api.http.pool.maxPerHost - лимиты для отдельных хостов: {@code host=N,host2:8443=M};
+ * api.http.pool.keepAliveSec - время жизни простаивающего соединения, если сервер не указал Keep-Alive, по умолчанию 30 с;
+ * api.http.pool.leaseTimeoutSec - ожидание свободного соединения, по умолчанию 60 с;
+ * api.http.tls.sessionTimeoutSec - время хранения TLS-сессий (0 - значение JVM).
+ */
+@Log4j2
+public final class PooledHttpClient {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("api.http.pool.enabled", "true"));
+
+    private static final int MAX_TOTAL = Integer.getInteger("api.http.pool.maxTotal", 200);
+    private static final int MAX_PER_ROUTE = Integer.getInteger("api.http.pool.maxPerRoute", 50);
+    private static final long KEEP_ALIVE_MS = TimeUnit.SECONDS.toMillis(Long.getLong("api.http.pool.keepAliveSec", 30L));
+    private static final long LEASE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(Long.getLong("api.http.pool.leaseTimeoutSec", 60L));
+    private static final int TLS_SESSION_TIMEOUT_SEC = Integer.getInteger("api.http.tls.sessionTimeoutSec", 0);
+
+    /**
+     * Количество хостов с наибольшим числом соединений в итоговой статистике
+     */
+    private static final int REPORT_TOP_ROUTES = 5;
+
+    private static final LongAdder LEASES = new LongAdder();
+    private static final LongAdder WAITS = new LongAdder();
+    private static final LongAdder WAIT_NANOS = new LongAdder();
+    private static final LongAdder LEASE_TIMEOUTS = new LongAdder();
+    private static final LongAdder BYPASSED = new LongAdder();
+
+    private static volatile boolean started;
+
+    private PooledHttpClient() {
+    }
+
+    /**
+     * Переключает запрос на пул его SSL-настроек: HttpClient создаётся поверх пула,
+     * тело ответа вычитывается сразу, и соединение возвращается в пул.
+     * Вызывается после настройки запроса: запрос с собственными SSL-настройками выполняется без пула.
+     *
+     * @param request запрос, его текущая конфигурация RestAssured сохраняется
+     */
+    public static RequestSpecification apply(RequestSpecification request) {
+        RestAssuredConfig config = ((FilterableRequestSpecification) request).getConfig();
+        if (!isShared(config.getSSLConfig())) {
+            BYPASSED.increment();
+            return request;
+        }
+        return request
+                .config(apply(config))
+                .filter(RELEASE_CONNECTION);
+    }
+
+    /**
+     * Возвращает конфигурацию RestAssured, в которой HttpClient создаётся поверх пула её SSL-настроек.
+     * Остальные настройки (в том числе параметры HttpClient) берутся из переданной конфигурации.
+     * Соединение возвращается в пул только после чтения тела ответа,
+     * поэтому без {@link #apply(RequestSpecification)} тело нужно прочитать явно.
+     *
+     * @param config исходная конфигурация, обычно {@code RestAssured.config()}
+     */
+    public static RestAssuredConfig apply(RestAssuredConfig config) {
+        HttpClientConfig httpClientConfig = config.getHttpClientConfig();
+        return config.httpClient(httpClientConfig.httpClientFactory(Holder.poolFor(config.getSSLConfig()).factory));
+    }
+
+    /**
+     * SSL-настройки по умолчанию или заданные на весь прогон получают свой пул, настройки отдельного запроса - нет
+     */
+    static boolean isShared(SSLConfig sslConfig) {
+        return !sslConfig.isUserConfigured() || sslConfig == RestAssured.config().getSSLConfig();
+    }
+
+    /**
+     * @return {@code true}, если пул уже создан (был хотя бы один запрос)
+     */
+    public static boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Текущее состояние пула и накопленная статистика для вывода в лог
+     */
+    public static String getStatistics() {
+        List<MeasuredConnectionManager> pools = Holder.pools();
+        int leased = 0;
+        int available = 0;
+        int queued = 0;
+        int max = 0;
+        List<Map.Entry<HttpRoute, PoolStats>> routes = new ArrayList<>();
+        for (MeasuredConnectionManager pool : pools) {
+            PoolStats total = pool.getTotalStats();
+            leased += total.getLeased();
+            available += total.getAvailable();
+            queued += pool.queueLength();
+            max += total.getMax();
+            pool.routes.keySet().forEach(route -> routes.add(Map.entry(route, pool.getStats(route))));
+        }
+        StringBuilder sb = new StringBuilder(String.format(
+                "Выдано соединений: %d%nОжидали свободного соединения: %d (суммарно %.1f мс, превышений таймаута: %d)%n"
+                        + "Без пула (SSL-настройки запроса): %d%n"
+                        + "Пулов: %d. Сейчас: занято %d, свободно %d, в очереди %d, максимум %d%n",
+                LEASES.sum(), WAITS.sum(), WAIT_NANOS.sum() / 1_000_000.0, LEASE_TIMEOUTS.sum(), BYPASSED.sum(),
+                pools.size(), leased, available, queued, max));
+        routes.stream()
+                .sorted(Comparator.comparingInt((Map.Entry<HttpRoute, PoolStats> e) ->
+                        e.getValue().getLeased() + e.getValue().getAvailable()).reversed())
+                .limit(REPORT_TOP_ROUTES)
+                .forEach(e -> sb.append(String.format("  %s: занято %d, свободно %d, максимум %d%n",
+                        e.getKey().getTargetHost(), e.getValue().getLeased(), e.getValue().getAvailable(), e.getValue().getMax())));
+        return sb.toString();
+    }
+
+    static Map<String, Integer> parseHostLimits(String value) {
+        Map<String, Integer> limits = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return limits;
+        }
+        for (String entry : value.split(",")) {
+            String trimmed = entry.trim();
+            int eq = trimmed.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Неверный лимит соединений для хоста: '" + trimmed
+                        + "', ожидается host=N или host:port=N");
+            }
+            limits.put(trimmed.substring(0, eq).trim().toLowerCase(Locale.ROOT), Integer.parseInt(trimmed.substring(eq + 1).trim()));
+        }
+        return limits;
+    }
+
+    /**
+     * RestAssured читает тело лениво, а до конца чтения соединение остаётся занятым.
+     * Прочитанное тело сохраняется в ответе, поэтому повторное чтение в шагах его не теряет.
+     */
+    private static final Filter RELEASE_CONNECTION = (requestSpec, responseSpec, ctx) -> {
+        Response response = ctx.next(requestSpec, responseSpec);
+        response.asByteArray();
+        return response;
+    };
+
+    /**
+     * Соединение без заголовка Keep-Alive считается живым {@code api.http.pool.keepAliveSec}
+     */
+    private static final ConnectionKeepAliveStrategy KEEP_ALIVE_STRATEGY = (HttpResponse response, HttpContext context) -> {
+        HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (it.hasNext()) {
+            HeaderElement element = it.nextElement();
+            if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                try {
+                    return Long.parseLong(element.getValue()) * 1000L;
+                } catch (NumberFormatException ignored) {
+                    // используем значение по умолчанию
+                }
+            }
+        }
+        return KEEP_ALIVE_MS;
+    };
+
+    /**
+     * Пул с лимитами для отдельных хостов и учётом ожидания свободного соединения.
+     * <p>
+     * Пул httpclient ждёт свободное соединение, удерживая монитор, и виртуальный поток при этом занимает
+     * поток-носитель. Если таких потоков больше, чем носителей, потоки с соединениями не могут их вернуть.
+     * Поэтому ожидание вынесено в семафоры (по хосту и общий): в пул входят только запросы,
+     * для которых есть свободное место, и внутри пула они не ждут.
+     */
+    // RestAssured строит AbstractHttpClient, поэтому нужен устаревший API менеджера соединений httpclient 4.x
+    @SuppressWarnings("deprecation")
+    private static final class MeasuredConnectionManager extends PoolingClientConnectionManager {
+        private final Map<String, Integer> hostLimits;
+        private final Map<HttpRoute, Semaphore> routes = new ConcurrentHashMap<>();
+        private final Semaphore total = new Semaphore(MAX_TOTAL, true);
+        /**
+         * Выданные соединения -> семафор хоста, освобождаемый при возврате соединения
+         */
+        private final Map<ManagedClientConnection, Semaphore> leased = new ConcurrentHashMap<>();
+        private final HttpClientConfig.HttpClientFactory factory = () -> Holder.createClient(this);
+
+        private MeasuredConnectionManager(Map<String, Integer> hostLimits) {
+            super(SchemeRegistryFactory.createDefault());
+            this.hostLimits = hostLimits;
+            setMaxTotal(MAX_TOTAL);
+            setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            Semaphore routePermits = routes.computeIfAbsent(route, this::createRouteLimit);
+            return new ClientConnectionRequest() {
+                private volatile ClientConnectionRequest request;
+
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    LEASES.increment();
+                    if (!routePermits.tryAcquire()) {
+                        awaitPermits(routePermits, timeout, unit);
+                    } else if (!total.tryAcquire()) {
+                        try {
+                            awaitPermits(null, timeout, unit);
+                        } catch (InterruptedException | ConnectionPoolTimeoutException e) {
+                            routePermits.release();
+                            throw e;
+                        }
+                    }
+                    try {
+                        request = MeasuredConnectionManager.super.requestConnection(route, state);
+                        ManagedClientConnection connection = request.getConnection(timeout, unit);
+                        leased.put(connection, routePermits);
+                        return connection;
+                    } catch (InterruptedException | ConnectionPoolTimeoutException | RuntimeException e) {
+                        routePermits.release();
+                        total.release();
+                        throw e;
+                    }
+                }
+
+                @Override
+                public void abortRequest() {
+                    ClientConnectionRequest current = request;
+                    if (current != null) {
+                        current.abortRequest();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection connection, long keepAlive, TimeUnit unit) {
+            try {
+                super.releaseConnection(connection, keepAlive, unit);
+            } finally {
+                Semaphore routePermits = leased.remove(connection);
+                if (routePermits != null) {
+                    routePermits.release();
+                    total.release();
+                }
+            }
+        }
+
+        /**
+         * Количество запросов, ожидающих свободного соединения
+         */
+        private int queueLength() {
+            return total.getQueueLength() + routes.values().stream().mapToInt(Semaphore::getQueueLength).sum();
+        }
+
+        private Semaphore createRouteLimit(HttpRoute route) {
+            int limit = MAX_PER_ROUTE;
+            if (!hostLimits.isEmpty()) {
+                String host = route.getTargetHost().getHostName().toLowerCase(Locale.ROOT);
+                limit = hostLimits.getOrDefault(host + ":" + route.getTargetHost().getPort(), hostLimits.getOrDefault(host, limit));
+                setMaxPerRoute(route, limit);
+            }
+            return new Semaphore(limit, true);
+        }
+
+        /**
+         * Ожидание свободного места с учётом таймаута получения соединения: разрешение хоста (если передан семафор)
+         * и общее разрешение. При ошибке захваченное здесь разрешение хоста возвращается.
+         */
+        private void awaitPermits(Semaphore routePermits, long timeout, TimeUnit unit)
+                throws InterruptedException, ConnectionPoolTimeoutException {
+            long start = System.nanoTime();
+            long deadline = timeout > 0 ? start + unit.toNanos(timeout) : Long.MAX_VALUE;
+            WAITS.increment();
+            try {
+                if (routePermits != null && !routePermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw leaseTimeout();
+                }
+                try {
+                    if (!total.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw leaseTimeout();
+                    }
+                } catch (InterruptedException | ConnectionPoolTimeoutException e) {
+                    if (routePermits != null) {
+                        routePermits.release();
+                    }
+                    throw e;
+                }
+            } finally {
+                WAIT_NANOS.add(System.nanoTime() - start);
+            }
+        }
+
+        private static ConnectionPoolTimeoutException leaseTimeout() {
+            LEASE_TIMEOUTS.increment();
+            return new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+        }
+    }
+
+    /**
+     * Пулы создаются при первом запросе и используются до конца прогона
+     */
+    private static final class Holder {
+        static final Map<String, Integer> HOST_LIMITS = parseHostLimits(System.getProperty("api.http.pool.maxPerHost"));
+        /**
+         * Пулы для SSL-настроек, заданных на весь прогон; ключ - экземпляр настроек
+         */
+        static final Map<SSLConfig, MeasuredConnectionManager> SSL_POOLS = Collections.synchronizedMap(new IdentityHashMap<>());
+        /**
+         * Пул для SSL-настроек по умолчанию
+         */
+        static final MeasuredConnectionManager POOL = start();
+
+        static MeasuredConnectionManager poolFor(SSLConfig sslConfig) {
+            if (!sslConfig.isUserConfigured()) {
+                return POOL;
+            }
+            return SSL_POOLS.computeIfAbsent(sslConfig, config -> {
+                log.info("Отдельный пул HTTP-соединений для SSL-настроек прогона: {}", config);
+                return new MeasuredConnectionManager(HOST_LIMITS);
+            });
+        }
+
+        static List<MeasuredConnectionManager> pools() {
+            List<MeasuredConnectionManager> pools = new ArrayList<>();
+            pools.add(POOL);
+            synchronized (SSL_POOLS) {
+                pools.addAll(SSL_POOLS.values());
+            }
+            return pools;
+        }
+
+        private static MeasuredConnectionManager start() {
+            if (TLS_SESSION_TIMEOUT_SEC > 0) {
+                try {
+                    SSLContext.getDefault().getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SEC);
+                } catch (Exception e) {
+                    log.warn("Не удалось настроить кэш TLS-сессий", e);
+                }
+            }
+            MeasuredConnectionManager pool = new MeasuredConnectionManager(HOST_LIMITS);
+            ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "http-pool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            // Закрываем соединения, которые сервер уже мог закрыть, чтобы не получать ошибки на первом запросе
+            long period = Math.max(1000L, KEEP_ALIVE_MS / 2);
+            evictor.scheduleWithFixedDelay(() -> {
+                for (MeasuredConnectionManager each : pools()) {
+                    each.closeExpiredConnections();
+                    each.closeIdleConnections(KEEP_ALIVE_MS, TimeUnit.MILLISECONDS);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+            log.info("Пул HTTP-соединений: максимум {}, на хост {}, лимиты хостов {}, keep-alive {} мс",
+                    MAX_TOTAL, MAX_PER_ROUTE, HOST_LIMITS, KEEP_ALIVE_MS);
+            started = true;
+            return pool;
+        }
+
+        // RestAssured принимает только наследников AbstractHttpClient, они и их параметры устарели в httpclient 4.3
+        @SuppressWarnings("deprecation")
+        private static DefaultHttpClient createClient(MeasuredConnectionManager pool) {
+            DefaultHttpClient client = new DefaultHttpClient(pool);
+            client.setKeepAliveStrategy(KEEP_ALIVE_STRATEGY);
+            HttpParams params = client.getParams();
+            HttpClientParams.setConnectionManagerTimeout(params, LEASE_TIMEOUT_MS);
+            HttpConnectionParams.setStaleCheckingEnabled(params, true);
+            return client;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package ru.at.library.api.helpers;
+
+import io.restassured.RestAssured;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Политика повторов HTTP-запросов с ожидаемым кодом ответа (шаги "отправлен HTTP ... код ответа N").
+ * Количество попыток задаётся свойством request.retries, по умолчанию 1 (без повторов).
+ * <p>
+ * Повторяются только ответы с кодами из api.retry.statuses и исключения из api.retry.exceptions.
+ * Между попытками выдерживается нарастающая пауза со случайным отклонением, чтобы параллельные сценарии
+ * не повторяли запросы к деградировавшему сервису одновременно. Пауза из заголовка Retry-After соблюдается.
+ * <p>
+ * Повторы ограничены двумя механизмами:
+ * <ul>
+ * <li>бюджет повторов на прогон (token bucket): каждый запрос пополняет бюджет на api.retry.budgetPercent процентов
+ * повтора, каждый повтор расходует один повтор из бюджета, поэтому повторы не превышают заданную долю трафика;</li>
+ * <li>автомат-предохранитель (circuit breaker) для каждого хоста: после api.retry.circuit.failures неудачных попыток
+ * подряд повторы к хосту не выполняются в течение api.retry.circuit.openSec секунд, затем разрешается одна пробная
+ * попытка. Первая попытка запроса отправляется всегда.</li>
+ * </ul>
+ * <p>
+ * Настройки (системные свойства):
+ * api.retry.statuses - коды ответов для повтора через запятую, допускаются маски вида 5xx;
+ * пустое значение (по умолчанию) - повторять любой код, отличный от ожидаемого;
+ * api.retry.exceptions - классы исключений для повтора, по умолчанию java.io.IOException;
+ * api.retry.initialMs - первая пауза, по умолчанию 200 мс;
+ * api.retry.maxIntervalMs - наибольшая пауза, по умолчанию 5000 мс;
+ * api.retry.multiplier - множитель паузы, по умолчанию 2;
+ * api.retry.jitter - случайное отклонение паузы в долях, по умолчанию 0.5;
+ * api.retry.maxRetryAfterSec - наибольшая пауза Retry-After, которую готовы ждать, по умолчанию 30 с;
+ * api.retry.budgetPercent - доля повторов от всех запросов, по умолчанию 20%;
+ * api.retry.budgetBurst - начальный и наибольший запас повторов в бюджете, по умолчанию 10;
+ * api.retry.circuit.failures - неудачных попыток подряд до размыкания, по умолчанию 5;
+ * api.retry.circuit.openSec - время размыкания, по умолчанию 30 с.
+ */
+public final class RetryPolicy {
+
+    private static final List<String> RETRY_STATUSES = parseList(System.getProperty("api.retry.statuses", ""));
+    private static final List<Class<?>> RETRY_EXCEPTIONS = parseExceptions(System.getProperty("api.retry.exceptions", "java.io.IOException"));
+
+    private static final PollingSchedule BACKOFF = PollingSchedule.exponential(
+            Long.getLong("api.retry.initialMs", 200L),
+            Long.getLong("api.retry.maxIntervalMs", 5000L),
+            Double.parseDouble(System.getProperty("api.retry.multiplier", "2")),
+            Double.parseDouble(System.getProperty("api.retry.jitter", "0.5")));
+    private static final long MAX_RETRY_AFTER_MS = Long.getLong("api.retry.maxRetryAfterSec", 30L) * 1000L;
+
+    private static final Budget BUDGET = new Budget(
+            Integer.getInteger("api.retry.budgetPercent", 20),
+            Integer.getInteger("api.retry.budgetBurst", 10));
+
+    private static final int CIRCUIT_FAILURES = Integer.getInteger("api.retry.circuit.failures", 5);
+    private static final long CIRCUIT_OPEN_NANOS = Long.getLong("api.retry.circuit.openSec", 30L) * 1_000_000_000L;
+    private static final Map<String, Circuit> CIRCUITS = new ConcurrentHashMap<>();
+
+    private static final Pattern HOST = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*://([^/?#]+)");
+
+    private static final LongAdder REQUESTS = new LongAdder();
+    private static final LongAdder RETRIES = new LongAdder();
+    private static final LongAdder RECOVERED = new LongAdder();
+    private static final LongAdder EXHAUSTED = new LongAdder();
+    private static final LongAdder BUDGET_REJECTED = new LongAdder();
+    private static final LongAdder CIRCUIT_REJECTED = new LongAdder();
+    private static final LongAdder CIRCUITS_OPENED = new LongAdder();
+
+    private RetryPolicy() {
+    }
+
+    /**
+     * Решение о повторе
+     */
+    public enum Permit {
+        ALLOWED,
+        /**
+         * Предохранитель хоста разомкнут
+         */
+        CIRCUIT_OPEN,
+        /**
+         * Бюджет повторов на прогон исчерпан
+         */
+        BUDGET_EXHAUSTED
+    }
+
+    /**
+     * @return нужно ли повторять запрос, получивший код {@code status} вместо ожидаемого
+     */
+    public static boolean isRetryableStatus(int status) {
+        if (RETRY_STATUSES.isEmpty()) {
+            return true;
+        }
+        String code = String.valueOf(status);
+        return RETRY_STATUSES.stream().anyMatch(mask -> mask.length() == code.length() && matchesMask(mask, code));
+    }
+
+    /**
+     * @return нужно ли повторять запрос, завершившийся исключением (проверяется вся цепочка причин)
+     */
+    public static boolean isRetryableException(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            Throwable current = t;
+            if (RETRY_EXCEPTIONS.stream().anyMatch(type -> type.isInstance(current))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Учёт отправленного запроса: пополняет бюджет повторов
+     */
+    public static void recordRequest() {
+        REQUESTS.increment();
+        BUDGET.deposit();
+    }
+
+    /**
+     * Учёт результата попытки для предохранителя хоста
+     *
+     * @param address адрес запроса
+     * @param failure попытка завершилась ошибкой, подлежащей повтору
+     */
+    public static void recordOutcome(String address, boolean failure) {
+        Circuit circuit = CIRCUITS.computeIfAbsent(host(address), host -> new Circuit(CIRCUIT_FAILURES, CIRCUIT_OPEN_NANOS));
+        if (circuit.record(failure, System.nanoTime())) {
+            CIRCUITS_OPENED.increment();
+        }
+    }
+
+    /**
+     * Разрешение на повтор: расходует один повтор из бюджета, если предохранитель хоста его пропускает
+     */
+    public static Permit tryRetry(String address) {
+        if (!BUDGET.tryAcquire()) {
+            BUDGET_REJECTED.increment();
+            return Permit.BUDGET_EXHAUSTED;
+        }
+        Circuit circuit = CIRCUITS.get(host(address));
+        if (circuit != null && !circuit.allowRetry(System.nanoTime())) {
+            BUDGET.refund();
+            CIRCUIT_REJECTED.increment();
+            return Permit.CIRCUIT_OPEN;
+        }
+        RETRIES.increment();
+        return Permit.ALLOWED;
+    }
+
+    /**
+     * Отмена разрешённого повтора, результат которого не был учтён через {@link #recordOutcome}
+     * (попытка завершилась исключением, не подлежащим повтору, или ошибкой проверки).
+     * Освобождает пробную попытку полуразомкнутого предохранителя, иначе повторы к хосту были бы заблокированы навсегда.
+     */
+    public static void releaseTrial(String address) {
+        Circuit circuit = CIRCUITS.get(host(address));
+        if (circuit != null) {
+            circuit.releaseTrial();
+        }
+    }
+
+    /**
+     * Пауза перед повтором
+     *
+     * @param retry        номер повтора, начиная с 0
+     * @param retryAfterMs пауза из Retry-After или отрицательное значение
+     * @return пауза, мс, или -1, если сервер просит ждать дольше api.retry.maxRetryAfterSec
+     */
+    public static long backoffMs(int retry, long retryAfterMs) {
+        if (retryAfterMs > MAX_RETRY_AFTER_MS) {
+            return -1;
+        }
+        return BACKOFF.nextDelayMs(retry, retryAfterMs);
+    }
+
+    /**
+     * Учёт итога запроса с повторами
+     *
+     * @param retries   выполнено повторов
+     * @param succeeded получен ожидаемый ответ
+     */
+    public static void recordResult(int retries, boolean succeeded) {
+        if (retries > 0 && succeeded) {
+            RECOVERED.increment();
+        } else if (!succeeded) {
+            EXHAUSTED.increment();
+        }
+    }
+
+    /**
+     * @return были ли в прогоне повторы или отказы в повторе
+     */
+    public static boolean hasActivity() {
+        return RETRIES.sum() + BUDGET_REJECTED.sum() + CIRCUIT_REJECTED.sum() + CIRCUITS_OPENED.sum() > 0;
+    }
+
+    public static String getStatistics() {
+        long requests = REQUESTS.sum();
+        long retries = RETRIES.sum();
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "Запросов: %d, повторов: %d (%.1f%%), успешно после повтора: %d, неуспешно: %d%n"
+                        + "Отказано в повторе: бюджет исчерпан %d, предохранитель разомкнут %d%n"
+                        + "Размыканий предохранителя: %d, остаток бюджета: %.1f повторов%n",
+                requests, retries, requests > 0 ? retries * 100.0 / requests : 0.0, RECOVERED.sum(), EXHAUSTED.sum(),
+                BUDGET_REJECTED.sum(), CIRCUIT_REJECTED.sum(), CIRCUITS_OPENED.sum(), BUDGET.available()));
+        long now = System.nanoTime();
+        CIRCUITS.forEach((host, circuit) -> {
+            if (circuit.isOpen(now)) {
+                sb.append(String.format("  %s: предохранитель разомкнут%n", host));
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Хост из абсолютного адреса; для относительного - хост RestAssured.baseURI
+     */
+    static String host(String address) {
+        Matcher matcher = HOST.matcher(address);
+        if (matcher.find()) {
+            return matcher.group(1).toLowerCase(Locale.ROOT);
+        }
+        String baseUri = RestAssured.baseURI;
+        matcher = HOST.matcher(baseUri == null ? "" : baseUri);
+        return matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static boolean matchesMask(String mask, String code) {
+        for (int i = 0; i < mask.length(); i++) {
+            char m = Character.toLowerCase(mask.charAt(i));
+            if (m != 'x' && m != code.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    private static List<Class<?>> parseExceptions(String value) {
+        return parseList(value).stream()
+                .<Class<?>>map(name -> {
+                    try {
+                        return Class.forName(name);
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalArgumentException("Неизвестный класс исключения в api.retry.exceptions: " + name, e);
+                    }
+                })
+                .toList();
+    }
+
+    /**
+     * Бюджет повторов (token bucket). Хранится в тысячных долях повтора, чтобы пополнять его дробными долями без блокировок
+     */
+    static final class Budget {
+        private static final long TOKEN = 1000L;
+
+        private final long deposit;
+        private final long capacity;
+        private final AtomicLong tokens;
+
+        /**
+         * @param percent доля повторов от всех запросов, %
+         * @param burst   начальный и наибольший запас повторов
+         */
+        Budget(int percent, int burst) {
+            this.deposit = percent * TOKEN / 100;
+            this.capacity = burst * TOKEN;
+            this.tokens = new AtomicLong(capacity);
+        }
+
+        void deposit() {
+            tokens.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+        }
+
+        boolean tryAcquire() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current < TOKEN) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - TOKEN));
+            return true;
+        }
+
+        void refund() {
+            tokens.accumulateAndGet(TOKEN, (current, amount) -> Math.min(capacity, current + amount));
+        }
+
+        /**
+         * @return остаток бюджета в повторах
+         */
+        double available() {
+            return tokens.get() / (double) TOKEN;
+        }
+    }
+
+    /**
+     * Предохранитель одного хоста: замкнут, разомкнут до openUntil, либо полуразомкнут (одна пробная попытка)
+     */
+    static final class Circuit {
+        private final int failureThreshold;
+        private final long openNanos;
+        private int consecutiveFailures;
+        private boolean open;
+        private long openUntil;
+        private boolean trial;
+
+        Circuit(int failureThreshold, long openNanos) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean allowRetry(long now) {
+            if (!open) {
+                return true;
+            }
+            if (now - openUntil < 0 || trial) {
+                return false;
+            }
+            trial = true;
+            return true;
+        }
+
+        /**
+         * @return предохранитель разомкнулся этой попыткой
+         */
+        synchronized boolean record(boolean failure, long now) {
+            if (!failure) {
+                consecutiveFailures = 0;
+                open = false;
+                trial = false;
+                return false;
+            }
+            consecutiveFailures++;
+            if (trial || (!open && consecutiveFailures >= failureThreshold)) {
+                boolean opened = !open;
+                open = true;
+                trial = false;
+                openUntil = now + openNanos;
+                return opened;
+            }
+            return false;
+        }
+
+        synchronized void releaseTrial() {
+            trial = false;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return open && now - openUntil < 0;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.helpers.PropertyLoader;
+import ru.at.library.core.utils.helpers.ValueReference;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -187,7 +189,15 @@ public class Utils {
 
         String result = inputJsonAsString;
         for (String varName : varNames) {
-            String value = loadProperty(varName, (String) CoreScenario.getInstance().tryGetVar(varName));
+            ValueReference reference = ValueReference.parse(varName);
+            String value;
+            if (reference != null) {
+                value = PropertyLoader.requireReferencedValue(reference);
+            } else if (PropertyLoader.STRICT_RESOLUTION) {
+                continue;
+            } else {
+                value = loadProperty(varName, (String) CoreScenario.getInstance().tryGetVar(varName));
+            }
             if (value != null) {
                 result = result.replace("{" + varName + "}", value);
             } else {
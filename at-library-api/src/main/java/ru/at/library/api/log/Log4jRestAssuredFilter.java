@@ -26,7 +26,7 @@ public class Log4jRestAssuredFilter implements OrderedFilter {
         if (log.isTraceEnabled()) {
             doLogHeaders(requestSpec.getHeaders());
             if (requestSpec.getBody() != null) {
-                String formatted = DocumentFormatter.createPrettyPrint(requestSpec.getBody().toString(), requestSpec.getContentType());
+                String formatted = DocumentFormatter.formatForLog(requestSpec.getBody().toString(), requestSpec.getContentType());
                 log.trace("BODY=[\n{}]", formatted);
             }
         }
@@ -35,7 +35,7 @@ public class Log4jRestAssuredFilter implements OrderedFilter {
         if (log.isTraceEnabled()) {
             doLogHeaders(response.getHeaders());
             if (response.getBody() != null) {
-                String formatted = DocumentFormatter.createPrettyPrint(response.getBody().asString(), response.getContentType());
+                String formatted = DocumentFormatter.formatForLog(response.getBody().asString(), response.getContentType());
                 log.trace("BODY=[\n{}]", formatted);
             }
         }
@@ -1,11 +1,16 @@
 package ru.at.library.api.setup;
 
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 import io.qameta.allure.Step;
 import io.restassured.RestAssured;
+import io.restassured.response.Response;
 import lombok.extern.log4j.Log4j2;
+import ru.at.library.api.helpers.PooledHttpClient;
+import ru.at.library.api.helpers.RetryPolicy;
 import ru.at.library.core.utils.helpers.PropertyLoader;
+import ru.at.library.core.utils.helpers.VariableSizeEstimator;
 
 /**
  * Начальная настройка для API-сценариев: установка baseURI RestAssured.
@@ -14,6 +19,11 @@ import ru.at.library.core.utils.helpers.PropertyLoader;
 @Log4j2
 public class ApiInitialSetup {
 
+    static {
+        // Основной объём памяти переменных API-сценариев - тела ответов
+        VariableSizeEstimator.register(Response.class, response -> 64L + response.asByteArray().length);
+    }
+
     @Before(order = 2, value = "@api")
     @Step("Настройка RestAssured baseURI для API-сценария")
     public void configureRestAssuredBaseUri(Scenario scenario) {
@@ -25,4 +35,24 @@ public class ApiInitialSetup {
         RestAssured.baseURI = baseUri;
         log.info("[API] baseURI={} для сценария '{}': {}", baseUri, scenario.getId(), scenario.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Статистика общего пула HTTP-соединений после всех сценариев прогона
+     */
+    @AfterAll
+    public static void reportHttpConnectionPool() {
+        if (PooledHttpClient.isStarted()) {
+            log.info("\n++++++++++++\nПул HTTP-соединений\n{}++++++++++++", PooledHttpClient.getStatistics());
+        }
+    }
+
+    /**
+     * Статистика повторов HTTP-запросов после всех сценариев прогона, если повторы выполнялись или были отклонены
+     */
+    @AfterAll
+    public static void reportRequestRetries() {
+        if (RetryPolicy.hasActivity()) {
+            log.info("\n++++++++++++\nПовторы HTTP-запросов\n{}++++++++++++", RetryPolicy.getStatistics());
+        }
+    }
+}
@@ -54,6 +54,7 @@ public class ProxySteps {
         System.setProperty("http.proxyPort", proxyPort);
         System.setProperty("https.proxyHost", proxyHost);
         System.setProperty("https.proxyPort", proxyPort);
+        PropertyLoader.refreshProperties();
 
         RestAssured.proxy = ProxySpecification.host(proxyHost).withPort(Integer.parseInt(proxyPort));
         log.info("Включено использование proxy {}:{}", proxyHost, proxyPort);
@@ -73,6 +74,7 @@ public class ProxySteps {
         System.clearProperty("http.proxyPort");
         System.clearProperty("https.proxyHost");
         System.clearProperty("https.proxyPort");
+        PropertyLoader.refreshProperties();
 
         RestAssured.proxy = null;
         log.info("Выключено использование proxy (http/https proxy свойства очищены)");
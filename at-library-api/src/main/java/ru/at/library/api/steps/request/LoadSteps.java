@@ -0,0 +1,121 @@
+package ru.at.library.api.steps.request;
+
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.ru.И;
+import lombok.extern.log4j.Log4j2;
+import ru.at.library.api.helpers.LoadGenerator;
+import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.allure.AllureAttachments;
+
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+import static java.lang.String.format;
+import static ru.at.library.api.steps.request.SendRequestSteps.HTTP_METHOD_PATTERN;
+
+/**
+ * Шаги нагрузки с фиксированной частотой для проверки SLA внутри сценариев.
+ * Запросы описываются так же, как в {@link SendRequestSteps}, и отправляются по расписанию
+ * (открытая модель, см. {@link LoadGenerator}) в виртуальных потоках сценария.
+ * <p>
+ * Результат сохраняется в переменную (объект {@link LoadGenerator.Result}), а также в переменные
+ * "имя_p50", "имя_p95", "имя_p99", "имя_max" (задержка в мс) и "имя_errorRate" (доля ошибок в %).
+ * Отчёт с распределением задержек прикладывается к Allure.
+ */
+@Log4j2
+public class LoadSteps {
+
+    private final CoreScenario coreScenario = CoreScenario.getInstance();
+    private final SendRequestSteps requestSteps = new SendRequestSteps();
+
+    /**
+     * Нагрузка без таблицы параметров.
+     * Без указания кода ответа ошибками считаются исключения и ответы с кодом 400 и выше.
+     * Пример:
+     *  И с частотой 20 запросов/с в течение 30с отправлен HTTP GET на "url.store.inventory" код ответа 200 результат нагрузки сохранен в "load"
+     */
+    @И("^с частотой (\\d+) запросов/с в течение (\\d+)с отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\"(?: код ответа (\\d+))? результат нагрузки сохранен в \"([^\"]+)\"$")
+    public void load(int rps, int durationSec, String method, String address, Integer expectedStatus, String resultVar) {
+        runLoad(rps, durationSec, method, address, null, expectedStatus, resultVar);
+    }
+
+    /**
+     * Нагрузка с таблицей параметров запроса (формат как в шагах отправки запроса).
+     * Пример:
+     *  И с частотой 50 запросов/с в течение 60с отправлен HTTP POST на "url.pet" код ответа 200 результат нагрузки сохранен в "load":
+     *    | HEADER | Content-Type | application/json |
+     *    | BODY   | BODY         | json.post.pet    |
+     */
+    @И("^с частотой (\\d+) запросов/с в течение (\\d+)с отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\"(?: код ответа (\\d+))? результат нагрузки сохранен в \"([^\"]+)\":$")
+    public void loadWithParams(int rps, int durationSec, String method, String address, Integer expectedStatus,
+                               String resultVar, DataTable paramsTable) {
+        runLoad(rps, durationSec, method, address, paramsTable, expectedStatus, resultVar);
+    }
+
+    /**
+     * Проверка перцентиля или максимума задержки.
+     * Пример:
+     *  И в результате нагрузки "load" p95 меньше 300 мс
+     */
+    @И("^в результате нагрузки \"([^\"]+)\" (p50|p95|p99|max) (?:меньше|ниже) (\\d+) мс$")
+    public void checkLatency(String resultVar, String metric, long limitMs) {
+        LoadGenerator.Result result = getResult(resultVar);
+        double actualMs = "max".equals(metric)
+                ? result.getMaxMs()
+                : result.getPercentileMs(Double.parseDouble(metric.substring(1)));
+        if (actualMs >= limitMs) {
+            throw new AssertionError(format(Locale.ROOT, "Ожидалось %s задержки меньше %d мс в \"%s\", фактически %.1f мс",
+                    metric, limitMs, resultVar, actualMs));
+        }
+    }
+
+    /**
+     * Проверка доли ошибок.
+     * Пример:
+     *  И в результате нагрузки "load" доля ошибок не более 1%
+     */
+    @И("^в результате нагрузки \"([^\"]+)\" доля ошибок не более (\\d+(?:[.,]\\d+)?)%$")
+    public void checkErrorRate(String resultVar, String limitPercent) {
+        LoadGenerator.Result result = getResult(resultVar);
+        double limit = Double.parseDouble(limitPercent.replace(',', '.'));
+        if (result.getErrorRatePercent() > limit) {
+            throw new AssertionError(format(Locale.ROOT, "Ожидалась доля ошибок не более %s%% в \"%s\", фактически %.2f%% (%d из %d)",
+                    limitPercent, resultVar, result.getErrorRatePercent(), result.getErrors(), result.getScheduled()));
+        }
+    }
+
+    private void runLoad(int rps, int durationSec, String method, String address, DataTable params,
+                         Integer expectedStatus, String resultVar) {
+        IntPredicate success = expectedStatus != null
+                ? status -> status == expectedStatus
+                : status -> status < 400;
+        requestSteps.configureRestAssuredIfNeeded();
+        log.info("Нагрузка HTTP {} {}: {} запросов/с в течение {} с", method, address, rps, durationSec);
+
+        LoadGenerator.Result result = LoadGenerator.run(rps, durationSec, coreScenario.getContext().virtualThreadFactory(),
+                () -> requestSteps.sendRequest(method, address, params, false), success);
+
+        String report = result.formatReport("HTTP " + method + " " + address);
+        log.info("\n{}", report);
+        AllureAttachments.attach("Нагрузка HTTP " + method + " " + address, "text/plain", "txt", report);
+
+        coreScenario.setVar(resultVar, result);
+        coreScenario.setVar(resultVar + "_p50", formatMs(result.getPercentileMs(50)));
+        coreScenario.setVar(resultVar + "_p95", formatMs(result.getPercentileMs(95)));
+        coreScenario.setVar(resultVar + "_p99", formatMs(result.getPercentileMs(99)));
+        coreScenario.setVar(resultVar + "_max", formatMs(result.getMaxMs()));
+        coreScenario.setVar(resultVar + "_errorRate", String.format(Locale.ROOT, "%.2f", result.getErrorRatePercent()));
+    }
+
+    private LoadGenerator.Result getResult(String resultVar) {
+        Object value = coreScenario.getVar(resultVar);
+        if (!(value instanceof LoadGenerator.Result result)) {
+            throw new IllegalStateException("Переменная '" + resultVar + "' не содержит результат нагрузки");
+        }
+        return result;
+    }
+
+    private static String formatMs(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -1,7 +1,5 @@
 package ru.at.library.api.steps.request;
 
-import com.google.common.base.Charsets;
-import com.google.common.io.Resources;
 import io.cucumber.datatable.DataTable;
 import io.cucumber.java.ru.И;
 import io.restassured.RestAssured;
@@ -15,15 +13,28 @@ import io.restassured.response.Response;
 import io.restassured.specification.RequestSender;
 import io.restassured.specification.RequestSpecification;
 import lombok.extern.log4j.Log4j2;
+import ru.at.library.api.helpers.PollingSchedule;
+import ru.at.library.api.helpers.PooledHttpClient;
+import ru.at.library.api.helpers.RetryPolicy;
 import ru.at.library.api.helpers.Utils;
 import ru.at.library.core.cucumber.api.CoreScenario;
 import ru.at.library.core.utils.helpers.PropertyLoader;
+import ru.at.library.core.utils.helpers.ResourceContentCache;
 import ru.at.library.core.utils.helpers.ScopedVariables;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.String.format;
@@ -39,7 +50,7 @@ import static org.hamcrest.Matchers.is;
 public class SendRequestSteps {
 
     private static final int DEFAULT_TIMEOUT = PropertyLoader.loadPropertyInt("http.timeout", 10);
-    private static final String HTTP_METHOD_PATTERN = "((?:GET|PUT|POST|DELETE|HEAD|TRACE|OPTIONS|PATCH))";
+    static final String HTTP_METHOD_PATTERN = "((?:GET|PUT|POST|DELETE|HEAD|TRACE|OPTIONS|PATCH))";
 
     /**
      * Включить логирование HTTP-запросов/ответов RestAssured в консоль.
@@ -49,9 +60,36 @@ public class SendRequestSteps {
 
     /**
      * Количество попыток при простом повторении запросов (не polling).
+     * Какие ответы повторять и с какими паузами, определяет {@link RetryPolicy}.
      */
     public static int requestRetries = Integer.parseInt(getProperty("request.retries", "1"));
 
+    /**
+     * Максимум одновременных запросов в шагах параллельной отправки, если он не указан в самом шаге.
+     * Задаётся системным свойством -Dapi.fanout.concurrency
+     */
+    private static final int FAN_OUT_CONCURRENCY = Integer.getInteger("api.fanout.concurrency", 20);
+
+    /**
+     * Количество неудачных запросов, перечисляемых в ошибке параллельной отправки
+     */
+    private static final int FAN_OUT_REPORTED_ERRORS = 5;
+
+    /**
+     * Условные запросы (If-None-Match/If-Modified-Since) при polling методами GET и HEAD.
+     * Отключаются системным свойством -Dapi.poll.conditional=false
+     */
+    private static final boolean CONDITIONAL_POLLING = parseBoolean(getProperty("api.poll.conditional", "true"));
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final RestAssuredConfig RELAXED_HTTPS_CONFIG = parseBoolean(getProperty("relaxedHTTPSValidation", "false"))
+            ? RestAssuredConfig.newConfig()
+                    .sslConfig(new SSLConfig().allowAllHostnames())
+                    .jsonConfig(JsonConfig.jsonConfig()
+                            .numberReturnType(JsonPathConfig.NumberReturnType.BIG_DECIMAL))
+            : null;
+
     private final CoreScenario coreScenario = CoreScenario.getInstance();
 
     // =======================================================================
@@ -102,6 +140,7 @@ public class SendRequestSteps {
 
     /**
      * Периодическая отправка HTTP-запроса без таблицы параметров.
+     * Количество выполненных запросов сохраняется в переменную "имя_polls".
      * Пример:
      *  И каждые 2с/10с отправлен HTTP GET на "url.store.inventory" код ответа 200 ответ сохранен в "response"
      */
@@ -112,8 +151,7 @@ public class SendRequestSteps {
                             String address,
                             int expectedStatus,
                             String responseVar) {
-        Response response = pollWithParams(timeoutSec, periodSec, method, address, null, null, expectedStatus);
-        saveResponse(responseVar, response);
+        poll(timeoutSec, PollingSchedule.fixed(periodSec * 1000L), method, address, null, expectedStatus, responseVar);
     }
 
     /**
@@ -136,94 +174,470 @@ public class SendRequestSteps {
                                       int expectedStatus,
                                       String responseVar,
                                       DataTable dataTable) {
+        poll(timeoutSec, PollingSchedule.fixed(periodSec * 1000L), method, address, dataTable, expectedStatus, responseVar);
+    }
+
+    /**
+     * Ожидание ответа с нарастающим интервалом между запросами (см. {@link PollingSchedule}):
+     * первые запросы отправляются часто, затем всё реже, вплоть до api.poll.maxIntervalMs.
+     * Пример:
+     *  И в течение 60с с нарастающим интервалом отправлен HTTP GET на "url.job.status" код ответа 200 ответ сохранен в "job"
+     */
+    @И("^в течение (\\d+)с с нарастающим интервалом отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\" код ответа (\\d+) ответ сохранен в \"([^\"]+)\"$")
+    public void pollRequestWithBackoff(int timeoutSec,
+                                       String method,
+                                       String address,
+                                       int expectedStatus,
+                                       String responseVar) {
+        poll(timeoutSec, PollingSchedule.backoff(), method, address, null, expectedStatus, responseVar);
+    }
+
+    /**
+     * Ожидание ответа с нарастающим интервалом и таблицей параметров (разделитель RESPONSE - как в шагах "каждые Nс/Mс").
+     * Пример:
+     *  И в течение 60с с нарастающим интервалом отправлен HTTP GET на "url.job.status" код ответа 200 ответ сохранен в "job":
+     *    | PARAMETER | id           | jobId |
+     *    | RESPONSE  |              |       |
+     *    | HEADER    | X-Job-Status | DONE  |
+     */
+    @И("^в течение (\\d+)с с нарастающим интервалом отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\" код ответа (\\d+) ответ сохранен в \"([^\"]+)\":$")
+    public void pollRequestWithBackoffAndParams(int timeoutSec,
+                                                String method,
+                                                String address,
+                                                int expectedStatus,
+                                                String responseVar,
+                                                DataTable dataTable) {
+        poll(timeoutSec, PollingSchedule.backoff(), method, address, dataTable, expectedStatus, responseVar);
+    }
+
+    private void poll(int timeoutSec, PollingSchedule schedule, String method, String address,
+                      DataTable dataTable, int expectedStatus, String responseVar) {
+        configureRestAssuredIfNeeded();
         DataTable requestParams = dataTable;
         DataTable responseParams = null;
-        int responseDividerIndex = dataTable.column(0).indexOf("RESPONSE");
+        int responseDividerIndex = dataTable != null ? dataTable.column(0).indexOf("RESPONSE") : -1;
         if (responseDividerIndex != -1) {
             responseParams = dataTable.subTable(responseDividerIndex + 1, 0, dataTable.height(), dataTable.width());
             requestParams = dataTable.subTable(0, 0, responseDividerIndex, dataTable.width());
         }
-        Response response = pollWithParams(timeoutSec, periodSec, method, address, requestParams, responseParams, expectedStatus);
-        saveResponse(responseVar, response);
+        PollResult result = pollWithParams(timeoutSec, schedule, method, address, requestParams, responseParams, expectedStatus);
+        saveResponse(responseVar, result.response());
+        coreScenario.setVar(responseVar + "_polls", String.valueOf(result.polls()));
+    }
+
+    // =======================================================================
+    // ПАРАЛЛЕЛЬНАЯ ОТПРАВКА НЕСКОЛЬКИХ ЗАПРОСОВ
+    // =======================================================================
+
+    /**
+     * Параллельная отправка запросов, описанных в таблице.
+     * Каждый запрос начинается строкой REQUEST с методом и адресом, следующие строки до очередного REQUEST -
+     * параметры запроса в том же формате, что и в шагах отправки одного запроса.
+     * Ответы сохраняются в переменные "имя_1", "имя_2", ... в порядке запросов, список всех ответов - в "имя".
+     * Пример:
+     *  И параллельно отправлены HTTP-запросы не более 10 одновременно ответы сохранены в "pets":
+     *    | REQUEST   | GET          | url.pet.findByStatus |
+     *    | PARAMETER | status       | available            |
+     *    | REQUEST   | POST         | url.pet              |
+     *    | HEADER    | Content-Type | application/json     |
+     *    | BODY      | BODY         | json.post.pet        |
+     */
+    @И("^параллельно отправлены HTTP-запросы(?: не более (\\d+) одновременно)? ответы сохранены в \"([^\"]+)\":$")
+    public void fanOutRequests(Integer concurrency, String responsesVar, DataTable requestsTable) {
+        fanOut(parseRequestDefinitions(requestsTable.cells()), concurrency, responsesVar);
+    }
+
+    /**
+     * Параллельная отправка запросов из переменной.
+     * Переменная содержит список описаний запросов: {@link DataTable} или список строк таблицы
+     * ({@code List<List<String>>}) в формате шага с таблицей REQUEST.
+     * Пример:
+     *  И параллельно отправлены HTTP-запросы из переменной "requests" ответы сохранены в "responses"
+     */
+    @И("^параллельно отправлены HTTP-запросы из переменной \"([^\"]+)\"(?: не более (\\d+) одновременно)? ответы сохранены в \"([^\"]+)\"$")
+    public void fanOutRequestsFromVariable(String requestsVar, Integer concurrency, String responsesVar) {
+        Object value = coreScenario.getVar(requestsVar);
+        if (!(value instanceof List<?> definitions)) {
+            throw new IllegalStateException("Переменная '" + requestsVar + "' не содержит список описаний запросов");
+        }
+        List<List<String>> rows = new ArrayList<>();
+        for (Object definition : definitions) {
+            rows.addAll(toRows(requestsVar, definition));
+        }
+        fanOut(parseRequestDefinitions(rows), concurrency, responsesVar);
+    }
+
+    /**
+     * Параллельная отправка одинаковых запросов, например для создания тестовых сущностей.
+     * Примеры:
+     *  И параллельно 100 раз отправлен HTTP GET на "url.store.inventory" ответы сохранены в "inventory"
+     *  И параллельно 500 раз отправлен HTTP POST на "url.pet" не более 50 одновременно ответы сохранены в "pets":
+     *    | HEADER | Content-Type | application/json |
+     *    | BODY   | BODY         | json.post.pet    |
+     */
+    @И("^параллельно (\\d+) раз отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\"(?: не более (\\d+) одновременно)? ответы сохранены в \"([^\"]+)\"$")
+    public void fanOutSameRequest(int count, String method, String address, Integer concurrency, String responsesVar) {
+        fanOut(repeatRequest(count, method, address, null), concurrency, responsesVar);
+    }
+
+    @И("^параллельно (\\d+) раз отправлен HTTP " + HTTP_METHOD_PATTERN + " на \"([^\"]+)\"(?: не более (\\d+) одновременно)? ответы сохранены в \"([^\"]+)\":$")
+    public void fanOutSameRequestWithParams(int count, String method, String address, Integer concurrency,
+                                            String responsesVar, DataTable paramsTable) {
+        fanOut(repeatRequest(count, method, address, paramsTable), concurrency, responsesVar);
     }
 
     // =======================================================================
     // НИЗКОУРОВНЕВЫЕ ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ
     // =======================================================================
 
+    /**
+     * Описание одного запроса параллельной отправки
+     */
+    private record RequestDefinition(String method, String address, DataTable params) {
+    }
+
+    /**
+     * Отправляет запросы в виртуальных потоках сценария, одновременно выполняется не более {@code concurrency} запросов.
+     * Ответы сохраняются после завершения всех запросов; если часть запросов завершилась ошибкой,
+     * сохраняются только полученные ответы (без общего списка) и шаг завершается ошибкой.
+     */
+    private void fanOut(List<RequestDefinition> definitions, Integer concurrency, String responsesVar) {
+        int limit = concurrency != null ? concurrency : FAN_OUT_CONCURRENCY;
+        if (limit < 1) {
+            throw new IllegalArgumentException("Количество одновременных запросов должно быть больше 0, указано " + limit);
+        }
+        configureRestAssuredIfNeeded();
+
+        Semaphore permits = new Semaphore(limit);
+        List<Future<Response>> futures = new ArrayList<>(definitions.size());
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(coreScenario.getContext().virtualThreadFactory())) {
+            for (RequestDefinition definition : definitions) {
+                // Ждём свободного места до создания потока, чтобы не держать сотни потоков в ожидании
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return sendRequest(definition.method(), definition.address(), definition.params(), false);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Параллельная отправка запросов была прервана", e);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Response[] responses = new Response[definitions.size()];
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        List<String> errors = new ArrayList<>();
+        AssertionError failure = new AssertionError();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                responses[i] = futures.get(i).get();
+                statuses.merge(responses[i].statusCode(), 1, Integer::sum);
+                coreScenario.setVar(responsesVar + "_" + (i + 1), responses[i]);
+            } catch (ExecutionException e) {
+                RequestDefinition definition = definitions.get(i);
+                if (errors.size() < FAN_OUT_REPORTED_ERRORS) {
+                    failure.addSuppressed(e.getCause());
+                }
+                errors.add(format("#%d HTTP %s %s: %s", i + 1, definition.method(), definition.address(), e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Параллельная отправка запросов была прервана", e);
+            }
+        }
+        log.info("Параллельно отправлено {} HTTP-запросов (не более {} одновременно) за {} мс, статусы: {}, ошибок: {}",
+                definitions.size(), limit, elapsedMs, statuses, errors.size());
+
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError(format("Не удалось отправить %d из %d HTTP-запросов:%n%s",
+                    errors.size(), definitions.size(),
+                    String.join("\n", errors.subList(0, Math.min(errors.size(), FAN_OUT_REPORTED_ERRORS)))));
+            Arrays.stream(failure.getSuppressed()).forEach(error::addSuppressed);
+            throw error;
+        }
+        coreScenario.setVar(responsesVar, List.of(responses));
+    }
+
+    /**
+     * Разбор строк таблицы параллельной отправки: строка REQUEST (метод, адрес) и параметры запроса до следующей REQUEST
+     */
+    private static List<RequestDefinition> parseRequestDefinitions(List<List<String>> rows) {
+        List<RequestDefinition> definitions = new ArrayList<>();
+        String method = null;
+        String address = null;
+        List<List<String>> params = new ArrayList<>();
+        for (List<String> row : rows) {
+            if ("REQUEST".equalsIgnoreCase(row.get(0))) {
+                if (method != null) {
+                    definitions.add(new RequestDefinition(method, address, params.isEmpty() ? null : DataTable.create(params)));
+                }
+                method = row.get(1).trim().toUpperCase();
+                address = row.get(2);
+                params = new ArrayList<>();
+                if (!method.matches(HTTP_METHOD_PATTERN)) {
+                    throw new IllegalArgumentException(format("Некорректно задан HTTP-метод %s для запроса %s", method, address));
+                }
+            } else if (method == null) {
+                throw new IllegalArgumentException("Описание запросов должно начинаться строкой REQUEST | <метод> | <адрес>, получено: " + row);
+            } else {
+                params.add(row);
+            }
+        }
+        if (method == null) {
+            throw new IllegalArgumentException("Не задано ни одного запроса (строка REQUEST | <метод> | <адрес>)");
+        }
+        definitions.add(new RequestDefinition(method, address, params.isEmpty() ? null : DataTable.create(params)));
+        return definitions;
+    }
+
+    private static List<RequestDefinition> repeatRequest(int count, String method, String address, DataTable params) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Количество запросов должно быть больше 0, указано " + count);
+        }
+        RequestDefinition definition = new RequestDefinition(method, address, params);
+        List<RequestDefinition> definitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            definitions.add(definition);
+        }
+        return definitions;
+    }
+
+    private static List<List<String>> toRows(String variableName, Object definition) {
+        if (definition instanceof DataTable table) {
+            return table.cells();
+        }
+        if (definition instanceof List<?> rows) {
+            List<List<String>> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                if (!(row instanceof List<?> cells)) {
+                    throw new IllegalStateException("Переменная '" + variableName + "' содержит некорректное описание запроса: " + definition);
+                }
+                result.add(cells.stream().map(String::valueOf).toList());
+            }
+            return result;
+        }
+        throw new IllegalStateException("Переменная '" + variableName + "' содержит некорректное описание запроса: " + definition);
+    }
+
+    /**
+     * Отправка запроса с повторами по {@link RetryPolicy}, пока не будет получен ожидаемый статус.
+     * Количество попыток - request.retries; повтор может быть отклонён бюджетом повторов
+     * или предохранителем хоста, тогда шаг завершается ошибкой с указанием причины.
+     */
     private Response sendWithRetries(String method,
                                      String address,
                                      DataTable params,
                                      int expectedStatus) {
+        configureRestAssuredIfNeeded();
+        String target = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(address);
+        int attempts = Math.max(1, requestRetries);
         Response lastResponse = null;
-        for (int attempt = 1; attempt <= requestRetries; attempt++) {
-            lastResponse = sendRequest(method, address, params);
-            int actualStatus = lastResponse.statusCode();
-            log.debug("HTTP {} {} -> статус {} (попытка {}/{})", method, address, actualStatus, attempt, requestRetries);
-            if (actualStatus == expectedStatus) {
-                return lastResponse;
+        Exception lastException = null;
+        String stopReason = null;
+        int retries = 0;
+        boolean trialPending = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                long retryAfterMs = -1;
+                boolean retryable;
+                try {
+                    lastResponse = sendRequest(method, address, params, LOG_HTTP, Map.of());
+                    lastException = null;
+                    int actualStatus = lastResponse.statusCode();
+                    log.debug("HTTP {} {} -> статус {} (попытка {}/{})", method, target, actualStatus, attempt, attempts);
+                    if (actualStatus == expectedStatus) {
+                        if (attempts > 1) {
+                            RetryPolicy.recordOutcome(target, false);
+                            trialPending = false;
+                            RetryPolicy.recordResult(retries, true);
+                        }
+                        return lastResponse;
+                    }
+                    retryable = RetryPolicy.isRetryableStatus(actualStatus);
+                    retryAfterMs = PollingSchedule.parseRetryAfterMs(lastResponse.getHeader("Retry-After"), System.currentTimeMillis());
+                } catch (Exception e) {
+                    if (attempts == 1 || !RetryPolicy.isRetryableException(e)) {
+                        throw e;
+                    }
+                    log.debug("HTTP {} {} -> {} (попытка {}/{})", method, target, e, attempt, attempts);
+                    lastException = e;
+                    retryable = true;
+                }
+                if (attempts == 1) {
+                    break;
+                }
+                RetryPolicy.recordOutcome(target, retryable);
+                trialPending = false;
+                if (!retryable) {
+                    stopReason = "код ответа не подлежит повтору";
+                    break;
+                }
+                if (attempt >= attempts) {
+                    break;
+                }
+                long delayMs = RetryPolicy.backoffMs(retries, retryAfterMs);
+                if (delayMs < 0) {
+                    stopReason = format("сервер запросил повтор через %d мс", retryAfterMs);
+                    break;
+                }
+                RetryPolicy.Permit permit = RetryPolicy.tryRetry(target);
+                if (permit != RetryPolicy.Permit.ALLOWED) {
+                    stopReason = permit == RetryPolicy.Permit.CIRCUIT_OPEN
+                            ? "повторы к хосту приостановлены предохранителем"
+                            : "исчерпан бюджет повторов";
+                    break;
+                }
+                trialPending = true;
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Ожидание между повторами запроса было прервано", e);
+                }
+                retries++;
+            }
+        } finally {
+            if (trialPending) {
+                RetryPolicy.releaseTrial(target);
             }
         }
-        if (lastResponse == null) {
-            throw new AssertionError(String.format("Не удалось отправить HTTP %s запрос на %s: нет ни одного ответа", method, address));
+
+        if (attempts > 1) {
+            RetryPolicy.recordResult(retries, false);
+        }
+        String note = stopReason != null ? ", " + stopReason : "";
+        if (lastException != null) {
+            throw new RuntimeException(format("Не удалось выполнить HTTP %s %s после %d попыток%s",
+                    method, target, retries + 1, note), lastException);
         }
-        throw new AssertionError(String.format(
-                "Ожидался статус %d для HTTP %s %s после %d попыток, фактически %d",
-                expectedStatus, method, address, requestRetries, lastResponse.statusCode()));
+        throw new AssertionError(format(
+                "Ожидался статус %d для HTTP %s %s после %d попыток, фактически %d%s",
+                expectedStatus, method, target, retries + 1, lastResponse.statusCode(), note));
+    }
+
+    /**
+     * Результат ожидания: подходящий ответ и количество выполненных запросов
+     */
+    private record PollResult(Response response, int polls) {
     }
 
-    private Response pollWithParams(int timeoutSec,
-                                    int periodSec,
-                                    String method,
-                                    String address,
-                                    DataTable requestParams,
-                                    DataTable expectedResponseParams,
-                                    int expectedStatus) {
-        long startTime = System.currentTimeMillis();
-        long deadline = startTime + timeoutSec * 1000L;
+    /**
+     * Повторяет запрос, пока не будет получен ожидаемый статус и ответ не пройдёт проверку по таблице.
+     * Паузы между запросами задаёт {@code schedule}, пауза из заголовка Retry-After соблюдается.
+     * Последний запрос выполняется в момент окончания таймаута, а не на период раньше.
+     * <p>
+     * Для GET и HEAD при включённом api.poll.conditional (по умолчанию) повторные запросы отправляются
+     * с If-None-Match/If-Modified-Since по ETag/Last-Modified предыдущего ответа. Ответ 304 означает,
+     * что ресурс не изменился: он не проверяется повторно, ожидание продолжается.
+     */
+    private PollResult pollWithParams(int timeoutSec,
+                                      PollingSchedule schedule,
+                                      String method,
+                                      String address,
+                                      DataTable requestParams,
+                                      DataTable expectedResponseParams,
+                                      int expectedStatus) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.SECONDS.toNanos(timeoutSec);
+        boolean conditional = CONDITIONAL_POLLING
+                && ("GET".equals(method) || "HEAD".equals(method))
+                && expectedStatus != HTTP_NOT_MODIFIED
+                && !hasConditionalHeader(requestParams);
+        Map<String, String> validators = Map.of();
         AssertionError lastError = null;
         Response lastResponse = null;
-
-        while (System.currentTimeMillis() < deadline) {
-            lastResponse = sendRequest(method, address, requestParams);
-            int actualStatus = lastResponse.statusCode();
-            log.debug("HTTP {} {} -> статус {} (polling)", method, address, actualStatus);
-
-            if (actualStatus == expectedStatus) {
-                try {
-                    checkResponseByParams(lastResponse, expectedResponseParams);
-                    return lastResponse;
-                } catch (AssertionError e) {
-                    lastError = e;
-                    log.debug("Параметры ответа не совпали с ожиданиями, продолжаем polling: {}", e.getMessage());
+        int polls = 0;
+        int notModified = 0;
+        long retryAfterMs = -1;
+
+        for (int attempt = 0; ; attempt++) {
+            Response response = sendRequest(method, address, requestParams, LOG_HTTP, validators);
+            polls++;
+            int actualStatus = response.statusCode();
+            log.debug("HTTP {} {} -> статус {} (polling, запрос {})", method, address, actualStatus, polls);
+
+            if (actualStatus == HTTP_NOT_MODIFIED && !validators.isEmpty()) {
+                notModified++;
+            } else {
+                lastResponse = response;
+                lastError = null;
+                if (actualStatus == expectedStatus) {
+                    try {
+                        checkResponseByParams(response, expectedResponseParams);
+                        log.info("HTTP {} {}: ожидаемый ответ получен за {} мс, запросов: {} (без изменений: {})",
+                                method, address, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), polls, notModified);
+                        return new PollResult(response, polls);
+                    } catch (AssertionError e) {
+                        lastError = e;
+                        log.debug("Параметры ответа не совпали с ожиданиями, продолжаем polling: {}", e.getMessage());
+                    }
+                }
+                if (conditional) {
+                    validators = conditionalHeaders(response);
                 }
             }
 
-            long next = System.currentTimeMillis() + periodSec * 1000L;
-            if (next > deadline) {
+            retryAfterMs = PollingSchedule.parseRetryAfterMs(response.getHeader("Retry-After"), System.currentTimeMillis());
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0 || retryAfterMs > remainingMs) {
                 break;
             }
             try {
-                Thread.sleep(periodSec * 1000L);
+                Thread.sleep(Math.min(schedule.nextDelayMs(attempt, retryAfterMs), remainingMs));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException("Ожидание между попытками polling было прервано", e);
             }
         }
 
-        if (lastResponse == null) {
-            throw new AssertionError(String.format("Не удалось получить ответ для HTTP %s %s в течение %d секунд", method, address, timeoutSec));
-        }
+        log.info("HTTP {} {}: ожидаемый ответ не получен за {} с, запросов: {} (без изменений: {})",
+                method, address, timeoutSec, polls, notModified);
+        String retryAfterNote = retryAfterMs > 0
+                ? format(", сервер запросил повтор через %d мс", retryAfterMs)
+                : "";
         if (lastResponse.statusCode() != expectedStatus) {
-            throw new AssertionError(String.format(
-                    "Ожидался статус %d для HTTP %s %s в течение %d секунд, фактически %d",
-                    expectedStatus, method, address, timeoutSec, lastResponse.statusCode()));
+            throw new AssertionError(format(
+                    "Ожидался статус %d для HTTP %s %s в течение %d секунд, фактически %d (запросов: %d%s)",
+                    expectedStatus, method, address, timeoutSec, lastResponse.statusCode(), polls, retryAfterNote));
         }
-        if (lastError != null) {
-            throw lastError;
+        throw new AssertionError(format("Ответ HTTP %s %s не прошёл проверку в течение %d секунд (запросов: %d%s): %s",
+                method, address, timeoutSec, polls, retryAfterNote, lastError.getMessage()), lastError);
+    }
+
+    /**
+     * Условные заголовки для следующего запроса по валидаторам успешного ответа
+     */
+    static Map<String, String> conditionalHeaders(Response response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            return Map.of();
+        }
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String etag = response.getHeader("ETag");
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        String lastModified = response.getHeader("Last-Modified");
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        return headers;
+    }
+
+    /**
+     * Условные заголовки, заданные в таблице вручную, отключают автоматические
+     */
+    static boolean hasConditionalHeader(DataTable requestParams) {
+        if (requestParams == null) {
+            return false;
         }
-        // До сюда мы доходить не должны, но на всякий случай.
-        return lastResponse;
+        return requestParams.cells().stream()
+                .filter(row -> "HEADER".equalsIgnoreCase(row.get(0)))
+                .map(row -> row.get(1))
+                .anyMatch(name -> "If-None-Match".equalsIgnoreCase(name) || "If-Modified-Since".equalsIgnoreCase(name));
     }
 
     /**
@@ -240,18 +654,35 @@ public class SendRequestSteps {
             "\n╚══════════════════════════════════════════════════════════════╝\n";
 
     private Response sendRequest(String method, String address, DataTable dataTable) {
-        address = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(address);
         configureRestAssuredIfNeeded();
+        return sendRequest(method, address, dataTable, LOG_HTTP);
+    }
+
+    /**
+     * @param logHttp выводить запрос и ответ в консоль; при параллельной отправке вывод отключается,
+     *                так как запросы разных потоков перемешиваются
+     */
+    Response sendRequest(String method, String address, DataTable dataTable, boolean logHttp) {
+        return sendRequest(method, address, dataTable, logHttp, Map.of());
+    }
 
-        RequestSender request = createRequest(dataTable);
+    /**
+     * @param headers дополнительные заголовки, не заданные в таблице (например, условные заголовки при polling)
+     */
+    private Response sendRequest(String method, String address, DataTable dataTable, boolean logHttp,
+                                 Map<String, String> headers) {
+        address = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(address);
 
-        if (LOG_HTTP) {
+        RequestSender request = createRequest(dataTable, logHttp, headers);
+        RetryPolicy.recordRequest();
+
+        if (logHttp) {
             System.out.println(BANNER_REQUEST);
         }
 
         Response response = request.request(Method.valueOf(method), address);
 
-        if (LOG_HTTP) {
+        if (logHttp) {
             System.out.println(BANNER_RESPONSE);
             response.then().log().all();
         }
@@ -261,28 +692,24 @@ public class SendRequestSteps {
     /**
      * Базовая настройка RestAssured (таймауты, JSON-конфигурация, SSL),
      * включается только если системное свойство relaxedHTTPSValidation=true.
+     * Конфигурация создаётся один раз и устанавливается повторно, только если её заменили.
      */
-    private void configureRestAssuredIfNeeded() {
-        if (!parseBoolean(getProperty("relaxedHTTPSValidation", "false"))) {
-            return;
+    void configureRestAssuredIfNeeded() {
+        if (RELAXED_HTTPS_CONFIG != null && RestAssured.config != RELAXED_HTTPS_CONFIG) {
+            RestAssured.config = RELAXED_HTTPS_CONFIG;
         }
-        RestAssured.config =
-                RestAssuredConfig.newConfig()
-                        .sslConfig(new SSLConfig().allowAllHostnames())
-                        .jsonConfig(JsonConfig.jsonConfig()
-                                .numberReturnType(JsonPathConfig.NumberReturnType.BIG_DECIMAL));
     }
 
     /**
      * Создание запроса из таблицы параметров.
      * Content-Type при необходимости должен быть указан в качестве HEADER.
      */
-    private RequestSender createRequest(DataTable dataTable) {
+    private RequestSender createRequest(DataTable dataTable, boolean logHttp, Map<String, String> headers) {
         String body = null;
         RequestSpecification request = RestAssured.given();
 
         if (dataTable != null) {
-            for (List<String> requestParam : dataTable.asLists()) {
+            for (List<String> requestParam : dataTable.cells()) {
                 String type = requestParam.get(0);
 
                 String name = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(requestParam.get(1));
@@ -347,8 +774,16 @@ public class SendRequestSteps {
                 log.trace("Тело запроса:\n" + body);
             }
         }
+        if (!headers.isEmpty()) {
+            request.headers(headers);
+        }
+        if (PooledHttpClient.ENABLED) {
+            // Соединения берутся из общего пула вместо нового соединения на каждый запрос.
+            // Пул выбирается после разбора параметров, когда известны SSL-настройки запроса (RELAXED_HTTPS)
+            PooledHttpClient.apply(request);
+        }
 
-        if (LOG_HTTP) {
+        if (logHttp) {
             // Логируем сформированный запрос при выполнении
             request = request.log().all();
         }
@@ -402,15 +837,12 @@ public class SendRequestSteps {
      * Загрузка тела запроса: либо значение напрямую, либо содержимое resource-файла.
      */
     private String checkBody(String value) {
-        URL url = PropertyLoader.class.getClassLoader().getResource(value);
-        if (url != null) {
-            try {
-                value = Resources.toString(url, Charsets.UTF_8);
-            } catch (IOException e) {
-                throw new RuntimeException(format("Ошибка чтения файла ресурса: %s", url.getPath()), e);
-            }
+        try {
+            String resourceValue = ResourceContentCache.readClasspathResource(value);
+            return resourceValue != null ? resourceValue : value;
+        } catch (IOException e) {
+            throw new RuntimeException(format("Ошибка чтения файла ресурса: %s", value), e);
         }
-        return value;
     }
 
     /**
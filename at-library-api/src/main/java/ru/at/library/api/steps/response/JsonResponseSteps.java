@@ -10,11 +10,11 @@ import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 import io.cucumber.datatable.DataTable;
 import io.cucumber.java.ru.И;
-import io.qameta.allure.Allure;
 import io.restassured.response.Response;
 import lombok.extern.log4j.Log4j2;
 import ru.at.library.api.helpers.Utils;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.allure.AllureAttachments;
 import ru.at.library.core.utils.helpers.PropertyLoader;
 
 import java.time.OffsetDateTime;
@@ -454,17 +454,17 @@ public class JsonResponseSteps {
                 resolvedSchemaPath,
                 schemaBody
         );
-        Allure.addAttachment("JSON schema: " + resolvedSchemaPath, "application/json", attachmentBody, ".json");
+        AllureAttachments.attach("JSON schema: " + resolvedSchemaPath, "application/json", "json", attachmentBody);
     }
 
     private void attachResponseJsonToAllure(String responseVar, String responseBody) {
-        Allure.addAttachment("Response JSON: " + responseVar, "application/json", responseBody, ".json");
+        AllureAttachments.attach("Response JSON: " + responseVar, "application/json", "json", responseBody);
     }
 
     private void attachSchemaValidationReportToAllure(List<String> validationErrors) {
         String reportBody = validationErrors.isEmpty()
                 ? "JSON schema validation passed"
                 : String.join(System.lineSeparator(), validationErrors);
-        Allure.addAttachment("JSON schema validation report", "text/plain", reportBody, ".txt");
+        AllureAttachments.attach("JSON schema validation report", "text/plain", "txt", reportBody);
     }
 }
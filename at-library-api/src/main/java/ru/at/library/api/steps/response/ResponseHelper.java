@@ -3,6 +3,8 @@ package ru.at.library.api.steps.response;
 import io.restassured.response.Response;
 import ru.at.library.core.cucumber.api.CoreScenario;
 
+import java.util.List;
+
 /**
  * Утилитный класс для получения {@link Response} из хранилища переменных {@link CoreScenario}.
  */
@@ -28,4 +30,24 @@ public final class ResponseHelper {
 
         return (Response) value;
     }
+
+    /**
+     * Возвращает список {@link Response} из хранилища переменных по имени
+     * (например, сохранённый шагами параллельной отправки запросов).
+     *
+     * @param responsesNameVariable имя переменной, в которой ожидается список {@link Response}
+     * @return список ответов
+     */
+    public static List<Response> getResponses(String responsesNameVariable) {
+        if (responsesNameVariable == null || responsesNameVariable.trim().isEmpty()) {
+            throw new IllegalArgumentException("Имя переменной со списком Response не может быть null или пустым");
+        }
+
+        Object value = CoreScenario.getInstance().getVar(responsesNameVariable);
+        if (!(value instanceof List<?> list) || !list.stream().allMatch(Response.class::isInstance)) {
+            throw new IllegalStateException("Переменная '" + responsesNameVariable + "' не содержит список Response");
+        }
+
+        return list.stream().map(Response.class::cast).toList();
+    }
 }
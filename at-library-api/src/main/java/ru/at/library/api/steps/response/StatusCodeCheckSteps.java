@@ -3,11 +3,19 @@ package ru.at.library.api.steps.response;
 import io.cucumber.java.ru.И;
 import io.restassured.response.Response;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Шаги проверки HTTP статус-кодов.
  */
 public class StatusCodeCheckSteps {
 
+    /**
+     * Количество номеров ответов с неожиданным статус-кодом, выводимых в ошибке
+     */
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
     /**
      * Проверка HTTP статус-кода ответа.
      * Пример:
@@ -21,4 +29,50 @@ public class StatusCodeCheckSteps {
         Response response = ResponseHelper.getResponse(responseVar);
         response.then().statusCode(expectedStatus);
     }
+
+    /**
+     * Проверка, что все ответы из списка получили ожидаемый HTTP статус-код.
+     * Пример:
+     *  И все ответы в "pets" имеют statusCode: 200
+     *
+     * @param responsesVar   имя переменной, содержащей список {@link Response}
+     * @param expectedStatus ожидаемый HTTP статус-код
+     */
+    @И("^все ответы в \"([^\"]+)\" имеют statusCode: (\\d+)$")
+    public void checkAllResponsesStatusCode(String responsesVar, int expectedStatus) {
+        List<Response> responses = ResponseHelper.getResponses(responsesVar);
+        List<String> mismatches = new ArrayList<>();
+        for (int i = 0; i < responses.size(); i++) {
+            int actualStatus = responses.get(i).statusCode();
+            if (actualStatus != expectedStatus) {
+                mismatches.add("#" + (i + 1) + ": " + actualStatus);
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new AssertionError(String.format("Ожидался statusCode %d во всех %d ответах \"%s\", отличаются %d: %s",
+                    expectedStatus, responses.size(), responsesVar, mismatches.size(),
+                    String.join(", ", mismatches.subList(0, Math.min(mismatches.size(), MAX_REPORTED_MISMATCHES)))
+                            + (mismatches.size() > MAX_REPORTED_MISMATCHES ? ", ..." : "")));
+        }
+    }
+
+    /**
+     * Проверка количества ответов из списка с указанным HTTP статус-кодом.
+     * Пример:
+     *  И в ответах "pets" statusCode 200 получен 100 раз
+     *
+     * @param responsesVar  имя переменной, содержащей список {@link Response}
+     * @param status        HTTP статус-код
+     * @param expectedCount ожидаемое количество ответов с этим статус-кодом
+     */
+    @И("^в ответах \"([^\"]+)\" statusCode (\\d+) получен (\\d+) раз$")
+    public void checkResponsesStatusCodeCount(String responsesVar, int status, long expectedCount) {
+        long actualCount = ResponseHelper.getResponses(responsesVar).stream()
+                .filter(response -> response.statusCode() == status)
+                .count();
+        if (actualCount != expectedCount) {
+            throw new AssertionError(String.format("Ожидалось %d ответов со statusCode %d в \"%s\", фактически %d",
+                    expectedCount, status, responsesVar, actualCount));
+        }
+    }
 }
@@ -4,8 +4,10 @@ import io.cucumber.datatable.DataTable;
 import io.cucumber.java.ru.И;
 import ru.at.library.api.helpers.Utils;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.helpers.KeyTemplate;
 import ru.at.library.core.utils.helpers.PropertyLoader;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,7 +30,7 @@ public class TemplateJsonSteps {
      * @param type         тип шаблона (JSON или XML) — используется для валидации результата
      * @param templatePath путь к файлу шаблона (файл, property, переменная)
      * @param variableName имя переменной для сохранения заполненного шаблона
-     * @param dataTable    таблица: ключ для замены → значение
+     * @param dataTable    таблица: ключ для замены (регулярное выражение) → значение
      */
     @И("^заполнение (JSON|XML)-шаблон \"([^\"]*)\" данными из таблицы и сохранение в переменную \"([^\"]*)\"$")
     public void fillTemplateAndSave(String type, String templatePath, String variableName, DataTable dataTable) {
@@ -36,11 +38,19 @@ public class TemplateJsonSteps {
         String content = PropertyLoader.loadValueFromFileOrVariableOrDefault(resolvedPath);
 
         if (dataTable != null) {
-            for (List<String> row : dataTable.asLists()) {
-                String placeholder = row.get(0);
-                String value = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(row.get(1));
-                content = content.replaceAll(placeholder, value);
+            List<List<String>> rows = dataTable.asLists();
+            List<String> placeholders = new ArrayList<>(rows.size());
+            List<String> values = new ArrayList<>(rows.size());
+            for (List<String> row : rows) {
+                placeholders.add(row.get(0));
+                values.add(PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(row.get(1)));
             }
+            KeyTemplate template = KeyTemplate.compileRegex(content, placeholders);
+            List<String> missingKeys = template.getMissingKeys();
+            if (!missingKeys.isEmpty()) {
+                throw new IllegalArgumentException("В шаблоне '" + templatePath + "' не найдены ключи: " + missingKeys);
+            }
+            content = template.render(values);
         }
 
         if ("JSON".equals(type) && !Utils.isJSONValid(content)) {
@@ -0,0 +1,93 @@
+package ru.at.library.api.helpers;
+
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class PollingScheduleTest {
+
+    @Test
+    public void fixedScheduleKeepsPeriod() {
+        PollingSchedule schedule = PollingSchedule.fixed(1000);
+        for (int attempt = 0; attempt < 10; attempt++) {
+            assertEquals(schedule.nextDelayMs(attempt, -1), 1000);
+        }
+    }
+
+    @Test
+    public void backoffGrowsUpToLimit() {
+        PollingSchedule schedule = PollingSchedule.exponential(100, 1000, 2, 0);
+        long[] expected = {100, 200, 400, 800, 1000, 1000};
+        for (int attempt = 0; attempt < expected.length; attempt++) {
+            assertEquals(schedule.nextDelayMs(attempt, -1), expected[attempt], "attempt " + attempt);
+        }
+        assertEquals(schedule.nextDelayMs(1000, -1), 1000);
+    }
+
+    @Test
+    public void jitterStaysWithinBounds() {
+        PollingSchedule schedule = PollingSchedule.exponential(1000, 10_000, 2, 0.2);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 2000; i++) {
+            long first = schedule.nextDelayMs(0, -1);
+            assertTrue(first >= 800 && first <= 1200, "first delay " + first);
+            min = Math.min(min, first);
+            max = Math.max(max, first);
+            long capped = schedule.nextDelayMs(20, -1);
+            assertTrue(capped >= 8000 && capped <= 10_000, "capped delay " + capped);
+        }
+        assertTrue(max - min > 200, "jitter spread " + min + ".." + max);
+    }
+
+    @Test
+    public void retryAfterOverridesShorterDelay() {
+        PollingSchedule schedule = PollingSchedule.exponential(100, 1000, 2, 0);
+        assertEquals(schedule.nextDelayMs(0, 5000), 5000);
+        assertEquals(schedule.nextDelayMs(3, 50), 800);
+    }
+
+    @Test
+    public void invalidParametersAreRejected() {
+        assertInvalid(() -> PollingSchedule.exponential(-1, 100, 2, 0));
+        assertInvalid(() -> PollingSchedule.exponential(200, 100, 2, 0));
+        assertInvalid(() -> PollingSchedule.exponential(100, 1000, 0.5, 0));
+        assertInvalid(() -> PollingSchedule.exponential(100, 1000, 2, 1.5));
+    }
+
+    @Test
+    public void retryAfterSecondsAreParsed() {
+        assertEquals(PollingSchedule.parseRetryAfterMs("120", 0), 120_000);
+        assertEquals(PollingSchedule.parseRetryAfterMs(" 0 ", 0), 0);
+        assertEquals(PollingSchedule.parseRetryAfterMs("-5", 0), 0);
+        assertEquals(PollingSchedule.parseRetryAfterMs(null, 0), -1);
+        assertEquals(PollingSchedule.parseRetryAfterMs(" ", 0), -1);
+        assertEquals(PollingSchedule.parseRetryAfterMs("soon", 0), -1);
+    }
+
+    @Test
+    public void retryAfterHttpDateIsParsed() {
+        long now = Instant.parse("2024-03-01T10:00:00Z").toEpochMilli();
+        assertEquals(PollingSchedule.parseRetryAfterMs("Fri, 01 Mar 2024 10:00:30 GMT", now), 30_000);
+        assertEquals(PollingSchedule.parseRetryAfterMs("Fri, 01 Mar 2024 09:59:00 GMT", now), 0);
+        String formatted = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(now).plusSeconds(90), ZoneOffset.UTC));
+        assertEquals(PollingSchedule.parseRetryAfterMs(formatted, now), 90_000);
+    }
+
+    private static void assertInvalid(Runnable action) {
+        try {
+            action.run();
+            fail("ожидалось IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // параметры отклонены
+        }
+    }
+}
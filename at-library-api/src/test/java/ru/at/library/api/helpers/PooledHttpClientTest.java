@@ -0,0 +1,89 @@
+package ru.at.library.api.helpers;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import io.restassured.RestAssured;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class PooledHttpClientTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private HttpsServer server;
+    private String url;
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getResourceAsStream("/ssl/self-signed.p12")) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagers.getKeyManagers(), null, null);
+
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "https://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void strictRequestAfterRelaxedStillVerifiesCertificate() {
+        assertEquals(PooledHttpClient.apply(RestAssured.given().relaxedHTTPSValidation()).get(url).statusCode(), 200);
+        try {
+            PooledHttpClient.apply(RestAssured.given()).get(url);
+            fail("Самоподписанный сертификат принят без relaxedHTTPSValidation");
+        } catch (Exception e) {
+            assertTrue(hasCause(e, SSLException.class), String.valueOf(e));
+        }
+        assertEquals(PooledHttpClient.apply(RestAssured.given().relaxedHTTPSValidation()).get(url).asString(), "ok");
+    }
+
+    @Test
+    public void onlyRunWideSslConfigIsPooled() {
+        assertTrue(PooledHttpClient.isShared(RestAssured.config().getSSLConfig()));
+        assertFalse(PooledHttpClient.isShared(RestAssured.config().getSSLConfig().relaxedHTTPSValidation()));
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (type.isInstance(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.at.library.api.helpers;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    private static final long OPEN_NANOS = 1_000_000_000L;
+
+    @Test
+    public void budgetLimitsRetriesToShareOfRequests() {
+        RetryPolicy.Budget budget = new RetryPolicy.Budget(20, 2);
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire(), "начальный запас исчерпан");
+
+        int allowed = 0;
+        for (int request = 0; request < 100; request++) {
+            budget.deposit();
+            if (budget.tryAcquire()) {
+                allowed++;
+            }
+        }
+        assertEquals(allowed, 20);
+    }
+
+    @Test
+    public void budgetIsCappedByBurstAndRefunded() {
+        RetryPolicy.Budget budget = new RetryPolicy.Budget(50, 1);
+        for (int request = 0; request < 10; request++) {
+            budget.deposit();
+        }
+        assertEquals(budget.available(), 1.0);
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        budget.refund();
+        assertTrue(budget.tryAcquire());
+    }
+
+    @Test
+    public void circuitOpensHalfOpensAndCloses() {
+        RetryPolicy.Circuit circuit = new RetryPolicy.Circuit(3, OPEN_NANOS);
+        long now = 0;
+        assertFalse(circuit.record(true, now));
+        assertFalse(circuit.record(true, now));
+        assertTrue(circuit.allowRetry(now), "до порога ошибок предохранитель замкнут");
+        assertTrue(circuit.record(true, now), "третья ошибка подряд размыкает предохранитель");
+        assertTrue(circuit.isOpen(now));
+        assertFalse(circuit.allowRetry(now + OPEN_NANOS - 1));
+
+        now += OPEN_NANOS;
+        assertFalse(circuit.isOpen(now));
+        assertTrue(circuit.allowRetry(now), "по истечении времени разрешена пробная попытка");
+        assertFalse(circuit.allowRetry(now), "пробная попытка только одна");
+
+        assertFalse(circuit.record(false, now));
+        assertFalse(circuit.isOpen(now));
+        assertTrue(circuit.allowRetry(now));
+        assertTrue(circuit.allowRetry(now));
+    }
+
+    @Test
+    public void failedTrialReopensCircuit() {
+        RetryPolicy.Circuit circuit = new RetryPolicy.Circuit(1, OPEN_NANOS);
+        assertTrue(circuit.record(true, 0));
+        assertTrue(circuit.allowRetry(OPEN_NANOS));
+        assertFalse(circuit.record(true, OPEN_NANOS), "предохранитель уже был разомкнут");
+        assertTrue(circuit.isOpen(OPEN_NANOS));
+        assertFalse(circuit.allowRetry(2 * OPEN_NANOS - 1));
+        assertTrue(circuit.allowRetry(2 * OPEN_NANOS));
+    }
+
+    @Test
+    public void releasedTrialCanBeGrantedAgain() {
+        RetryPolicy.Circuit circuit = new RetryPolicy.Circuit(1, OPEN_NANOS);
+        circuit.record(true, 0);
+        assertTrue(circuit.allowRetry(OPEN_NANOS));
+        assertFalse(circuit.allowRetry(OPEN_NANOS));
+        circuit.releaseTrial();
+        assertTrue(circuit.allowRetry(OPEN_NANOS), "попытка без учёта результата не блокирует хост");
+    }
+
+    @Test
+    public void backoffGrowsWithinJitterAndHonorsRetryAfter() {
+        for (int i = 0; i < 500; i++) {
+            long first = RetryPolicy.backoffMs(0, -1);
+            assertTrue(first >= 100 && first <= 300, "first delay " + first);
+            long third = RetryPolicy.backoffMs(2, -1);
+            assertTrue(third >= 400 && third <= 1200, "third delay " + third);
+            long capped = RetryPolicy.backoffMs(30, -1);
+            assertTrue(capped >= 2500 && capped <= 5000, "capped delay " + capped);
+        }
+        assertTrue(RetryPolicy.backoffMs(0, 10_000) >= 10_000);
+        assertEquals(RetryPolicy.backoffMs(0, 31_000), -1);
+    }
+
+    @Test
+    public void hostIsTakenFromAbsoluteAddress() {
+        assertEquals(RetryPolicy.host("HTTPS://Api.Example.com:8443/v1/items?id=1"), "api.example.com:8443");
+    }
+}
@@ -0,0 +1,52 @@
+package ru.at.library.api.steps.request;
+
+import io.cucumber.datatable.DataTable;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ConditionalPollingTest {
+
+    @Test
+    public void validatorsOfSuccessfulResponseBecomeConditionalHeaders() {
+        Map<String, String> headers = SendRequestSteps.conditionalHeaders(response(200,
+                "ETag", "\"v1\"", "Last-Modified", "Fri, 01 Mar 2024 10:00:00 GMT"));
+        assertEquals(headers.get("If-None-Match"), "\"v1\"");
+        assertEquals(headers.get("if-modified-since"), "Fri, 01 Mar 2024 10:00:00 GMT");
+    }
+
+    @Test
+    public void responsesWithoutValidatorsOrNotSuccessfulAreNotConditional() {
+        assertTrue(SendRequestSteps.conditionalHeaders(response(200)).isEmpty());
+        assertTrue(SendRequestSteps.conditionalHeaders(response(304, "ETag", "\"v1\"")).isEmpty());
+        assertTrue(SendRequestSteps.conditionalHeaders(response(503, "ETag", "\"v1\"")).isEmpty());
+    }
+
+    @Test
+    public void explicitConditionalHeaderDisablesAutomaticOnes() {
+        assertTrue(SendRequestSteps.hasConditionalHeader(DataTable.create(List.of(
+                List.of("HEADER", "if-none-match", "\"v0\"")))));
+        assertFalse(SendRequestSteps.hasConditionalHeader(DataTable.create(List.of(
+                List.of("HEADER", "Accept", "application/json"),
+                List.of("PARAMETER", "If-None-Match", "x")))));
+        assertFalse(SendRequestSteps.hasConditionalHeader(null));
+    }
+
+    private static Response response(int status, String... headers) {
+        List<Header> list = new ArrayList<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            list.add(new Header(headers[i], headers[i + 1]));
+        }
+        return new ResponseBuilder().setStatusCode(status).setHeaders(new Headers(list)).setBody("").build();
+    }
+}
@@ -0,0 +1,19 @@
+# language: ru
+@unit
+@api
+#noinspection NonAsciiCharacters
+Функционал: Проверка шагов нагрузки с фиксированной частотой (LoadSteps)
+  Для примеров используется публичное API Petstore (https://petstore.swagger.io), частота минимальная.
+
+  # load
+  Сценарий: Нагрузка GET без параметров и проверка перцентилей
+    И с частотой 2 запросов/с в течение 3с отправлен HTTP GET на "https://petstore.swagger.io/v2/store/inventory" код ответа 200 результат нагрузки сохранен в "inventory_load"
+    И в результате нагрузки "inventory_load" p95 меньше 10000 мс
+    И в результате нагрузки "inventory_load" доля ошибок не более 50%
+
+  # loadWithParams
+  Сценарий: Нагрузка GET с параметрами
+    И с частотой 2 запросов/с в течение 2с отправлен HTTP GET на "https://petstore.swagger.io/v2/pet/findByStatus" результат нагрузки сохранен в "find_load":
+      | PARAMETER | status | available        |
+      | HEADER    | Accept | application/json |
+    И в результате нагрузки "find_load" max меньше 30000 мс
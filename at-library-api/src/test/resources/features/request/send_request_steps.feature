@@ -39,6 +39,17 @@
       | RESPONSE |              |                  |
       | HEADER   | Content-Type | application/json |
 
+  # pollRequestWithBackoff
+  Сценарий: Ожидание ответа с нарастающим интервалом
+    И в течение 10с с нарастающим интервалом отправлен HTTP GET на "https://petstore.swagger.io/v2/store/inventory" код ответа 200 ответ сохранен в "inventory_backoff_response"
+
+  # pollRequestWithBackoffAndParams
+  Сценарий: Ожидание ответа с нарастающим интервалом и проверкой заголовков
+    И в течение 10с с нарастающим интервалом отправлен HTTP GET на "https://petstore.swagger.io/v2/pet/findByStatus" код ответа 200 ответ сохранен в "pets_backoff_response":
+      | PARAMETER | status       | available        |
+      | RESPONSE  |              |                  |
+      | HEADER    | Content-Type | application/json |
+
   # Примеры типов параметров запроса
   Сценарий: POST c BODY из JSON-файла
     И отправлен HTTP POST на "https://petstore.swagger.io/v2/pet" код ответа 200 ответ сохранен в "create_pet_prepare_response":
@@ -80,3 +91,26 @@
 
   Сценарий: OPTIONS запрос к ресурсу Petstore
     И отправлен HTTP OPTIONS на "https://petstore.swagger.io/v2/pet" ответ сохранен в "pet_options_response"
+
+  # fanOutRequests
+  Сценарий: Параллельная отправка разных запросов из таблицы
+    И параллельно отправлены HTTP-запросы не более 5 одновременно ответы сохранены в "fan_out_responses":
+      | REQUEST   | GET    | https://petstore.swagger.io/v2/store/inventory |
+      | HEADER    | Accept | application/json                               |
+      | REQUEST   | GET    | https://petstore.swagger.io/v2/pet/findByStatus |
+      | PARAMETER | status | available                                      |
+    И все ответы в "fan_out_responses" имеют statusCode: 200
+    И в ответе "fan_out_responses_2" statusCode: 200
+
+  # fanOutSameRequest
+  Сценарий: Параллельная отправка одинаковых запросов
+    И параллельно 10 раз отправлен HTTP GET на "https://petstore.swagger.io/v2/store/inventory" не более 5 одновременно ответы сохранены в "inventory_fan_out"
+    И в ответах "inventory_fan_out" statusCode 200 получен 10 раз
+
+  # fanOutSameRequestWithParams
+  Сценарий: Параллельное создание сущностей
+    И параллельно 5 раз отправлен HTTP POST на "https://petstore.swagger.io/v2/pet" ответы сохранены в "created_pets":
+      | HEADER | Accept       | application/json |
+      | HEADER | Content-Type | application/json |
+      | BODY   | BODY         | json.post.pet    |
+    И все ответы в "created_pets" имеют statusCode: 200
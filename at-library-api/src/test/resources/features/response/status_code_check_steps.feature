@@ -10,3 +10,8 @@
 
   Сценарий: Проверка HTTP статус-кода ответа
     И в ответе "status_response" statusCode: 200
+
+  Сценарий: Проверка HTTP статус-кодов списка ответов
+    И параллельно 3 раз отправлен HTTP GET на "https://petstore.swagger.io/v2/store/inventory" ответы сохранены в "status_responses"
+    И все ответы в "status_responses" имеют statusCode: 200
+    И в ответах "status_responses" statusCode 200 получен 3 раз
@@ -0,0 +1,86 @@
+package ru.at.library.bench;
+
+import ru.at.library.core.cucumber.api.CoreEnvironment;
+import ru.at.library.core.cucumber.api.CoreScenario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Общие тестовые данные бенчмарков: properties-файл с тысячами ключей,
+ * хранилище переменных сценария и большое JSON-тело с параметрами для подстановки.
+ * <p>
+ * properties-файл генерируется во временный каталог и подключается через -Dproperties,
+ * поэтому {@link #installProperties()} должен вызываться до первого обращения к PropertyLoader
+ * (каждый бенчмарк выполняется в отдельной JVM, см. {@code @Fork}).
+ */
+final class BenchmarkData {
+
+    static final int PROPERTY_COUNT = 5000;
+    static final int VARIABLE_COUNT = 1000;
+
+    private static volatile boolean propertiesInstalled;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Генерирует properties-файл с {@link #PROPERTY_COUNT} ключами вида {@code service.N.url}
+     * и подключает его в качестве application.properties
+     */
+    static synchronized void installProperties() {
+        if (propertiesInstalled) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(PROPERTY_COUNT * 48);
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            sb.append("service.").append(i).append(".url=https://service-").append(i).append(".example.com/api/v1\n");
+        }
+        try {
+            Path dir = Files.createTempDirectory("at-library-bench");
+            Path file = dir.resolve("application.properties");
+            Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+            file.toFile().deleteOnExit();
+            dir.toFile().deleteOnExit();
+            System.setProperty("properties", file.toAbsolutePath().toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        propertiesInstalled = true;
+    }
+
+    /**
+     * Создаёт окружение сценария для текущего потока и заполняет хранилище {@link #VARIABLE_COUNT} переменными
+     */
+    static void installScenarioVariables() {
+        CoreScenario.getInstance().setEnvironment(new CoreEnvironment(null));
+        for (int i = 0; i < VARIABLE_COUNT; i++) {
+            CoreScenario.getInstance().setVar("var_" + i, "value_" + i);
+        }
+    }
+
+    /**
+     * JSON-тело из {@code items} объектов. В каждом объекте параметр из properties, переменная сценария
+     * и неизвестный параметр (остаётся без изменений), т.е. 3 * items параметров для подстановки.
+     */
+    static String jsonBody(int items) {
+        StringBuilder sb = new StringBuilder(items * 160);
+        sb.append("{\n  \"items\": [\n");
+        for (int i = 0; i < items; i++) {
+            sb.append("    {\n")
+                    .append("      \"id\": ").append(i).append(",\n")
+                    .append("      \"endpoint\": \"{service.").append(i * 7 % PROPERTY_COUNT).append(".url}\",\n")
+                    .append("      \"owner\": \"{var_").append(i % VARIABLE_COUNT).append("}\",\n")
+                    .append("      \"comment\": \"{unknown_").append(i).append("}\"\n")
+                    .append("    }");
+            if (i < items - 1) {
+                sb.append(',');
+            }
+            sb.append('\n');
+        }
+        return sb.append("  ]\n}").toString();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.at.library.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.at.library.core.utils.helpers.ScopedVariables;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение "холодного" (с компиляцией скрипта) и "тёплого" (из кэша) выполнения
+ * {@link ScopedVariables#evaluate(String)} - шаг "верно, что".
+ * Хранилище заполнено сотней переменных, из которых выражение использует только две.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class EvaluateBenchmark {
+
+    private static final String EXPRESSION = "assert(x + y == 10 && status.equals('available'))";
+
+    private ScopedVariables variables;
+
+    @Setup
+    public void setUp() {
+        variables = new ScopedVariables();
+        variables.put("x", "5");
+        variables.put("y", "5");
+        variables.put("status", "available");
+        for (int i = 0; i < 100; i++) {
+            variables.put("var_" + i, i % 2 == 0 ? String.valueOf(i) : "value_" + i);
+        }
+    }
+
+    @Benchmark
+    public Object cold() {
+        ScopedVariables.clearScriptCache();
+        return variables.evaluate(EXPRESSION);
+    }
+
+    @Benchmark
+    public Object warm() {
+        return variables.evaluate(EXPRESSION);
+    }
+}
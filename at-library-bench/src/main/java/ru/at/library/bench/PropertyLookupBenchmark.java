@@ -0,0 +1,68 @@
+package ru.at.library.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.at.library.core.steps.OtherSteps;
+import ru.at.library.core.utils.helpers.PropertyLoader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск одиночного значения по имени: {@link PropertyLoader#tryLoadProperty(String)}
+ * и {@link OtherSteps#getPropertyOrStringVariableOrValue(String)} (properties -> переменная -> само значение).
+ * properties-файл содержит 5000 ключей, хранилище - 1000 переменных.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class PropertyLookupBenchmark {
+
+    private static final String PROPERTY = "service.4321.url";
+    private static final String VARIABLE = "var_777";
+    private static final String LITERAL = "просто значение шага";
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.installProperties();
+        BenchmarkData.installScenarioVariables();
+        if (PropertyLoader.tryLoadProperty(PROPERTY) == null) {
+            throw new IllegalStateException("Сгенерированный properties-файл не подключен: " + PropertyLoader.PROPERTIES_FILE);
+        }
+    }
+
+    @Benchmark
+    public String tryLoadPropertyHit() {
+        return PropertyLoader.tryLoadProperty(PROPERTY);
+    }
+
+    @Benchmark
+    public String tryLoadPropertyMiss() {
+        return PropertyLoader.tryLoadProperty(LITERAL);
+    }
+
+    @Benchmark
+    public String getPropertyOrStringVariableOrValueProperty() {
+        return OtherSteps.getPropertyOrStringVariableOrValue(PROPERTY);
+    }
+
+    @Benchmark
+    public String getPropertyOrStringVariableOrValueVariable() {
+        return OtherSteps.getPropertyOrStringVariableOrValue(VARIABLE);
+    }
+
+    @Benchmark
+    public String getPropertyOrStringVariableOrValueLiteral() {
+        return OtherSteps.getPropertyOrStringVariableOrValue(LITERAL);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.at.library.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.at.library.core.steps.OtherSteps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OtherSteps#getPropertyOrStringVariableOrValue(String)} под конкуренцией 16 потоков
+ * (каждый поток - отдельный сценарий со своим хранилищем переменных).
+ * {@code globalLock} воспроизводит прежнюю реализацию, сериализованную на одном мониторе, и служит базой для сравнения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class ResolutionContentionBenchmark {
+
+    private static final Object GLOBAL_LOCK = new Object();
+
+    private static final List<String> ARGUMENTS = Arrays.asList(
+            "service.12.url", "var_5", "просто значение шага", "service.4999.url", "var_999", "другое значение");
+
+    @Setup(Level.Trial)
+    public void setUpProperties() {
+        BenchmarkData.installProperties();
+    }
+
+    @State(Scope.Thread)
+    public static class ScenarioState {
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            BenchmarkData.installScenarioVariables();
+        }
+
+        String nextArgument() {
+            String argument = ARGUMENTS.get(next);
+            next = next + 1 == ARGUMENTS.size() ? 0 : next + 1;
+            return argument;
+        }
+    }
+
+    @Benchmark
+    public String lockFree(ScenarioState state) {
+        return OtherSteps.getPropertyOrStringVariableOrValue(state.nextArgument());
+    }
+
+    @Benchmark
+    public String globalLock(ScenarioState state) {
+        synchronized (GLOBAL_LOCK) {
+            return OtherSteps.getPropertyOrStringVariableOrValue(state.nextArgument());
+        }
+    }
+
+    @Benchmark
+    public List<String> batchList(ScenarioState state) {
+        return OtherSteps.getPropertyOrStringVariableOrValue(ARGUMENTS);
+    }
+}
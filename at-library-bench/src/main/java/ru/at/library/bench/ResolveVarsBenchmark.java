@@ -0,0 +1,56 @@
+package ru.at.library.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.at.library.core.utils.helpers.PropertyLoader;
+import ru.at.library.core.utils.helpers.ScopedVariables;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подстановка параметров в большое JSON-тело запроса:
+ * {@link ScopedVariables#resolveVars(String)} и {@link PropertyLoader#cycleSubstitutionFromFileOrPropertyOrVariable(String)}.
+ * Параметры берутся из properties-файла на 5000 ключей и хранилища на 1000 переменных.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class ResolveVarsBenchmark {
+
+    /**
+     * Количество объектов в теле (в каждом по 3 параметра)
+     */
+    @Param({"10", "200"})
+    public int items;
+
+    private String body;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.installProperties();
+        BenchmarkData.installScenarioVariables();
+        body = BenchmarkData.jsonBody(items);
+    }
+
+    @Benchmark
+    public String resolveVars() {
+        return ScopedVariables.resolveVars(body);
+    }
+
+    @Benchmark
+    public String cycleSubstitution() {
+        return PropertyLoader.cycleSubstitutionFromFileOrPropertyOrVariable(body);
+    }
+}
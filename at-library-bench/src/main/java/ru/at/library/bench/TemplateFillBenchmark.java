@@ -0,0 +1,72 @@
+package ru.at.library.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.at.library.core.utils.helpers.KeyTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заполнение XML-шаблона по таблице ключей (шаг "шаблон ... заполнен данными из таблицы"):
+ * прежняя построчная замена через {@code String.replaceAll} и {@link KeyTemplate} (все ключи за один проход, из кэша).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class TemplateFillBenchmark {
+
+    /**
+     * Примерный размер шаблона в КБ
+     */
+    @Param({"64", "2048"})
+    public int templateKb;
+
+    @Param({"150"})
+    public int keyCount;
+
+    private String template;
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < keyCount; i++) {
+            keys.add("@field_" + i + "@");
+            values.add("значение " + i);
+        }
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<document>\n");
+        for (int i = 0; sb.length() < templateKb * 1024; i++) {
+            sb.append("  <record id=\"").append(i).append("\"><name>").append(keys.get(i % keyCount))
+                    .append("</name><comment>Неизменяемый текст записи ").append(i).append("</comment></record>\n");
+        }
+        template = sb.append("</document>\n").toString();
+    }
+
+    @Benchmark
+    public String replaceAllPerKey() {
+        String result = template;
+        for (int i = 0; i < keyCount; i++) {
+            result = result.replaceAll(keys.get(i), values.get(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String keyTemplate() {
+        return KeyTemplate.compile(template, keys).render(values);
+    }
+}
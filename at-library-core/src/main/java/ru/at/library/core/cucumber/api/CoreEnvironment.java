@@ -13,8 +13,13 @@ package ru.at.library.core.cucumber.api;
 
 import io.cucumber.java.Scenario;
 import lombok.Getter;
+import ru.at.library.core.utils.generator.UniqueValuePool;
 import ru.at.library.core.utils.helpers.ScopedVariables;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 /**
  * Класс, связанный с CoreScenario, используется для хранения Cucumber-сценария и переменных внутри сценария.
  * Веб-страницы и WebDriver-специфичная логика вынесены в модуль at-library-web.
@@ -28,31 +33,66 @@ public class CoreEnvironment {
     private final Scenario scenario;
 
     /**
-     * Переменные, объявленные пользователем внутри сценария
-     * ThreadLocal обеспечивает отсутствие коллизий при многопоточном запуске
+     * Переменные, объявленные пользователем внутри сценария.
+     * Хранилище принадлежит сценарию, а не потоку, поэтому доступно и во вспомогательных потоках,
+     * получивших контекст сценария (см. {@link ScenarioContext}).
      */
-    @Getter
-    private final ThreadLocal<ScopedVariables> variables = new ThreadLocal<>();
+    private final ScopedVariables scopedVariables = new ScopedVariables();
+
+    /**
+     * Совместимость с прежним API, где хранилище находилось в ThreadLocal: в любом потоке возвращает хранилище сценария.
+     * Значение не сохраняется в потоках, поэтому потоки пула не удерживают хранилище после завершения сценария.
+     */
+    private final ThreadLocal<ScopedVariables> variables = new ThreadLocal<>() {
+        @Override
+        public ScopedVariables get() {
+            return scopedVariables;
+        }
+
+        @Override
+        public void set(ScopedVariables value) {
+            throw new UnsupportedOperationException("Хранилище переменных принадлежит сценарию и не заменяется");
+        }
+    };
+
+    /**
+     * Пулы уникальных значений, действующие только в рамках сценария (в том числе каждого его перезапуска)
+     */
+    private final Map<String, UniqueValuePool> uniqueValuePools = new ConcurrentHashMap<>();
 
     public CoreEnvironment(Scenario scenario) {
         this.scenario = scenario;
-        variables.set(new ScopedVariables());
     }
 
     public Scenario getScenario() {
         return scenario;
     }
 
+    public ScopedVariables getScopedVariables() {
+        return scopedVariables;
+    }
+
+    /**
+     * @deprecated используйте {@link #getScopedVariables()}
+     */
+    @Deprecated
     public ThreadLocal<ScopedVariables> getVariables() {
         return variables;
     }
 
     public Object getVar(String name) {
-        return getVariables().get().get(name);
+        return scopedVariables.get(name);
     }
 
     public void setVar(String name, Object object) {
-        getVariables().get().put(name, object);
+        scopedVariables.put(name, object);
+    }
+
+    /**
+     * Пул уникальных значений сценария с указанным именем; при первом обращении создаётся фабрикой
+     */
+    public UniqueValuePool getUniqueValuePool(String name, Supplier<UniqueValuePool> factory) {
+        return uniqueValuePools.computeIfAbsent(name, n -> factory.get());
     }
 
 }
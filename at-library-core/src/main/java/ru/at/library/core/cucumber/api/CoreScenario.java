@@ -26,13 +26,10 @@ public final class CoreScenario {
     private static CoreScenario instance = new CoreScenario();
 
     /**
-     * Среда прогона тестов, хранит в себе: Cucumber.Scenario,
-     * переменные, объявленные пользователем в сценарии и страницы, тестирование которых будет производиться
+     * Среда прогона тестов (Cucumber.Scenario, переменные, объявленные пользователем в сценарии)
+     * и AssertionHelper хранятся в {@link ScenarioContext}, привязанном к потоку сценария.
+     * Для работы в других потоках контекст передаётся явно, см. {@link ScenarioContext#wrap(Runnable)}.
      */
-    private static final ThreadLocal<CoreEnvironment> environment = new ThreadLocal<>();
-
-    private static final ThreadLocal<AssertionHelper> assertionHelper = new ThreadLocal<>();
-
     private CoreScenario() {
     }
 
@@ -40,20 +37,52 @@ public final class CoreScenario {
         return instance;
     }
 
-
+    /**
+     * Контекст текущего сценария или {@code null}, если поток не связан со сценарием
+     */
+    public ScenarioContext getContext() {
+        return ScenarioContext.current();
+    }
 
     public CoreEnvironment getEnvironment() {
-        return environment.get();
+        ScenarioContext context = ScenarioContext.current();
+        return context != null ? context.getEnvironment() : null;
     }
 
-    public AssertionHelper getAssertionHelper() {return assertionHelper.get(); }
+    public AssertionHelper getAssertionHelper() {
+        ScenarioContext context = ScenarioContext.current();
+        return context != null ? context.getAssertionHelper() : null;
+    }
 
+    /**
+     * Создаёт контекст нового сценария и привязывает его к текущему потоку
+     */
     @Step("Создание Page и переменных для сценария")
     public void setEnvironment(CoreEnvironment coreEnvironment) {
-        environment.set(coreEnvironment);
+        ScenarioContext previous = ScenarioContext.current();
+        ScenarioContext.bind(new ScenarioContext(coreEnvironment, previous != null ? previous.getAssertionHelper() : null));
+    }
+
+    public void setAssertionHelper(AssertionHelper assertionHlp) {
+        ScenarioContext context = ScenarioContext.current();
+        if (context == null) {
+            ScenarioContext.bind(new ScenarioContext(null, assertionHlp));
+        } else {
+            context.setAssertionHelper(assertionHlp);
+        }
     }
 
-    public void setAssertionHelper(AssertionHelper assertionHlp) { assertionHelper.set(assertionHlp);}
+    /**
+     * Завершение сценария: очистка хранилища переменных и снятие контекста с потока,
+     * чтобы ответы, страницы и прочие значения не удерживались пулом потоков до следующего сценария
+     */
+    public void clearContext() {
+        ScenarioContext context = ScenarioContext.current();
+        if (context != null && context.getEnvironment() != null) {
+            context.getEnvironment().getScopedVariables().clear();
+        }
+        ScenarioContext.unbind();
+    }
 
     /**
      * Возвращает текущий сценарий (Cucumber.api)
@@ -121,6 +150,6 @@ public final class CoreScenario {
      * Получение всех переменных из пула "variables" в классе CoreEnvironment
      */
     public ScopedVariables getVars() {
-        return this.getEnvironment().getVariables().get();
+        return this.getEnvironment().getScopedVariables();
     }
 }
@@ -0,0 +1,182 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.cucumber.api;
+
+import org.apache.logging.log4j.ThreadContext;
+import ru.at.library.core.utils.helpers.AssertionHelper;
+import ru.at.library.core.utils.log.ScenarioLogAppender;
+import ru.at.library.core.utils.log.ScenarioLogBuffer;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Контекст сценария: окружение ({@link CoreEnvironment} с переменными сценария) и {@link AssertionHelper}.
+ * <p>
+ * Контекст создаётся в {@link CoreScenario#setEnvironment(CoreEnvironment)} и привязывается к потоку сценария.
+ * Чтобы вспомогательные потоки (в том числе виртуальные) работали с тем же сценарием, контекст передаётся явно:
+ * <pre>{@code
+ * ScenarioContext context = CoreScenario.getInstance().getContext();
+ * try (ExecutorService executor = Executors.newThreadPerTaskExecutor(context.virtualThreadFactory())) {
+ *     executor.submit(() -> CoreScenario.getInstance().setVar("response", send()));
+ * }
+ * }</pre>
+ * Привязка действует только на время {@link #run(Runnable)} / {@link #call(Callable)} и затем снимается,
+ * как у {@code ScopedValue.where(...).run(...)}. Сам {@code ScopedValue} в Java 21 доступен только как preview API,
+ * поэтому привязка хранится в ThreadLocal; для кода, не использующего контекст явно, поведение не меняется.
+ */
+public final class ScenarioContext {
+
+    private static final ThreadLocal<ScenarioContext> CURRENT = new ThreadLocal<>();
+
+    private final CoreEnvironment environment;
+    private volatile AssertionHelper assertionHelper;
+
+    public ScenarioContext(CoreEnvironment environment, AssertionHelper assertionHelper) {
+        this.environment = environment;
+        this.assertionHelper = assertionHelper;
+    }
+
+    /**
+     * Контекст, привязанный к текущему потоку, или {@code null}
+     */
+    public static ScenarioContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Контекст, привязанный к текущему потоку
+     *
+     * @throws IllegalStateException если поток не связан со сценарием
+     */
+    public static ScenarioContext require() {
+        ScenarioContext context = CURRENT.get();
+        if (context == null) {
+            throw new IllegalStateException("Поток " + Thread.currentThread().getName() + " не связан с контекстом сценария");
+        }
+        return context;
+    }
+
+    /**
+     * Оборачивает задачу контекстом текущего потока (если он есть) для выполнения в другом потоке
+     */
+    public static Runnable propagate(Runnable task) {
+        ScenarioContext context = CURRENT.get();
+        return context != null ? context.wrap(task) : task;
+    }
+
+    /**
+     * Оборачивает задачу контекстом текущего потока (если он есть) для выполнения в другом потоке
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        ScenarioContext context = CURRENT.get();
+        return context != null ? context.wrap(task) : task;
+    }
+
+    public CoreEnvironment getEnvironment() {
+        return environment;
+    }
+
+    public AssertionHelper getAssertionHelper() {
+        return assertionHelper;
+    }
+
+    void setAssertionHelper(AssertionHelper assertionHelper) {
+        this.assertionHelper = assertionHelper;
+    }
+
+    /**
+     * Выполняет задачу в текущем потоке с привязкой к этому контексту, после чего восстанавливает прежнюю привязку
+     */
+    public void run(Runnable task) {
+        ScenarioContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Выполняет задачу в текущем потоке с привязкой к этому контексту, после чего восстанавливает прежнюю привязку
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        ScenarioContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> run(task);
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> call(task);
+    }
+
+    /**
+     * Фабрика виртуальных потоков, выполняющих задачи в этом контексте.
+     * Используется с {@link java.util.concurrent.Executors#newThreadPerTaskExecutor(ThreadFactory)}.
+     * <p>
+     * Потоки также получают лог сценария потока, создавшего фабрику: {@link ThreadContext} (в том числе
+     * {@code scenarioId}, по которому лог направляется в файл сценария) и буфер {@link ScenarioLogAppender};
+     * по завершении задачи привязка снимается.
+     */
+    public ThreadFactory virtualThreadFactory() {
+        Map<String, String> logContext = ThreadContext.getImmutableContext();
+        ScenarioLogBuffer logBuffer = ScenarioLogAppender.currentScenarioLog();
+        ThreadFactory delegate = Thread.ofVirtual().name("scenario-vt-", 0).factory();
+        return task -> delegate.newThread(wrap(withScenarioLog(logContext, logBuffer, task)));
+    }
+
+    private static Runnable withScenarioLog(Map<String, String> logContext, ScenarioLogBuffer logBuffer, Runnable task) {
+        if (logContext.isEmpty() && logBuffer == null) {
+            return task;
+        }
+        return () -> {
+            ThreadContext.putAll(logContext);
+            try {
+                ScenarioLogAppender.runWithScenarioLog(logBuffer, task);
+            } finally {
+                ThreadContext.clearMap();
+            }
+        };
+    }
+
+    /**
+     * Привязка контекста к потоку сценария на всё время выполнения сценария
+     */
+    static void bind(ScenarioContext context) {
+        restore(context);
+    }
+
+    /**
+     * Снятие привязки контекста с текущего потока по завершении сценария
+     */
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    private static void restore(ScenarioContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+}
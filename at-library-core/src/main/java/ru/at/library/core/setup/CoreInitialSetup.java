@@ -12,23 +12,37 @@
 package ru.at.library.core.setup;
 
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
-import io.qameta.allure.Allure;
+import io.cucumber.java.Status;
 import io.qameta.allure.Step;
 import lombok.experimental.Delegate;
 import lombok.extern.log4j.Log4j2;
 import ru.at.library.core.cucumber.api.CoreEnvironment;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.allure.AllureAttachments;
+import ru.at.library.core.utils.generator.RandomData;
 import ru.at.library.core.utils.helpers.AssertionHelper;
+import ru.at.library.core.utils.helpers.PropertyLoader;
+import ru.at.library.core.utils.log.DocumentFormatter;
 import ru.at.library.core.utils.log.ScenarioLogAppender;
-
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import ru.at.library.core.utils.log.ScenarioLogBuffer;
+import ru.at.library.core.utils.log.ScenarioLogRouting;
+import ru.at.library.core.utils.log.ScenarioLogWriter;
+import ru.at.library.core.utils.profiler.StepProfiler;
+import ru.at.library.core.utils.scheduling.ScenarioDurationHistory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -59,7 +73,8 @@ public class CoreInitialSetup {
     public static volatile int totalScenarios = 0;
 
 /**
-     * Информация о запущенных сценариях: время старта, человеко-читаемое имя и порядковый номер запуска.
+     * Информация о запущенных сценариях: время старта, человеко-читаемое имя, порядковый номер запуска
+     * и поток, в котором выполняется сценарий (для снятия стека watchdog'ом).
      */
     private static final class ScenarioRunInfo {
         final String name;
@@ -68,11 +83,23 @@ public class CoreInitialSetup {
          * Порядковый номер сценария в рамках запуска (1..N), присваивается в {@link #initializingCoreEnvironment}.
          */
         final int sequenceNumber;
+        final Thread thread;
+        /**
+         * Время последнего предупреждения watchdog'а (0 - предупреждений не было)
+         */
+        volatile long lastWarningMs;
+        /**
+         * Поток сценария прерван по жёсткому таймауту. Изменяется вместе с {@link #finished} под блокировкой экземпляра,
+         * чтобы watchdog не прервал поток, уже перешедший к следующему сценарию.
+         */
+        boolean interrupted;
+        boolean finished;
 
-        private ScenarioRunInfo(String name, long startTimeMs, int sequenceNumber) {
+        private ScenarioRunInfo(String name, long startTimeMs, int sequenceNumber, Thread thread) {
             this.name = name;
             this.startTimeMs = startTimeMs;
             this.sequenceNumber = sequenceNumber;
+            this.thread = thread;
         }
     }
 
@@ -95,55 +122,137 @@ public class CoreInitialSetup {
     private static final ConcurrentHashMap<String, Integer> scenarioOriginalNumbers = new ConcurrentHashMap<>();
 
     /**
-     * Флаг, что watchdog-поток уже запущен.
+     * Флаг, что watchdog уже запущен.
      */
     private static final AtomicInteger watchdogStarted = new AtomicInteger(0);
 
     /**
-     * Порог для вывода предупреждения о "подвисшем" сценарии (10 минут).
+     * Порог для вывода предупреждения о "подвисшем" сценарии (по умолчанию 10 минут).
+     */
+    private static final long WATCHDOG_THRESHOLD_MS = TimeUnit.SECONDS.toMillis(Long.getLong("core.watchdog.thresholdSec", 600L));
+
+    /**
+     * Интервал повторного предупреждения о том же сценарии (по умолчанию 5 минут).
+     */
+    private static final long WATCHDOG_REPEAT_MS = TimeUnit.SECONDS.toMillis(Long.getLong("core.watchdog.repeatSec", 300L));
+
+    /**
+     * Жёсткий таймаут сценария, по истечении которого поток сценария прерывается (по умолчанию 0 - не прерывать).
+     */
+    private static final long WATCHDOG_HARD_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(Long.getLong("core.watchdog.hardTimeoutSec", 0L));
+
+    /**
+     * Интервал проверки сценариев watchdog'ом (по умолчанию 15 секунд).
      */
-    private static final long WATCHDOG_THRESHOLD_MS = 10 * 60 * 1000L;
+    private static final long WATCHDOG_INTERVAL_MS = Math.max(1L, TimeUnit.SECONDS.toMillis(Long.getLong("core.watchdog.intervalSec", 15L)));
 
     /**
-     * Интервал проверки сценариев watchdog'ом (1 минута).
+     * Максимальное количество кадров стека в предупреждении watchdog'а
      */
-    private static final long WATCHDOG_INTERVAL_MS = 60 * 1000L;
+    private static final int WATCHDOG_STACK_DEPTH = 64;
 
     private static void ensureWatchdogStarted() {
         if (watchdogStarted.compareAndSet(0, 1)) {
             log.info("\n++++++++++++\nЗапуск мониторинга сценариев (watchdog)\n++++++++++++");
 
-            Thread t = new Thread(() -> {
-                while (!Thread.currentThread().isInterrupted()) {
-                    try {
-                        long now = System.currentTimeMillis();
-                        for (Map.Entry<String, ScenarioRunInfo> entry : runningScenarios.entrySet()) {
-                            String id = entry.getKey();
-                            ScenarioRunInfo info = entry.getValue();
-                            long durationMs = now - info.startTimeMs;
-                            if (durationMs >= WATCHDOG_THRESHOLD_MS) {
-                                long secondsTotal = durationMs / 1000;
-                                long minutes = secondsTotal / 60;
-                                long seconds = secondsTotal % 60;
-                                log.warn(String.format(
-                                        "\n++++++++++++\n[WATCHDOG] Долгий сценарий\nИмя: [%s]\nid: %s\nДлительность: %d мин %d с\n++++++++++++",
-                                        info.name, id, minutes, seconds
-                                ));
-                            }
-                        }
-                        Thread.sleep(WATCHDOG_INTERVAL_MS);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    } catch (Throwable t1) {
-                        log.error("Ошибка в watchdog сценариев", t1);
+            ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "scenario-watchdog");
+                t.setDaemon(true);
+                return t;
+            });
+            watchdog.scheduleWithFixedDelay(() -> {
+                try {
+                    checkRunningScenarios();
+                } catch (Throwable t) {
+                    log.error("Ошибка в watchdog сценариев", t);
+                }
+            }, WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Проверка выполняющихся сценариев: предупреждение со стеком потока сценария и состоянием памяти
+     * при превышении порога, прерывание потока при превышении жёсткого таймаута
+     */
+    private static void checkRunningScenarios() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ScenarioRunInfo> entry : runningScenarios.entrySet()) {
+            String id = entry.getKey();
+            ScenarioRunInfo info = entry.getValue();
+            long durationMs = now - info.startTimeMs;
+
+            if (WATCHDOG_HARD_TIMEOUT_MS > 0 && durationMs >= WATCHDOG_HARD_TIMEOUT_MS) {
+                String stack = formatThreadStack(info.thread);
+                synchronized (info) {
+                    if (info.finished || info.interrupted) {
+                        continue;
                     }
+                    info.interrupted = true;
+                    info.thread.interrupt();
                 }
-            }, "scenario-watchdog");
-            t.setDaemon(true);
-            t.start();
+                log.error(String.format(
+                        "\n++++++++++++\n[WATCHDOG] Превышен жёсткий таймаут сценария (%s), поток [%s] прерван\nИмя: [%s]\nid: %s\n%s++++++++++++",
+                        formatDuration(WATCHDOG_HARD_TIMEOUT_MS), info.thread.getName(), info.name, id, stack
+                ));
+                continue;
+            }
+
+            if (durationMs >= WATCHDOG_THRESHOLD_MS
+                    && (info.lastWarningMs == 0 || now - info.lastWarningMs >= WATCHDOG_REPEAT_MS)) {
+                info.lastWarningMs = now;
+                log.warn(String.format(
+                        "\n++++++++++++\n[WATCHDOG] Долгий сценарий\nИмя: [%s]\nid: %s\nДлительность: %s\nПоток: [%s] %s\n%s%s++++++++++++",
+                        info.name, id, formatDuration(durationMs), info.thread.getName(), info.thread.getState(),
+                        formatThreadStack(info.thread), formatMemorySnapshot()
+                ));
+            }
         }
     }
 
+    private static String formatDuration(long durationMs) {
+        long secondsTotal = durationMs / 1000;
+        return String.format("%d мин %d с", secondsTotal / 60, secondsTotal % 60);
+    }
+
+    /**
+     * Стек потока сценария
+     */
+    private static String formatThreadStack(Thread thread) {
+        StackTraceElement[] stack = thread.getStackTrace();
+        StringBuilder sb = new StringBuilder("Стек потока сценария:\n");
+        for (int i = 0; i < Math.min(stack.length, WATCHDOG_STACK_DEPTH); i++) {
+            sb.append("\tat ").append(stack[i]).append('\n');
+        }
+        if (stack.length > WATCHDOG_STACK_DEPTH) {
+            sb.append("\t... ещё ").append(stack.length - WATCHDOG_STACK_DEPTH).append(" кадров\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Состояние кучи и сборщиков мусора на момент проверки
+     */
+    private static String formatMemorySnapshot() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long mb = 1024 * 1024;
+        StringBuilder sb = new StringBuilder(String.format("Куча: использовано %d МБ, выделено %d МБ, максимум %s%n",
+                heap.getUsed() / mb, heap.getCommitted() / mb, heap.getMax() >= 0 ? heap.getMax() / mb + " МБ" : "н/д"));
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sb.append(String.format("GC %s: сборок %d, время %d мс%n", gc.getName(), gc.getCollectionCount(), gc.getCollectionTime()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Бюджет памяти переменных одного сценария (по умолчанию 256 МБ, 0 - не проверять).
+     */
+    private static final long VARIABLES_MEMORY_BUDGET_BYTES = Long.getLong("core.variables.memoryBudgetMb", 256L) * 1024 * 1024;
+
+    /**
+     * Количество самых больших переменных в предупреждении о превышении бюджета.
+     */
+    private static final int VARIABLES_REPORT_TOP = Integer.getInteger("core.variables.reportTop", 5);
+
     @Delegate
     CoreScenario coreScenario = CoreScenario.getInstance();
 
@@ -159,11 +268,15 @@ public class CoreInitialSetup {
     public void initializingCoreEnvironment(Scenario scenario) throws Exception {
         ensureWatchdogStarted();
 
-        // Запускаем накопление логов для текущего сценария
-        ScenarioLogAppender.startScenarioLogging();
-
         int total = totalScenarios;
         String scenarioId = getScenarioId(scenario);
+
+        // Запускаем запись лога текущего сценария: сразу в его файл или накопление в буфере
+        if (ScenarioLogRouting.isActive()) {
+            ScenarioLogRouting.start(scenarioId, getScenarioLogFile(scenario));
+        } else {
+            ScenarioLogAppender.startScenarioLogging();
+        }
         String stableKey = getStableScenarioKey(scenario);
 
         // Считаем, какой это запуск данного сценария (1 = первый, 2 = первый retry и т.д.)
@@ -180,8 +293,8 @@ public class CoreInitialSetup {
             testNumber = scenarioOriginalNumbers.getOrDefault(stableKey, -1);
         }
 
-        // запоминаем время старта, имя и порядковый номер запуска для последующего расчёта длительности и мониторинга
-        runningScenarios.put(scenarioId, new ScenarioRunInfo(scenario.getName(), System.currentTimeMillis(), testNumber));
+        // запоминаем время старта, имя, порядковый номер запуска и поток сценария для последующего расчёта длительности и мониторинга
+        runningScenarios.put(scenarioId, new ScenarioRunInfo(scenario.getName(), System.currentTimeMillis(), testNumber, Thread.currentThread()));
 
         String retryInfo = runNumber > 1
                 ? String.format("\n🔄 ПЕРЕЗАПУСК #%d", runNumber - 1)
@@ -203,7 +316,12 @@ public class CoreInitialSetup {
 
     /**
      * Действия выполняемые после каждого сценария:
-     * - логирование завершения сценария.
+     * - логирование завершения сценария;
+     * - сохранение длительности успешного сценария в историю ({@link ScenarioDurationHistory});
+     * - проверка бюджета памяти переменных сценария;
+     * - передача лога сценария на запись;
+     * - очистка переменных и контекста сценария (хуки @After с order &lt; 1 выполняются уже без переменных);
+     * - освобождение кэшей потока ({@link RandomData}, {@link DocumentFormatter}).
      * Закрытие браузера/драйвера выполняется в модуле web.
      */
     @After(order = 1)
@@ -212,6 +330,16 @@ public class CoreInitialSetup {
         String scenarioId = getScenarioId(scenario);
 
         ScenarioRunInfo info = runningScenarios.remove(scenarioId);
+        if (info != null) {
+            synchronized (info) {
+                info.finished = true;
+                if (info.interrupted) {
+                    // Сбрасываем флаг прерывания, чтобы он не повлиял на следующий сценарий в этом потоке
+                    Thread.interrupted();
+                    log.warn("Сценарий [{}] был прерван watchdog'ом по жёсткому таймауту", scenario.getName());
+                }
+            }
+        }
         int sequenceNumber = info != null ? info.sequenceNumber : -1;
         long durationMs = info != null ? (System.currentTimeMillis() - info.startTimeMs) : -1L;
 
@@ -252,47 +380,113 @@ public class CoreInitialSetup {
             ));
         }
 
-        // Получаем накопленный лог сценария
-        String scenarioLog = ScenarioLogAppender.getAndClearScenarioLog();
+        // Длительность успешных прогонов сохраняется для упорядочивания сценариев в следующих запусках
+        if (ScenarioDurationHistory.ENABLED && durationMs >= 0 && scenario.getStatus() == Status.PASSED) {
+            ScenarioDurationHistory.getInstance().record(stableKey, durationMs);
+        }
 
-        if (scenarioLog != null && !scenarioLog.isEmpty()) {
-            writeScenarioLogToFile(scenario, sequenceNumber, scenarioLog);
-            Allure.addAttachment("Лог сценария: " + scenario.getName(), "text/plain", scenarioLog);
+        checkVariablesMemory(scenario);
+
+        // Получаем накопленный лог сценария (или закрываем его файл) и передаём на фоновую запись в файл и в Allure
+        ScenarioLogBuffer scenarioLog = ScenarioLogAppender.takeScenarioLog();
+        Path routedLogFile = ScenarioLogRouting.finish();
+        if (routedLogFile != null) {
+            ScenarioLogWriter.submitFile(routedLogFile, "Лог сценария: " + scenario.getName());
+        } else if (scenarioLog != null) {
+            if (scenarioLog.isEmpty()) {
+                scenarioLog.close();
+            } else {
+                ScenarioLogWriter.submit(scenarioLog, getScenarioLogFile(scenario), "Лог сценария: " + scenario.getName());
+            }
         }
 
+        // Освобождаем переменные и контекст сценария, чтобы поток пула не удерживал их до следующего сценария
+        coreScenario.clearContext();
+        RandomData.releaseThreadState();
+        DocumentFormatter.releaseThreadState();
+
     }
 
     /**
-     * Запись лога конкретного сценария в отдельный файл.
-     * Формат имени: logs/scenarios/<scenarioName>.log, где scenarioName – человеко-читаемое имя сценария
-     * (с сохранением кириллицы, очищенное только от символов, недопустимых в именах файлов).
+     * Оценка памяти, удерживаемой переменными сценария: при превышении бюджета
+     * выводится предупреждение со списком самых больших переменных
      */
-    private void writeScenarioLogToFile(Scenario scenario, int sequenceNumber, String scenarioLog) {
+    private void checkVariablesMemory(Scenario scenario) {
+        if (VARIABLES_MEMORY_BUDGET_BYTES <= 0 || coreScenario.getEnvironment() == null) {
+            return;
+        }
         try {
-            String rawName = scenario.getName();
-            // Очищаем имя сценария для использования в имени файла
-            // Удаляем только символы, недопустимые в именах файлов: / \ : * ? " < > |
-            String safeScenarioName = rawName.replaceAll("[/\\\\:*?\"<>|]", "_");
-
-            Path dir = Paths.get("logs", "scenarios");
-            Files.createDirectories(dir);
-
-            Path logFile = dir.resolve(safeScenarioName + ".log");
-            // UTF-8 BOM (EF BB BF) — чтобы браузер/Jenkins корректно определял кодировку
-            byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
-            byte[] content = scenarioLog.getBytes(StandardCharsets.UTF_8);
-            byte[] result = new byte[bom.length + content.length];
-            System.arraycopy(bom, 0, result, 0, bom.length);
-            System.arraycopy(content, 0, result, bom.length, content.length);
-            Files.write(logFile, result);
-
-            log.debug("Лог сценария записан в файл: {}", logFile.toAbsolutePath());
+            Map<String, Long> sizes = coreScenario.getVars().estimateRetainedSizes();
+            long total = 0;
+            for (long size : sizes.values()) {
+                total += size;
+            }
+            log.debug("Оценка памяти переменных сценария [{}]: {} КБ", scenario.getName(), total / 1024);
+            if (total <= VARIABLES_MEMORY_BUDGET_BYTES) {
+                return;
+            }
+            StringBuilder top = new StringBuilder();
+            int count = 0;
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                if (count++ >= VARIABLES_REPORT_TOP) {
+                    break;
+                }
+                Object value = coreScenario.getVars().get(entry.getKey());
+                top.append(String.format("  %s (%s): %.1f МБ%n", entry.getKey(),
+                        value != null ? value.getClass().getSimpleName() : "null", entry.getValue() / 1024.0 / 1024.0));
+            }
+            log.warn(String.format(
+                    "\n++++++++++++\nПеременные сценария занимают больше бюджета памяти\nИмя: [%s]\nОценка: %.1f МБ (бюджет %d МБ, переменных: %d)\nСамые большие переменные:\n%s++++++++++++",
+                    scenario.getName(), total / 1024.0 / 1024.0, VARIABLES_MEMORY_BUDGET_BYTES / 1024 / 1024, sizes.size(), top
+            ));
         } catch (Exception e) {
-            // Не должен ломать тест, если файл по какой-то причине не записался
-            log.error("Не удалось записать лог сценария в файл", e);
+            log.debug("Не удалось оценить память переменных сценария", e);
         }
     }
 
+    /**
+     * Действия, выполняемые один раз после всех сценариев прогона:
+     * отчёт о длительности шагов и вывод сводной статистики прогона.
+     */
+    @AfterAll
+    public static void afterAllScenarios() {
+        if (!ScenarioLogWriter.flush()) {
+            log.warn("Не все логи сценариев записаны к завершению прогона, осталось: {}", ScenarioLogWriter.getQueueDepth());
+        }
+        log.info(String.format(
+                "\n++++++++++++\nЗапись логов сценариев\nЗаписано: %d\nМакс. очередь: %d\nОжиданий места в очереди: %d\nЗаписано в потоке сценария: %d\nСреднее время записи: %.1f мс\nМакс. время записи: %.1f мс\n++++++++++++",
+                ScenarioLogWriter.getWrittenCount(), ScenarioLogWriter.getMaxQueueDepth(), ScenarioLogWriter.getQueueWaitCount(),
+                ScenarioLogWriter.getCallerRunsCount(),
+                ScenarioLogWriter.getAverageWriteMillis(), ScenarioLogWriter.getMaxWriteMillis()
+        ));
+        log.info(String.format(
+                "\n++++++++++++\nВложения Allure\nЗаписано уникальных: %d\nПовторных ссылок: %d\nНе записано повторно: %.1f МБ\n++++++++++++",
+                AllureAttachments.getWrittenCount(), AllureAttachments.getReusedCount(), AllureAttachments.getSavedBytes() / 1024.0 / 1024.0
+        ));
+        StepProfiler.writeReport();
+
+        long hits = PropertyLoader.getPropertyHits();
+        long misses = PropertyLoader.getPropertyMisses();
+        long total = hits + misses;
+        log.info(String.format(
+                "\n++++++++++++\nСтатистика поиска свойств (PropertyLoader)\nНайдено: %d\nНе найдено: %d\nДоля найденных: %.1f%%\n++++++++++++",
+                hits, misses, total > 0 ? hits * 100.0 / total : 0.0
+        ));
+    }
+
+    /**
+     * Файл для лога конкретного сценария.
+     * Формат имени: logs/scenarios/<scenarioName>.log, где scenarioName – человеко-читаемое имя сценария
+     * (с сохранением кириллицы, очищенное только от символов, недопустимых в именах файлов).
+     */
+    private static Path getScenarioLogFile(Scenario scenario) {
+        String rawName = scenario.getName();
+        // Очищаем имя сценария для использования в имени файла
+        // Удаляем только символы, недопустимые в именах файлов: / \ : * ? " < > |
+        String safeScenarioName = rawName.replaceAll("[/\\\\:*?\"<>|]", "_");
+        return Paths.get("logs", "scenarios", safeScenarioName + ".log");
+    }
+
     /**
      * Возвращает сокращенный ID сценария (уникальный для каждого запуска, меняется при retry).
      *
@@ -308,8 +502,6 @@ public class CoreInitialSetup {
      * Основан на URI feature-файла и номере строки сценария.
      */
     private static String getStableScenarioKey(Scenario scenario) {
-        String uri = scenario.getUri().toString();
-        String fileName = uri.substring(uri.lastIndexOf('/') + 1);
-        return fileName + ":" + scenario.getLine();
+        return ScenarioDurationHistory.key(scenario.getUri(), scenario.getLine());
     }
 }
@@ -2,6 +2,7 @@ package ru.at.library.core.steps;
 
 import io.cucumber.java.Before;
 import io.cucumber.java.ru.И;
+import ru.at.library.core.utils.helpers.PropertyLoader;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -36,6 +37,7 @@ public class CoreTestFileSteps {
         }
         System.setProperty("core.test.move.source", SOURCE_PATH);
         System.setProperty("core.test.move.dest", DEST_PATH);
+        PropertyLoader.refreshProperties();
     }
 
     @И("^подготовлены test-файлы для шага перемещения файла$")
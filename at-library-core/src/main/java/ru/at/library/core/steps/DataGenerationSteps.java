@@ -3,6 +3,8 @@ package ru.at.library.core.steps;
 import io.cucumber.java.ru.И;
 import lombok.extern.log4j.Log4j2;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.generator.RandomData;
+import ru.at.library.core.utils.generator.UniqueValuePool;
 import ru.at.library.core.utils.helpers.PropertyLoader;
 
 import java.io.File;
@@ -10,10 +12,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Base64;
 import java.util.List;
-import java.util.Random;
-import java.util.UUID;
 
-import static org.apache.commons.lang3.RandomUtils.nextBoolean;
 import static ru.at.library.core.steps.OtherSteps.getPropertyOrStringVariableOrValue;
 import static ru.at.library.core.steps.OtherSteps.getRandCharSequence;
 import static ru.at.library.core.steps.OtherSteps.getRandNumSequence;
@@ -63,10 +62,7 @@ public class DataGenerationSteps {
      */
     @И("^генерация случайного числа в диапазоне от (\\d+) до (\\d+) и сохранение в переменную \"([^\"]*)\"$")
     public void rRandomNumSequence(int min, int max, String varName) {
-        max -= min;
-        long number = (long) (Math.random() * ++max) + min;
-        String numSeq = String.valueOf(number);
-        ;
+        String numSeq = String.valueOf(RandomData.number(min, max));
         coreScenario.setVar(varName, numSeq);
         log.trace("Случайное число равно: " + numSeq);
     }
@@ -76,7 +72,7 @@ public class DataGenerationSteps {
      */
     @И("^генерация guid и сохранение в переменную \"([^\"]*)\"$")
     public void randomGuid(String varName) {
-        String guid = UUID.randomUUID().toString();
+        String guid = RandomData.guid();
         coreScenario.setVar(varName, guid);
         log.trace("Сгенерированный guid равен: " + guid);
     }
@@ -86,7 +82,7 @@ public class DataGenerationSteps {
      */
     @И("^генерация случайного boolean и сохранение в переменную \"([^\"]*)\"$")
     public void randomBoolean(String varName) {
-        String randomString = String.valueOf(nextBoolean());
+        String randomString = String.valueOf(RandomData.bool());
         coreScenario.setVar(varName, randomString);
         log.trace("Случайное boolean равно: " + randomString);
     }
@@ -96,12 +92,80 @@ public class DataGenerationSteps {
      */
     @И("^сохранено в переменную \"([^\"]*)\" случайное значение из списка:$")
     public void randomStingInList(String varName, List<String> list) {
-        int random = new Random().nextInt(list.size());
-        String randomString = list.get(random);
+        String randomString = RandomData.pick(list);
         coreScenario.setVar(varName, randomString);
         log.trace("Строка равна: " + randomString);
     }
 
+    /**
+     * Генерация списка GUID и сохранение в переменную
+     */
+    @И("^генерация (\\d+) guid и сохранение в переменную \"([^\"]*)\"$")
+    public void randomGuids(int count, String varName) {
+        setList(varName, RandomData.guids(count));
+    }
+
+    /**
+     * Генерация списка случайных чисел в диапазоне (включительно) и сохранение в переменную
+     */
+    @И("^генерация (\\d+) случайных чисел в диапазоне от (-?\\d+) до (-?\\d+) и сохранение в переменную \"([^\"]*)\"$")
+    public void randomNumbers(int count, long min, long max, String varName) {
+        setList(varName, RandomData.numbers(count, min, max));
+    }
+
+    /**
+     * Генерация списка строк из латинских или кириллических букв задаваемой длины и сохранение в переменную
+     */
+    @И("^генерация (\\d+) строк из (\\d+) случайных символов на ((?:кириллице|латинице)) и сохранение в переменную \"([^\"]*)\"$")
+    public void randomCharSequences(int count, int seqLength, String lang, String varName) {
+        setList(varName, RandomData.strings(count, seqLength, RandomData.alphabetOf(lang)));
+    }
+
+    /**
+     * Выбор N случайных значений из списка (с повторениями) и сохранение в переменную
+     */
+    @И("^сохранено в переменную \"([^\"]*)\" (\\d+) случайных значений из списка:$")
+    public void randomStringsInList(String varName, int count, List<String> list) {
+        setList(varName, RandomData.picks(count, list));
+    }
+
+    /**
+     * Генерация списка чисел задаваемой длины, не повторяющихся в рамках всего прогона (в том числе в параллельных сценариях)
+     */
+    @И("^генерация (\\d+) уникальных случайных чисел из (\\d+) (?:цифр|цифры) и сохранение в переменную \"([^\"]*)\"$")
+    public void uniqueNumSequences(int count, int seqLength, String varName) {
+        setList(varName, UniqueValuePool.digits(seqLength).take(count));
+    }
+
+    /**
+     * Генерация списка чисел в диапазоне, не повторяющихся в рамках сценария.
+     * Диапазон обычно невелик, поэтому общий пул прогона быстро бы исчерпался (в том числе при перезапуске сценария).
+     */
+    @И("^генерация (\\d+) уникальных случайных чисел в диапазоне от (-?\\d+) до (-?\\d+) и сохранение в переменную \"([^\"]*)\"$")
+    public void uniqueNumbers(int count, long min, long max, String varName) {
+        UniqueValuePool pool = coreScenario.getEnvironment()
+                .getUniqueValuePool("number:" + min + ":" + max, () -> UniqueValuePool.detachedNumbers(min, max));
+        setList(varName, pool.take(count));
+    }
+
+    /**
+     * Генерация списка строк задаваемой длины, не повторяющихся в рамках всего прогона
+     */
+    @И("^генерация (\\d+) уникальных строк из (\\d+) случайных символов на ((?:кириллице|латинице)) и сохранение в переменную \"([^\"]*)\"$")
+    public void uniqueCharSequences(int count, int seqLength, String lang, String varName) {
+        setList(varName, UniqueValuePool.strings(seqLength, RandomData.alphabetOf(lang)).take(count));
+    }
+
+    /**
+     * Генерация числа задаваемой длины, не повторяющегося в рамках всего прогона
+     */
+    @И("^генерация уникального случайного числа из (\\d+) (?:цифр|цифры) и сохранение в переменную \"([^\"]*)\"$")
+    public void uniqueNumSequence(int seqLength, String varName) {
+        String numSeq = UniqueValuePool.digits(seqLength).take();
+        coreScenario.setVar(varName, numSeq);
+        log.trace("Уникальное случайное число равно: " + numSeq);
+    }
+
     @И("^переменная \"([^\"]+)\" содержит base64 кодирование, декодирована в pdf и сохранена по пути \"([^\"]+)\" с именем \"([^\"]+)\" в формате \"([^\"]+)\"$")
     public void saveBase64ToPdf(String encodeBytes, String path, String fName, String fFormat) throws IOException {
         String base64Code = PropertyLoader.loadValueFromFileOrPropertyOrVariableOrDefault(encodeBytes);
@@ -122,4 +186,9 @@ public class DataGenerationSteps {
             fos.flush();
         }
     }
+
+    private void setList(String varName, List<String> values) {
+        coreScenario.setVar(varName, values);
+        log.trace("Сгенерировано значений: " + values.size());
+    }
 }
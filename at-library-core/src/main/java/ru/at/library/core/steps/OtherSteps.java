@@ -7,6 +7,10 @@ import io.cucumber.java.ru.То;
 import io.qameta.allure.Step;
 import lombok.extern.log4j.Log4j2;
 import ru.at.library.core.cucumber.api.CoreScenario;
+import ru.at.library.core.utils.generator.RandomData;
+import ru.at.library.core.utils.helpers.KeyTemplate;
+import ru.at.library.core.utils.helpers.ScopedVariables;
+import ru.at.library.core.utils.helpers.ValueReference;
 
 import java.io.File;
 import java.io.IOException;
@@ -17,8 +21,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -87,18 +89,7 @@ public class OtherSteps {
      * @param length длина последовательности
      */
     public static String getRandNumSequence(int length) {
-        if (length < 0) {
-            throw new IllegalArgumentException(
-                    "Длина последовательности не может быть отрицательной: " + length
-            );
-        }
-
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        char[] result = new char[length];
-        for (int index = 0; index < length; index++) {
-            result[index] = (char) ('0' + random.nextInt(10));
-        }
-        return new String(result);
+        return RandomData.digits(length);
     }
 
     /**
@@ -110,18 +101,7 @@ public class OtherSteps {
      * @param lang   варианты языков 'ru' или 'en'
      */
     public static String getRandCharSequence(int length, String lang) {
-        if (lang.equals("кириллице")) {
-            lang = "ru";
-        } else {
-            lang = "en";
-        }
-
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            char symbol = charGenerator(lang);
-            builder.append(symbol);
-        }
-        return builder.toString();
+        return RandomData.string(length, RandomData.alphabetOf(lang));
     }
 
     /**
@@ -130,12 +110,7 @@ public class OtherSteps {
      * @param lang варианты языков 'ru' или 'en'
      */
     public static char charGenerator(String lang) {
-        Random random = new Random();
-        if (lang.equals("ru")) {
-            return (char) (1072 + random.nextInt(32));
-        } else {
-            return (char) (97 + random.nextInt(26));
-        }
+        return RandomData.letter(RandomData.alphabetOf(lang));
     }
 
     /**
@@ -172,27 +147,52 @@ public class OtherSteps {
      * если и оно отсутствует, то возвращает значение переданной на вход переменной
      */
     @Step("Попытка получить значение из property файла, если отсутствует, то из пользовательских переменных, если и оно отсутствует, то возвращает переданное значение '{propertyNameOrVariableNameOrValue}'")
-    public synchronized static String getPropertyOrStringVariableOrValue(String propertyNameOrVariableNameOrValue) {
-        String propertyValue = tryLoadProperty(propertyNameOrVariableNameOrValue);
-        String variableValue = null;
-        try {
-            variableValue = (String) CoreScenario.getInstance().tryGetVar(propertyNameOrVariableNameOrValue);
-        } catch (ClassCastException ignored) {}
-
-        boolean propertyCheck = checkResult(propertyValue, "Переменная " + propertyNameOrVariableNameOrValue + " из property файла");
-        boolean variableCheck = checkResult(variableValue, "Переменная сценария " + propertyNameOrVariableNameOrValue);
-
-        return propertyCheck ? propertyValue : (variableCheck ? variableValue : propertyNameOrVariableNameOrValue);
+    public static String getPropertyOrStringVariableOrValue(String propertyNameOrVariableNameOrValue) {
+        return resolvePropertyOrVariable(propertyNameOrVariableNameOrValue, null);
     }
 
-    public synchronized static List<String> getPropertyOrStringVariableOrValue(List<String> textTable) {
-        List<String> list = new ArrayList<>();
+    /**
+     * Пакетный вариант {@link #getPropertyOrStringVariableOrValue(String)}: хранилище переменных сценария
+     * определяется один раз на весь список
+     */
+    public static List<String> getPropertyOrStringVariableOrValue(List<String> textTable) {
+        ScopedVariables variables = STRICT_RESOLUTION || textTable.isEmpty() ? null : CoreScenario.getInstance().getVars();
+        List<String> list = new ArrayList<>(textTable.size());
         for (String text : textTable) {
-            list.add(getPropertyOrStringVariableOrValue(text));
+            list.add(resolvePropertyOrVariable(text, variables));
         }
         return list;
     }
 
+    /**
+     * Разрешение значения без блокировок: свойства читаются из неизменяемого снимка,
+     * переменные - из хранилища текущего сценария
+     *
+     * @param variables хранилище переменных или {@code null}, чтобы взять хранилище текущего сценария
+     */
+    private static String resolvePropertyOrVariable(String propertyNameOrVariableNameOrValue, ScopedVariables variables) {
+        ValueReference reference = ValueReference.parseBraced(propertyNameOrVariableNameOrValue);
+        if (reference != null) {
+            return requireReferencedValue(reference);
+        }
+        if (STRICT_RESOLUTION) {
+            return propertyNameOrVariableNameOrValue;
+        }
+        String propertyValue = tryLoadProperty(propertyNameOrVariableNameOrValue);
+        if (log.isTraceEnabled()) {
+            checkResult(propertyValue, "Переменная " + propertyNameOrVariableNameOrValue + " из property файла");
+        }
+        if (propertyValue != null) {
+            return propertyValue;
+        }
+        Object variable = (variables != null ? variables : CoreScenario.getInstance().getVars()).get(propertyNameOrVariableNameOrValue);
+        String variableValue = variable instanceof String ? (String) variable : null;
+        if (log.isTraceEnabled()) {
+            checkResult(variableValue, "Переменная сценария " + propertyNameOrVariableNameOrValue);
+        }
+        return variableValue != null ? variableValue : propertyNameOrVariableNameOrValue;
+    }
+
     public static boolean checkResult(String result, String message) {
         if (isNull(result)) {
             log.trace(message + " не найдена");
@@ -311,26 +311,43 @@ public class OtherSteps {
     }
 
     /**
-     * Выполняется чтение файла с шаблоном и заполнение его значениями из таблицы
+     * Выполняется чтение файла с шаблоном и заполнение его значениями из таблицы.
+     * Ключи в первом столбце ищутся как строки (без учёта спецсимволов регулярных выражений),
+     * все ключи заменяются за один проход по шаблону.
      */
     @И("^шаблон \"([^\"]*)\" заполнен данными из таблицы и сохранён в переменную \"([^\"]*)\"$")
     public void fillTemplate(String templateName, String varName, DataTable table) {
+        fillTemplate(templateName, varName, table, false);
+    }
+
+    /**
+     * Выполняется чтение файла с шаблоном и заполнение его значениями из таблицы,
+     * ключи в первом столбце являются регулярными выражениями
+     */
+    @И("^шаблон \"([^\"]*)\" заполнен по регулярным выражениям данными из таблицы и сохранён в переменную \"([^\"]*)\"$")
+    public void fillTemplateByRegex(String templateName, String varName, DataTable table) {
+        fillTemplate(templateName, varName, table, true);
+    }
+
+    private void fillTemplate(String templateName, String varName, DataTable table, boolean regex) {
         String template = getPropertyOrValue(templateName);
         template = loadValueFromFileOrVariableOrDefault(template);
-        boolean error = false;
-        for (List<String> list : table.asLists()) {
-            String regexp = loadValueFromFileOrPropertyOrVariableOrDefault(list.get(0));
-            String replacement = loadValueFromFileOrPropertyOrVariableOrDefault(list.get(1));
-            if (template.contains(regexp)) {
-                template = template.replaceAll(regexp, replacement);
-            } else {
-                log.trace("В шаблоне не найден элемент " + regexp);
-                error = true;
+        List<List<String>> rows = table.asLists();
+        List<String> keys = new ArrayList<>(rows.size());
+        List<String> values = new ArrayList<>(rows.size());
+        for (List<String> row : rows) {
+            keys.add(loadValueFromFileOrPropertyOrVariableOrDefault(row.get(0)));
+            values.add(loadValueFromFileOrPropertyOrVariableOrDefault(row.get(1)));
+        }
+        KeyTemplate compiled = regex ? KeyTemplate.compileRegex(template, keys) : KeyTemplate.compile(template, keys);
+        List<String> missingKeys = compiled.getMissingKeys();
+        if (!missingKeys.isEmpty()) {
+            for (String key : missingKeys) {
+                log.trace("В шаблоне не найден элемент " + key);
             }
+            throw new RuntimeException("В шаблоне не найдены требуемые " + (regex ? "регулярные выражения: " : "ключи: ") + missingKeys);
         }
-        if (error)
-            throw new RuntimeException("В шаблоне не найдены требуемые регулярные выражения");
-        coreScenario.setVar(varName, template);
+        coreScenario.setVar(varName, compiled.render(values));
     }
 
 //    /**
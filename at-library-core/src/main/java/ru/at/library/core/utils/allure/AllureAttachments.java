@@ -0,0 +1,280 @@
+package ru.at.library.core.utils.allure;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Вложения Allure с хранением по содержимому.
+ * <p>
+ * Содержимое вложения хэшируется (SHA-256) и записывается в каталог результатов один раз под именем
+ * {@code <хэш>-attachment.<расширение>}; повторное вложение с тем же содержимым (одна и та же схема,
+ * одинаковый ответ, скриншот) только ссылается на уже записанный файл. Allure регистрирует вложение
+ * под случайным именем, которое подменяется на имя по хэшу при записи результата
+ * ({@link AttachmentSourceListener}).
+ * <p>
+ * Текстовые вложения (text/*, JSON, XML) размером от {@code core.allure.attachments.gzipMinBytes}
+ * сжимаются gzip и в отчёте скачиваются, а не показываются.
+ * <p>
+ * Настройки (системные свойства):
+ * core.allure.attachments.dedup - хранение по содержимому, по умолчанию true;
+ * core.allure.attachments.gzipMinBytes - минимальный размер сжимаемого текстового вложения, по умолчанию 1 МБ
+ * (0 - не сжимать).
+ */
+@Log4j2
+public final class AllureAttachments {
+
+    public static final String GZIP_TYPE = "application/gzip";
+
+    private static final boolean DEDUP = Boolean.parseBoolean(System.getProperty("core.allure.attachments.dedup", "true"));
+    private static final long GZIP_MIN_BYTES = Long.getLong("core.allure.attachments.gzipMinBytes", 1024L * 1024);
+
+    private static final String ATTACHMENT_SUFFIX = "-attachment.";
+
+    /**
+     * Имя, под которым Allure зарегистрировал вложение -> имя файла по хэшу содержимого
+     */
+    private static final Map<String, String> ALIASES = new ConcurrentHashMap<>();
+    /**
+     * Уже записанные файлы (по имени с хэшем)
+     */
+    private static final Map<String, Boolean> STORED = new ConcurrentHashMap<>();
+
+    private static final LongAdder WRITTEN = new LongAdder();
+    private static final LongAdder REUSED = new LongAdder();
+    private static final LongAdder SAVED_BYTES = new LongAdder();
+
+    private AllureAttachments() {
+    }
+
+    /**
+     * Прикладывает текст (в UTF-8) к текущему шагу или тесту Allure
+     *
+     * @param name      имя вложения
+     * @param type      MIME-тип
+     * @param extension расширение файла
+     * @param content   содержимое
+     */
+    public static void attach(String name, String type, String extension, String content) {
+        attach(name, type, extension, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Прикладывает содержимое к текущему шагу или тесту Allure.
+     * Одинаковое содержимое записывается в каталог результатов один раз.
+     *
+     * @param name      имя вложения
+     * @param type      MIME-тип
+     * @param extension расширение файла
+     * @param content   содержимое
+     */
+    public static void attach(String name, String type, String extension, byte[] content) {
+        attach(Allure.getLifecycle(), name, type, extension, content);
+    }
+
+    static void attach(AllureLifecycle lifecycle, String name, String type, String extension, byte[] content) {
+        try {
+            String ext = normalizeExtension(extension);
+            boolean compress = isCompressed(type, content.length);
+            if (compress) {
+                type = GZIP_TYPE;
+                ext = ext + ".gz";
+            }
+            if (!DEDUP) {
+                lifecycle.addAttachment(name, type, ext, compress ? gzip(new ByteArrayInputStream(content)) : content);
+                return;
+            }
+            if (lifecycle.getCurrentTestCaseOrStep().isEmpty()) {
+                log.debug("Вложение [{}] пропущено: нет текущего теста Allure", name);
+                return;
+            }
+            String stored = sha256(content) + ATTACHMENT_SUFFIX + ext;
+            String source = lifecycle.prepareAttachment(name, type, ext);
+            ALIASES.put(source, stored);
+            if (STORED.putIfAbsent(stored, Boolean.TRUE) != null) {
+                REUSED.increment();
+                SAVED_BYTES.add(content.length);
+                return;
+            }
+            try {
+                lifecycle.writeAttachment(stored, new ByteArrayInputStream(compress ? gzip(new ByteArrayInputStream(content)) : content));
+                WRITTEN.increment();
+            } catch (RuntimeException e) {
+                STORED.remove(stored);
+                ALIASES.remove(source);
+                throw e;
+            }
+        } catch (Exception e) {
+            // Вложение - диагностика, его ошибка не должна ронять шаг
+            log.error("Не удалось приложить [{}] к отчёту", name, e);
+        }
+    }
+
+    /**
+     * @return {@code true}, если вложение такого типа и размера записывается сжатым
+     */
+    public static boolean isCompressed(String type, long size) {
+        return GZIP_MIN_BYTES > 0 && size >= GZIP_MIN_BYTES && isText(type);
+    }
+
+    /**
+     * Поток, сжимающий содержимое gzip по мере чтения: в памяти держится только очередная сжатая порция.
+     * Закрытие потока закрывает и исходный поток.
+     */
+    public static InputStream gzipStream(InputStream content) throws IOException {
+        return new GzipInputStream(content);
+    }
+
+    /**
+     * Сжимает поток gzip в память
+     */
+    public static byte[] gzip(InputStream content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 64 * 1024)) {
+            content.transferTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return количество записанных уникальных вложений
+     */
+    public static long getWrittenCount() {
+        return WRITTEN.sum();
+    }
+
+    /**
+     * @return количество вложений, сославшихся на уже записанное содержимое
+     */
+    public static long getReusedCount() {
+        return REUSED.sum();
+    }
+
+    /**
+     * @return объём повторно не записанного содержимого, байт (до сжатия)
+     */
+    public static long getSavedBytes() {
+        return SAVED_BYTES.sum();
+    }
+
+    /**
+     * Возвращает имя файла по хэшу для вложения, зарегистрированного Allure, и забывает соответствие
+     *
+     * @return имя файла или {@code null}, если вложение добавлено не через этот класс
+     */
+    static String resolveSource(String source) {
+        return source != null ? ALIASES.remove(source) : null;
+    }
+
+    static boolean isText(String type) {
+        if (type == null) {
+            return false;
+        }
+        String mime = type.toLowerCase(Locale.ROOT);
+        return mime.startsWith("text/")
+                || mime.startsWith("application/json")
+                || mime.startsWith("application/xml")
+                || mime.contains("+json")
+                || mime.contains("+xml");
+    }
+
+    private static String normalizeExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return "txt";
+        }
+        return extension.startsWith(".") ? extension.substring(1) : extension;
+    }
+
+    /**
+     * Чтение сжатого содержимого: очередная порция исходного потока пропускается через {@link GZIPOutputStream},
+     * её результат отдаётся читателю, после чего буфер переиспользуется
+     */
+    private static final class GzipInputStream extends InputStream {
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        private final InputStream source;
+        private final ChunkBuffer compressed = new ChunkBuffer();
+        private final GZIPOutputStream gzip;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private int position;
+        private boolean finished;
+
+        private GzipInputStream(InputStream source) throws IOException {
+            this.source = source;
+            this.gzip = new GZIPOutputStream(compressed, CHUNK_SIZE);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == compressed.size()) {
+                if (finished) {
+                    return -1;
+                }
+                compressed.reset();
+                position = 0;
+                int read = source.read(chunk);
+                if (read < 0) {
+                    gzip.finish();
+                    finished = true;
+                } else {
+                    gzip.write(chunk, 0, read);
+                }
+            }
+            int count = Math.min(len, compressed.size() - position);
+            System.arraycopy(compressed.array(), position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                // Освобождает Deflater
+                gzip.close();
+            }
+        }
+    }
+
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+        private ChunkBuffer() {
+            super(64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.at.library.core.utils.allure;
+
+import io.qameta.allure.listener.ContainerLifecycleListener;
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.model.WithAttachments;
+import io.qameta.allure.model.WithSteps;
+
+import java.util.List;
+
+/**
+ * Перед записью результата или контейнера (с фикстурами) в каталог Allure заменяет имена вложений,
+ * добавленных через {@link AllureAttachments}, на имена файлов по хэшу содержимого.
+ * Подключается через {@code META-INF/services} (TestLifecycleListener и ContainerLifecycleListener).
+ */
+public class AttachmentSourceListener implements TestLifecycleListener, ContainerLifecycleListener {
+
+    @Override
+    public void beforeTestWrite(TestResult result) {
+        resolve(result);
+    }
+
+    @Override
+    public void beforeContainerWrite(TestResultContainer container) {
+        resolveFixtures(container.getBefores());
+        resolveFixtures(container.getAfters());
+    }
+
+    private static void resolveFixtures(List<FixtureResult> fixtures) {
+        if (fixtures != null) {
+            for (FixtureResult fixture : fixtures) {
+                resolve(fixture);
+            }
+        }
+    }
+
+    private static <T extends WithAttachments & WithSteps> void resolve(T result) {
+        if (result.getAttachments() != null) {
+            for (Attachment attachment : result.getAttachments()) {
+                String stored = AllureAttachments.resolveSource(attachment.getSource());
+                if (stored != null) {
+                    attachment.setSource(stored);
+                }
+            }
+        }
+        if (result.getSteps() != null) {
+            for (StepResult step : result.getSteps()) {
+                resolve(step);
+            }
+        }
+    }
+}
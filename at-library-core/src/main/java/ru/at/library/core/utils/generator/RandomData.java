@@ -0,0 +1,204 @@
+package ru.at.library.core.utils.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Генерация случайных тестовых данных.
+ * <p>
+ * У каждого потока свой {@link SplittableRandom}, отделённый от общего корневого генератора,
+ * поэтому параллельные сценарии не конкурируют за общее состояние, а последовательности потоков независимы.
+ * Строки собираются в переиспользуемом буфере потока; генератор и буфер освобождаются после каждого сценария.
+ * Пакетные методы возвращают сразу N значений.
+ * <p>
+ * Генератор не криптографический и предназначен только для тестовых данных.
+ */
+public final class RandomData {
+
+    /**
+     * Строчные буквы кириллицы а-я (без ё)
+     */
+    public static final String CYRILLIC = alphabet('а', 32);
+    /**
+     * Строчные латинские буквы a-z
+     */
+    public static final String LATIN = alphabet('a', 26);
+    public static final String DIGITS = "0123456789";
+
+    private static final SplittableRandom ROOT = new SplittableRandom();
+
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(RandomData::split);
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    private RandomData() {
+    }
+
+    /**
+     * Освобождение генератора и буфера текущего потока по завершении сценария;
+     * при следующем обращении они создаются заново
+     */
+    public static void releaseThreadState() {
+        RANDOM.remove();
+        BUFFER.remove();
+    }
+
+    /**
+     * Генератор текущего потока
+     */
+    public static SplittableRandom current() {
+        return RANDOM.get();
+    }
+
+    /**
+     * Алфавит по названию языка: 'ru' / 'кириллице' - кириллица, иначе латиница
+     */
+    public static String alphabetOf(String lang) {
+        return "ru".equals(lang) || "кириллице".equals(lang) ? CYRILLIC : LATIN;
+    }
+
+    /**
+     * Случайное число от 0 (включительно) до bound (не включительно)
+     */
+    public static int nextInt(int bound) {
+        return current().nextInt(bound);
+    }
+
+    /**
+     * Случайное число в диапазоне от min до max включительно
+     */
+    public static long number(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Нижняя граница диапазона больше верхней: " + min + " > " + max);
+        }
+        SplittableRandom random = current();
+        if (max == Long.MAX_VALUE) {
+            return min == Long.MIN_VALUE ? random.nextLong() : random.nextLong(min - 1, max) + 1;
+        }
+        return random.nextLong(min, max + 1);
+    }
+
+    /**
+     * Строка заданной длины из символов алфавита
+     */
+    public static String string(int length, String alphabet) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Длина последовательности не может быть отрицательной: " + length);
+        }
+        if (alphabet.isEmpty()) {
+            throw new IllegalArgumentException("Алфавит не может быть пустым");
+        }
+        SplittableRandom random = current();
+        char[] buffer = buffer(length);
+        int size = alphabet.length();
+        for (int i = 0; i < length; i++) {
+            buffer[i] = alphabet.charAt(random.nextInt(size));
+        }
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Последовательность случайных цифр (может начинаться с 0)
+     */
+    public static String digits(int length) {
+        return string(length, DIGITS);
+    }
+
+    /**
+     * Случайный символ алфавита
+     */
+    public static char letter(String alphabet) {
+        return alphabet.charAt(current().nextInt(alphabet.length()));
+    }
+
+    /**
+     * Случайный GUID версии 4
+     */
+    public static String guid() {
+        SplittableRandom random = current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    public static boolean bool() {
+        return current().nextBoolean();
+    }
+
+    /**
+     * Случайный элемент списка
+     */
+    public static <T> T pick(List<T> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Список для выбора случайного значения пуст");
+        }
+        return values.get(current().nextInt(values.size()));
+    }
+
+    public static List<String> guids(int count) {
+        List<String> result = new ArrayList<>(checkCount(count));
+        for (int i = 0; i < count; i++) {
+            result.add(guid());
+        }
+        return result;
+    }
+
+    public static List<String> numbers(int count, long min, long max) {
+        List<String> result = new ArrayList<>(checkCount(count));
+        for (int i = 0; i < count; i++) {
+            result.add(String.valueOf(number(min, max)));
+        }
+        return result;
+    }
+
+    public static List<String> strings(int count, int length, String alphabet) {
+        List<String> result = new ArrayList<>(checkCount(count));
+        for (int i = 0; i < count; i++) {
+            result.add(string(length, alphabet));
+        }
+        return result;
+    }
+
+    public static <T> List<T> picks(int count, List<T> values) {
+        List<T> result = new ArrayList<>(checkCount(count));
+        for (int i = 0; i < count; i++) {
+            result.add(pick(values));
+        }
+        return result;
+    }
+
+    static int checkCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Количество значений не может быть отрицательным: " + count);
+        }
+        return count;
+    }
+
+    private static char[] buffer(int length) {
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * {@link SplittableRandom#split()} изменяет состояние корневого генератора, поэтому вызывается под блокировкой
+     * (один раз на поток)
+     */
+    private static SplittableRandom split() {
+        synchronized (ROOT) {
+            return ROOT.split();
+        }
+    }
+
+    private static String alphabet(char first, int size) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) (first + i);
+        }
+        return new String(chars);
+    }
+}
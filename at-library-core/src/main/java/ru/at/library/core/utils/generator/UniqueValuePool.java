@@ -0,0 +1,141 @@
+package ru.at.library.core.utils.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Пул заранее сгенерированных уникальных значений, общий для всех сценариев прогона.
+ * <p>
+ * Значения генерируются порциями ({@code core.generator.poolChunkSize}, по умолчанию 1000) и выдаются из очереди без блокировок;
+ * блокировка берётся только при пополнении пула. Значение выдаётся не более одного раза за прогон,
+ * поэтому параллельные сценарии, создающие сущности с уникальными полями, не пересекаются.
+ * Выданные значения хранятся до конца прогона.
+ * <p>
+ * Пулы регистрируются по имени, которое должно однозначно описывать генератор (например, {@code digits:10}).
+ */
+public final class UniqueValuePool {
+
+    private static final int CHUNK_SIZE = Math.max(1, Integer.getInteger("core.generator.poolChunkSize", 1000));
+    /**
+     * Во сколько раз количество попыток генерации может превышать размер порции, прежде чем пул будет считаться исчерпанным
+     */
+    private static final int MAX_ATTEMPTS_FACTOR = 20;
+
+    private static final ConcurrentHashMap<String, UniqueValuePool> POOLS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Supplier<String> generator;
+    private final int chunkSize;
+    private final Set<String> issued = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<String> ready = new ConcurrentLinkedQueue<>();
+
+    UniqueValuePool(String name, Supplier<String> generator, int chunkSize) {
+        this.name = name;
+        this.generator = generator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Пул с указанным именем; при первом обращении создаётся с переданным генератором
+     */
+    public static UniqueValuePool of(String name, Supplier<String> generator) {
+        return POOLS.computeIfAbsent(name, n -> new UniqueValuePool(n, generator, CHUNK_SIZE));
+    }
+
+    /**
+     * Пул уникальных последовательностей цифр заданной длины
+     */
+    public static UniqueValuePool digits(int length) {
+        return of("digits:" + length, () -> RandomData.digits(length));
+    }
+
+    /**
+     * Пул уникальных строк заданной длины из символов алфавита
+     */
+    public static UniqueValuePool strings(int length, String alphabet) {
+        return of("string:" + length + ":" + alphabet, () -> RandomData.string(length, alphabet));
+    }
+
+    /**
+     * Пул уникальных чисел в диапазоне от min до max включительно
+     */
+    public static UniqueValuePool numbers(long min, long max) {
+        checkRange(min, max);
+        return of(numbersName(min, max), () -> String.valueOf(RandomData.number(min, max)));
+    }
+
+    /**
+     * Отдельный пул уникальных чисел в диапазоне от min до max включительно, не зарегистрированный в общем реестре.
+     * Значения небольшого диапазона быстро заканчиваются за прогон, поэтому такой пул хранят в рамках сценария
+     * (см. {@link ru.at.library.core.cucumber.api.CoreEnvironment#getUniqueValuePool}).
+     */
+    public static UniqueValuePool detachedNumbers(long min, long max) {
+        checkRange(min, max);
+        return new UniqueValuePool(numbersName(min, max), () -> String.valueOf(RandomData.number(min, max)), CHUNK_SIZE);
+    }
+
+    private static String numbersName(long min, long max) {
+        return "number:" + min + ":" + max;
+    }
+
+    private static void checkRange(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Нижняя граница диапазона больше верхней: " + min + " > " + max);
+        }
+    }
+
+    public String take() {
+        return take(1).get(0);
+    }
+
+    /**
+     * Выдаёт count значений, не выдававшихся ранее
+     *
+     * @throws IllegalStateException если генератор больше не даёт новых значений
+     */
+    public List<String> take(int count) {
+        List<String> result = new ArrayList<>(RandomData.checkCount(count));
+        while (result.size() < count) {
+            String value = ready.poll();
+            if (value != null) {
+                result.add(value);
+            } else {
+                refill(count - result.size());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return количество выданных и подготовленных к выдаче значений
+     */
+    public int size() {
+        return issued.size();
+    }
+
+    private synchronized void refill(int needed) {
+        if (!ready.isEmpty()) {
+            // Пул уже пополнен другим потоком
+            return;
+        }
+        int target = Math.max(chunkSize, needed);
+        long maxAttempts = (long) target * MAX_ATTEMPTS_FACTOR;
+        int produced = 0;
+        for (long attempt = 0; attempt < maxAttempts && produced < target; attempt++) {
+            String value = generator.get();
+            if (issued.add(value)) {
+                ready.add(value);
+                produced++;
+            }
+        }
+        if (produced == 0) {
+            throw new IllegalStateException(String.format(
+                    "Не удалось получить новые уникальные значения для пула '%s': выдано %d значений, пространство значений исчерпано",
+                    name, issued.size()));
+        }
+    }
+}
@@ -12,7 +12,10 @@ public class AssertionHelper {
      * Управляется системным свойством core.softAssert=true (по умолчанию: false).
      */
     private final boolean SOFT_ASSERT_ENABLED = Boolean.parseBoolean(System.getProperty("core.softAssert", "false"));
-    private final ThreadLocal<StringList> stepErrors = new ThreadLocal<>();
+    /**
+     * Ошибки шага. Экземпляр создаётся на сценарий, ошибки могут добавляться из вспомогательных потоков сценария.
+     */
+    private final StringList stepErrors = new StringList();
 
     public <T> void hamcrestAssert(String reason, T actual, Matcher<? super T> matcher) throws AssertionError {
         try {
@@ -29,23 +32,20 @@ public class AssertionHelper {
     }
 
     public void addStepError(String error) {
-        this.getStepErrors().add(error);
+        synchronized (stepErrors) {
+            stepErrors.add(error);
+        }
     }
 
     public boolean isNoStepErrors() {
-        return this.getStepErrors().isEmpty();
+        synchronized (stepErrors) {
+            return stepErrors.isEmpty();
+        }
     }
 
     public List<String> takeStepErrors() {
-        List<String> errors = this.getStepErrors().takeList();
-        this.getStepErrors().clear();
-        return errors;
-    }
-
-    private StringList getStepErrors() {
-        if (stepErrors.get() == null) {
-            stepErrors.set(new StringList());
+        synchronized (stepErrors) {
+            return stepErrors.takeList();
         }
-        return stepErrors.get();
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import lombok.extern.log4j.Log4j2;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш скомпилированных groovy-выражений для {@link ScopedVariables#evaluate(String)}.
+ * <p>
+ * Каждый вызов {@code new GroovyShell().evaluate(...)} компилирует новый класс скрипта,
+ * что на длинных прогонах заполняет Metaspace. Здесь класс компилируется один раз на текст выражения,
+ * а для выполнения создаётся новый экземпляр скрипта со своим Binding, поэтому кэш безопасен для параллельных сценариев.
+ * Размер кэша задаётся системным свойством core.groovy.scriptCache.size (по умолчанию 256).
+ * Каждое выражение компилируется своим {@link GroovyClassLoader}: загрузчик хранит ссылки на все разобранные им классы,
+ * поэтому общий загрузчик не дал бы выгрузить ни один класс. При вытеснении записи её загрузчик очищается и закрывается,
+ * и класс скрипта выгружается вместе с ним. Метакласс получателя (например, ArrayList для {@code list.collect { }})
+ * может ещё удерживать класс замыкания последнего вызова метода, но эта ссылка заменяется при следующем вызове.
+ */
+@Log4j2
+final class GroovyScriptCache {
+
+    private static final long MAX_SIZE = Long.getLong("core.groovy.scriptCache.size", 256L);
+
+    /**
+     * Идентификаторы в тексте выражения: по ним определяется, какие переменные нужно передать в скрипт
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("[\\p{L}_$][\\p{L}\\p{N}_$]*");
+
+    /**
+     * Счётчик для уникальных имён классов скриптов, как у {@link GroovyShell}
+     */
+    private static final AtomicLong SCRIPT_COUNTER = new AtomicLong();
+
+    private static final RemovalListener<String, CompiledScript> RELEASE_LOADER =
+            notification -> notification.getValue().release();
+
+    private static final Cache<String, CompiledScript> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .removalListener(RELEASE_LOADER)
+            .build();
+
+    private GroovyScriptCache() {
+    }
+
+    static CompiledScript compile(String expression) {
+        try {
+            return CACHE.get(expression, () -> parse(expression));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Ошибка компиляции выражения: " + expression, cause);
+        } catch (UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Вытесняет одно выражение из кэша (для проверки выгрузки классов)
+     */
+    static void invalidate(String expression) {
+        CACHE.invalidate(expression);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompiledScript parse(String expression) {
+        GroovyClassLoader loader = new GroovyClassLoader(GroovyScriptCache.class.getClassLoader());
+        try {
+            GroovyCodeSource source = new GroovyCodeSource(expression,
+                    "Script" + SCRIPT_COUNTER.incrementAndGet() + ".groovy", GroovyShell.DEFAULT_CODE_BASE);
+            source.setCachable(false);
+            Class<? extends Script> scriptClass = (Class<? extends Script>) loader.parseClass(source, false);
+            return new CompiledScript(scriptClass, loader, extractIdentifiers(expression));
+        } catch (RuntimeException | Error e) {
+            closeQuietly(loader);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(GroovyClassLoader loader) {
+        loader.clearCache();
+        try {
+            loader.close();
+        } catch (IOException e) {
+            log.debug("Не удалось закрыть загрузчик groovy-скрипта", e);
+        }
+    }
+
+    private static Set<String> extractIdentifiers(String expression) {
+        Set<String> identifiers = new LinkedHashSet<>();
+        Matcher m = IDENTIFIER.matcher(expression);
+        while (m.find()) {
+            identifiers.add(m.group());
+        }
+        return identifiers;
+    }
+
+    /**
+     * Скомпилированный класс скрипта и идентификаторы, встречающиеся в выражении
+     */
+    static final class CompiledScript {
+        private final Class<? extends Script> scriptClass;
+        private final GroovyClassLoader loader;
+        private final Set<String> identifiers;
+
+        private CompiledScript(Class<? extends Script> scriptClass, GroovyClassLoader loader, Set<String> identifiers) {
+            this.scriptClass = scriptClass;
+            this.loader = loader;
+            this.identifiers = identifiers;
+        }
+
+        Class<? extends Script> getScriptClass() {
+            return scriptClass;
+        }
+
+        /**
+         * Освобождает загрузчик вытесненного скрипта. Уже выполняющиеся экземпляры скрипта продолжают работать:
+         * загруженные классы остаются доступны, пока на них есть ссылки.
+         */
+        private void release() {
+            closeQuietly(loader);
+        }
+
+        Set<String> getIdentifiers() {
+            return identifiers;
+        }
+
+        Object run(Binding binding) {
+            return InvokerHelper.createScript(scriptClass, binding).run();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Шаблон, в котором заменяются заданные ключи (например, {@code @name@} в XML- или JSON-файле).
+ * <p>
+ * Все ключи ищутся за один проход по шаблону: строковые ключи - автоматом {@link MultiKeyMatcher},
+ * регулярные выражения - каждое своим {@link Matcher}, вхождения которых объединяются по позиции
+ * (так в каждом выражении сохраняются собственные номера групп и обратные ссылки {@code \1}).
+ * Шаблон разбивается на литералы и вхождения ключей, после чего заполняется значениями без повторного поиска.
+ * Подставленные значения повторно не просматриваются, поэтому значение, содержащее другой ключ, вставляется как есть.
+ * Пересекающиеся вхождения не заменяются: выбирается вхождение, начинающееся левее, а при равном начале -
+ * самое длинное (для регулярных выражений - первое в порядке ключей).
+ * <p>
+ * Скомпилированные шаблоны кэшируются по содержимому шаблона и набору ключей. Содержимое файлов-шаблонов
+ * выдаётся из {@link ResourceContentCache} одним и тем же экземпляром строки, поэтому поиск в кэше не требует
+ * сравнения содержимого, а изменённый файл получает новую запись.
+ * <p>
+ * Настройки (системные свойства):
+ * core.template.fill.cache.maxChars - ограничение кэша по суммарной длине шаблонов (в символах), по умолчанию ~32 млн.
+ */
+public final class KeyTemplate {
+
+    private static final long CACHE_MAX_CHARS = Long.getLong("core.template.fill.cache.maxChars", 32L * 1024 * 1024);
+
+    private static final Cache<CacheKey, KeyTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_MAX_CHARS)
+            .weigher((CacheKey key, KeyTemplate value) -> Math.max(1, key.template.length()))
+            .build();
+
+    private final List<String> keys;
+    /**
+     * Литералы между вхождениями ключей, всегда на один больше, чем вхождений
+     */
+    private final String[] literals;
+    private final int[] occurrences;
+    /**
+     * Группы вхождений регулярных выражений для подстановки {@code $n}; {@code null} для строковых ключей
+     */
+    private final MatchResult[] matches;
+    private final int literalsLength;
+    private final boolean[] found;
+
+    private KeyTemplate(List<String> keys, String[] literals, int[] occurrences, MatchResult[] matches, boolean[] found) {
+        this.keys = keys;
+        this.literals = literals;
+        this.occurrences = occurrences;
+        this.matches = matches;
+        this.found = found;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * Компилирует шаблон со строковыми ключами (спецсимволы регулярных выражений в ключах не имеют особого значения)
+     *
+     * @param template текст шаблона
+     * @param keys     ключи для замены
+     */
+    public static KeyTemplate compile(String template, List<String> keys) {
+        return cached(template, keys, false);
+    }
+
+    /**
+     * Компилирует шаблон, в котором ключи являются регулярными выражениями.
+     * Значения подставляются как в {@link Matcher#appendReplacement}: {@code $1} и {@code ${name}} - группы
+     * найденного вхождения, {@code \$} и {@code \\} - сами символы.
+     *
+     * @param template текст шаблона
+     * @param patterns регулярные выражения для замены
+     */
+    public static KeyTemplate compileRegex(String template, List<String> patterns) {
+        return cached(template, patterns, true);
+    }
+
+    /**
+     * Очищает кэш скомпилированных шаблонов
+     */
+    public static void clearCache() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * @return ключи, не найденные в шаблоне
+     */
+    public List<String> getMissingKeys() {
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (!found[i]) {
+                missing.add(keys.get(i));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Заполняет шаблон значениями
+     *
+     * @param values значения в порядке ключей, переданных при компиляции
+     */
+    public String render(List<String> values) {
+        if (values.size() != keys.size()) {
+            throw new IllegalArgumentException("Количество значений (" + values.size()
+                    + ") не совпадает с количеством ключей шаблона (" + keys.size() + ")");
+        }
+        long length = literalsLength;
+        for (int occurrence : occurrences) {
+            length += values.get(occurrence).length();
+        }
+        StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, length));
+        sb.append(literals[0]);
+        for (int i = 0; i < occurrences.length; i++) {
+            String value = values.get(occurrences[i]);
+            if (matches == null || (value.indexOf('$') < 0 && value.indexOf('\\') < 0)) {
+                sb.append(value);
+            } else {
+                appendReplacement(sb, value, matches[i]);
+            }
+            sb.append(literals[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Подстановка групп вхождения по правилам {@link Matcher#appendReplacement}
+     */
+    private static void appendReplacement(StringBuilder sb, String replacement, MatchResult match) {
+        int i = 0;
+        while (i < replacement.length()) {
+            char c = replacement.charAt(i++);
+            if (c == '\\') {
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException("Символ '\\' в конце значения: " + replacement);
+                }
+                sb.append(replacement.charAt(i++));
+            } else if (c != '$') {
+                sb.append(c);
+            } else if (i == replacement.length()) {
+                throw new IllegalArgumentException("Символ '$' в конце значения: " + replacement);
+            } else if (replacement.charAt(i) == '{') {
+                int close = replacement.indexOf('}', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Не закрыта ссылка на именованную группу: " + replacement);
+                }
+                String name = replacement.substring(i + 1, close);
+                if (!match.namedGroups().containsKey(name)) {
+                    throw new IllegalArgumentException("Нет группы с именем '" + name + "' для значения: " + replacement);
+                }
+                String group = match.group(name);
+                if (group != null) {
+                    sb.append(group);
+                }
+                i = close + 1;
+            } else {
+                int group = Character.digit(replacement.charAt(i), 10);
+                if (group < 0) {
+                    throw new IllegalArgumentException("Некорректная ссылка на группу в значении: " + replacement);
+                }
+                if (group > match.groupCount()) {
+                    throw new IndexOutOfBoundsException("Нет группы " + group + " для значения: " + replacement);
+                }
+                i++;
+                // Как в Matcher: следующие цифры добавляются к номеру, пока такая группа существует
+                while (i < replacement.length()) {
+                    int digit = Character.digit(replacement.charAt(i), 10);
+                    if (digit < 0 || group * 10 + digit > match.groupCount()) {
+                        break;
+                    }
+                    group = group * 10 + digit;
+                    i++;
+                }
+                String value = match.group(group);
+                if (value != null) {
+                    sb.append(value);
+                }
+            }
+        }
+    }
+
+    private static KeyTemplate cached(String template, List<String> keys, boolean regex) {
+        CacheKey cacheKey = new CacheKey(template, List.copyOf(keys), regex);
+        KeyTemplate compiled = CACHE.getIfPresent(cacheKey);
+        if (compiled == null) {
+            compiled = regex ? parseRegex(template, cacheKey.keys) : parse(template, cacheKey.keys);
+            CACHE.put(cacheKey, compiled);
+        }
+        return compiled;
+    }
+
+    static KeyTemplate parse(String template, List<String> keys) {
+        Builder builder = new Builder(template, keys, false);
+        new MultiKeyMatcher(keys).find(template, builder::add);
+        return builder.build();
+    }
+
+    static KeyTemplate parseRegex(String template, List<String> patterns) {
+        // Каждое выражение ищется своим Matcher: объединение в одно выражение сдвинуло бы номера групп
+        Matcher[] matchers = new Matcher[patterns.size()];
+        int[] starts = new int[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            String pattern = patterns.get(i);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Ключ шаблона не может быть пустым");
+            }
+            matchers[i] = Pattern.compile(pattern).matcher(template);
+            starts[i] = -1;
+        }
+        Builder builder = new Builder(template, patterns, true);
+        int position = 0;
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < matchers.length; i++) {
+                if (starts[i] != Integer.MAX_VALUE && starts[i] < position) {
+                    starts[i] = findNonEmpty(matchers[i], position);
+                }
+                // При равном начале выбирается выражение, указанное раньше
+                if (starts[i] != Integer.MAX_VALUE && (next < 0 || starts[i] < starts[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            Matcher matcher = matchers[next];
+            builder.add(next, matcher.start(), matcher.end(), matcher.toMatchResult());
+            position = matcher.end();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Начало следующего непустого вхождения, начиная с позиции from, или {@link Integer#MAX_VALUE}
+     */
+    private static int findNonEmpty(Matcher matcher, int from) {
+        int length = matcher.regionEnd();
+        while (from <= length && matcher.find(from)) {
+            if (matcher.end() > matcher.start()) {
+                return matcher.start();
+            }
+            from = matcher.start() + 1;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static final class Builder {
+        private final String template;
+        private final List<String> keys;
+        private final boolean[] found;
+        private final List<String> literals = new ArrayList<>();
+        private final List<MatchResult> matches;
+        private int[] occurrences = new int[16];
+        private int count;
+        private int last;
+
+        private Builder(String template, List<String> keys, boolean regex) {
+            this.template = template;
+            this.keys = keys;
+            this.found = new boolean[keys.size()];
+            this.matches = regex ? new ArrayList<>() : null;
+        }
+
+        void add(int keyIndex, int start, int end) {
+            literals.add(template.substring(last, start));
+            if (count == occurrences.length) {
+                occurrences = Arrays.copyOf(occurrences, count * 2);
+            }
+            occurrences[count++] = keyIndex;
+            found[keyIndex] = true;
+            last = end;
+        }
+
+        void add(int keyIndex, int start, int end, MatchResult match) {
+            add(keyIndex, start, end);
+            matches.add(match);
+        }
+
+        KeyTemplate build() {
+            literals.add(template.substring(last));
+            return new KeyTemplate(keys, literals.toArray(new String[0]), Arrays.copyOf(occurrences, count),
+                    matches != null ? matches.toArray(new MatchResult[0]) : null, found);
+        }
+    }
+
+    private static final class CacheKey {
+        private final String template;
+        private final List<String> keys;
+        private final boolean regex;
+
+        private CacheKey(String template, List<String> keys, boolean regex) {
+            this.template = template;
+            this.keys = keys;
+            this.regex = regex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return regex == other.regex && keys.equals(other.keys) && template.equals(other.template);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(template, keys, regex);
+        }
+    }
+}
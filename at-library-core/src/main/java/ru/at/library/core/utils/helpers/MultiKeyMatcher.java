@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Поиск вхождений набора строковых ключей за один проход по тексту (автомат Ахо-Корасик).
+ * <p>
+ * Находит непересекающиеся вхождения слева направо; если в одной позиции начинается несколько ключей,
+ * выбирается самый длинный. Переходы автомата хранятся в таблице по символам, встречающимся в ключах,
+ * поэтому время поиска линейно по длине текста и не зависит от количества ключей.
+ */
+final class MultiKeyMatcher {
+
+    /**
+     * Обработчик найденного вхождения
+     */
+    interface MatchHandler {
+        void onMatch(int keyIndex, int start, int end);
+    }
+
+    private static final int ASCII = 128;
+
+    /**
+     * Символ текста -> номер столбца таблицы переходов (0 - символ не встречается в ключах)
+     */
+    private final int[] asciiColumns = new int[ASCII];
+    private final char[] otherChars;
+    private final int[] otherColumns;
+    private final int columns;
+
+    /**
+     * Таблица переходов: state * columns + column -> следующее состояние
+     */
+    private final int[] transitions;
+    private final int[] depth;
+    /**
+     * Самый длинный ключ, являющийся суффиксом строки состояния: номер ключа (-1 - нет) и его длина
+     */
+    private final int[] bestKey;
+    private final int[] bestLength;
+
+    MultiKeyMatcher(List<String> keys) {
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (String key : keys) {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Ключ шаблона не может быть пустым");
+            }
+            for (int i = 0; i < key.length(); i++) {
+                alphabet.add(key.charAt(i));
+            }
+        }
+        int column = 1;
+        List<Character> others = new ArrayList<>();
+        for (char c : alphabet) {
+            if (c < ASCII) {
+                asciiColumns[c] = column++;
+            } else {
+                others.add(c);
+            }
+        }
+        otherChars = new char[others.size()];
+        otherColumns = new int[others.size()];
+        for (int i = 0; i < others.size(); i++) {
+            otherChars[i] = others.get(i);
+            otherColumns[i] = column++;
+        }
+        columns = column;
+
+        // Бор ключей
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        Map<Integer, Integer> terminal = new HashMap<>();
+        trie.add(new int[columns]);
+        depths.add(0);
+        for (int k = 0; k < keys.size(); k++) {
+            String key = keys.get(k);
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int c = column(key.charAt(i));
+                int next = trie.get(state)[c];
+                if (next == 0) {
+                    next = trie.size();
+                    trie.add(new int[columns]);
+                    depths.add(i + 1);
+                    trie.get(state)[c] = next;
+                }
+                state = next;
+            }
+            // При повторяющихся ключах используется первый
+            terminal.putIfAbsent(state, k);
+        }
+
+        int states = trie.size();
+        transitions = new int[states * columns];
+        depth = new int[states];
+        bestKey = new int[states];
+        bestLength = new int[states];
+        int[] fail = new int[states];
+        for (int s = 0; s < states; s++) {
+            depth[s] = depths.get(s);
+        }
+        Arrays.fill(bestKey, -1);
+
+        // Обход в ширину: ссылки неудач и полная таблица переходов
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 1; c < columns; c++) {
+            int next = trie.get(0)[c];
+            transitions[c] = next;
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            Integer key = terminal.get(state);
+            if (key != null) {
+                bestKey[state] = key;
+                bestLength[state] = depth[state];
+            } else {
+                bestKey[state] = bestKey[fail[state]];
+                bestLength[state] = bestLength[fail[state]];
+            }
+            for (int c = 1; c < columns; c++) {
+                int next = trie.get(state)[c];
+                if (next != 0) {
+                    fail[next] = transitions[fail[state] * columns + c];
+                    transitions[state * columns + c] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * columns + c] = transitions[fail[state] * columns + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Передаёт обработчику непересекающиеся вхождения ключей в порядке их расположения в тексте
+     */
+    void find(String text, MatchHandler handler) {
+        int length = text.length();
+        int state = 0;
+        int pendingKey = -1;
+        int pendingStart = 0;
+        int pendingEnd = 0;
+        int i = 0;
+        while (i < length) {
+            state = transitions[state * columns + column(text.charAt(i))];
+            int key = bestKey[state];
+            if (key >= 0) {
+                int start = i + 1 - bestLength[state];
+                // Совпадение, найденное позже, но начинающееся не правее отложенного, длиннее его
+                if (pendingKey < 0 || start <= pendingStart) {
+                    pendingKey = key;
+                    pendingStart = start;
+                    pendingEnd = i + 1;
+                }
+            }
+            i++;
+            // Вхождение фиксируется, когда ни одно незавершённое совпадение уже не может начаться левее него
+            if (pendingKey >= 0 && (i - depth[state] > pendingStart || i == length)) {
+                handler.onMatch(pendingKey, pendingStart, pendingEnd);
+                pendingKey = -1;
+                // Символы после вхождения могли участвовать в пересекающихся совпадениях - продолжаем с конца вхождения
+                i = pendingEnd;
+                state = 0;
+            }
+        }
+    }
+
+    private int column(char c) {
+        if (c < ASCII) {
+            return asciiColumns[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? otherColumns[index] : 0;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Скомпилированный шаблон строки с параметрами вида {@code {name}}.
+ * <p>
+ * Строка один раз разбивается на литералы и имена параметров, после чего
+ * шаблон может многократно заполняться значениями за один проход.
+ * Скомпилированные шаблоны кэшируются по исходной строке, поэтому повторная
+ * подстановка в одно и то же тело запроса не требует повторного разбора регуляркой.
+ */
+public final class PlaceholderTemplate {
+
+    /**
+     * Маркеры, которыми временно обрамляется имя параметра, для которого не найдено значение.
+     * Нужны, чтобы такой параметр не был повторно найден при следующем проходе.
+     */
+    static final String UNRESOLVED_OPEN = "__[__";
+    static final String UNRESOLVED_CLOSE = "__]__";
+
+    /**
+     * Параметр - непустое имя в фигурных скобках без вложенных скобок, кавычек и переводов строки.
+     * Кавычки исключены, чтобы JSON-объект вида {@code {"id": 1}} не считался параметром:
+     * иначе любое тело запроса после подстановки приходилось бы разбирать повторно.
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([^{}\"\\r\\n]+)\\}");
+
+    /**
+     * Ограничение кэша по суммарной длине исходных строк (в символах), по умолчанию ~16 млн.
+     * Задаётся системным свойством core.template.cache.maxChars.
+     */
+    private static final long CACHE_MAX_CHARS = Long.getLong("core.template.cache.maxChars", 16L * 1024 * 1024);
+
+    private static final Cache<String, PlaceholderTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_MAX_CHARS)
+            .weigher((String key, PlaceholderTemplate value) -> Math.max(1, key.length()))
+            .build();
+
+    /** Литералы между параметрами, всегда на один больше, чем имён. */
+    private final String[] literals;
+    private final String[] names;
+    private final int literalsLength;
+    /**
+     * Признак того, что параметр стоит между открывающей и закрывающей скобками литералов
+     * (например, {@code {a{b}}}): после подстановки вокруг значения может образоваться новый параметр,
+     * и строку нужно разобрать повторно. Скобки JSON-объектов, отделённые от параметра кавычками, не учитываются.
+     */
+    private final boolean[] enclosed;
+
+    private PlaceholderTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+        this.enclosed = findEnclosed(literals);
+    }
+
+    /**
+     * Для каждого параметра проверяет, что ближайшая скобка слева - открывающая, а справа - закрывающая,
+     * и между ними нет кавычек и переводов строки. Значения других параметров считаются прозрачными.
+     */
+    private static boolean[] findEnclosed(String[] literals) {
+        int count = literals.length - 1;
+        boolean[] opened = new boolean[count];
+        boolean open = false;
+        for (int i = 0; i < count; i++) {
+            String literal = literals[i];
+            for (int j = 0; j < literal.length(); j++) {
+                char c = literal.charAt(j);
+                if (c == '{') {
+                    open = true;
+                } else if (breaksPlaceholder(c)) {
+                    open = false;
+                }
+            }
+            opened[i] = open;
+        }
+        boolean[] enclosed = new boolean[count];
+        boolean close = false;
+        for (int i = count - 1; i >= 0; i--) {
+            String literal = literals[i + 1];
+            for (int j = literal.length() - 1; j >= 0; j--) {
+                char c = literal.charAt(j);
+                if (c == '}') {
+                    close = true;
+                } else if (c == '{' || c == '"' || c == '\r' || c == '\n') {
+                    close = false;
+                }
+            }
+            enclosed[i] = opened[i] && close;
+        }
+        return enclosed;
+    }
+
+    private static boolean breaksPlaceholder(char c) {
+        return c == '}' || c == '"' || c == '\r' || c == '\n';
+    }
+
+    /**
+     * Возвращает скомпилированный шаблон для строки, используя кэш.
+     *
+     * @param input исходная строка
+     * @return скомпилированный шаблон
+     */
+    public static PlaceholderTemplate compile(String input) {
+        PlaceholderTemplate template = CACHE.getIfPresent(input);
+        if (template == null) {
+            template = parse(input);
+            CACHE.put(input, template);
+        }
+        return template;
+    }
+
+    /**
+     * Разбирает строку в шаблон без помещения в кэш.
+     * Используется для промежуточных результатов, которые повторно не встретятся.
+     */
+    static PlaceholderTemplate parse(String input) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Matcher m = PLACEHOLDER.matcher(input);
+        int last = 0;
+        while (m.find()) {
+            literals.add(input.substring(last, m.start()));
+            names.add(m.group(1));
+            last = m.end();
+        }
+        literals.add(input.substring(last));
+        return new PlaceholderTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * Очищает кэш скомпилированных шаблонов
+     */
+    public static void clearCache() {
+        CACHE.invalidateAll();
+    }
+
+    public boolean hasPlaceholders() {
+        return names.length > 0;
+    }
+
+    public List<String> getNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Заполняет шаблон за один проход.
+     * Параметры, для которых resolver вернул {@code null}, записываются в виде
+     * {@code __[__name__]__} (см. {@link #restoreUnresolved(String)}).
+     *
+     * @param resolver функция получения значения по имени параметра
+     * @return результат подстановки
+     */
+    public String render(Function<String, String> resolver) {
+        return render(resolver, null);
+    }
+
+    /**
+     * Заполняет шаблон за один проход, дополнительно сообщая, нужен ли повторный разбор результата:
+     * подставленное значение само содержит фигурные скобки или параметр окружён скобками литералов.
+     */
+    String render(Function<String, String> resolver, boolean[] needsReparse) {
+        StringBuilder sb = new StringBuilder(literalsLength + names.length * 16);
+        boolean reparse = false;
+        sb.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            String value = resolver.apply(names[i]);
+            if (value == null) {
+                sb.append(UNRESOLVED_OPEN).append(names[i]).append(UNRESOLVED_CLOSE);
+            } else {
+                sb.append(value);
+                reparse |= enclosed[i] || containsBrace(value);
+            }
+            sb.append(literals[i + 1]);
+        }
+        if (needsReparse != null) {
+            needsReparse[0] = reparse;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Возвращает фигурные скобки параметрам, для которых не было найдено значение
+     */
+    public static String restoreUnresolved(String value) {
+        return value.replace(UNRESOLVED_OPEN, "{").replace(UNRESOLVED_CLOSE, "}");
+    }
+
+    private static boolean containsBrace(String value) {
+        return value.indexOf('{') >= 0 || value.indexOf('}') >= 0;
+    }
+}
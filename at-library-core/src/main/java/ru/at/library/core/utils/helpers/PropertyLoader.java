@@ -22,10 +22,10 @@ import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,6 +39,22 @@ public class PropertyLoader {
     private static final Properties PROPERTIES = getPropertiesInstance();
     private static final Properties PROFILE_PROPERTIES = getProfilePropertiesInstance();
 
+    /**
+     * Объединённый снимок system/profile/base свойств, используемый для поиска без блокировок.
+     * После изменения системных свойств во время прогона (System.setProperty) необходимо вызвать {@link #refreshProperties()}.
+     */
+    private static volatile PropertySnapshot snapshot = createSnapshot();
+
+    /**
+     * Строгий режим разрешения аргументов: значение ищется только по явной ссылке вида
+     * {file:path}, {res:path}, {prop:key}, {var:name}, аргументы без префикса используются как есть.
+     * Включается системным свойством core.resolve.strict=true (по умолчанию: false).
+     */
+    public static final boolean STRICT_RESOLUTION = Boolean.parseBoolean(System.getProperty("core.resolve.strict", "false"));
+
+    private static final LongAdder PROPERTY_HITS = new LongAdder();
+    private static final LongAdder PROPERTY_MISSES = new LongAdder();
+
     private PropertyLoader() {
     }
 
@@ -147,56 +163,67 @@ public class PropertyLoader {
      * Сначала поиск в System переменным,
      * затем в property-файле, если указано системное свойство "profile"
      * Если ничего не найдено, поиск в properties
+     * Поиск выполняется по неизменяемому снимку всех источников (см. {@link #refreshProperties()})
      *
      * @param propertyName название свойства
      * @return значение свойства
      */
     public static String tryLoadProperty(String propertyName) {
-        String value = null;
-        if (!Strings.isNullOrEmpty(propertyName)) {
-            String systemProperty = loadSystemPropertyOrDefault(propertyName, propertyName);
-            if (!propertyName.equals(systemProperty)) return systemProperty;
-
-            value = PROFILE_PROPERTIES.getProperty(propertyName);
-            if (null == value) {
-                value = PROPERTIES.getProperty(propertyName);
-            }
+        if (Strings.isNullOrEmpty(propertyName)) {
+            return null;
+        }
+        String value = snapshot.get(propertyName);
+        if (value == null) {
+            PROPERTY_MISSES.increment();
+        } else {
+            PROPERTY_HITS.increment();
         }
         return value;
     }
 
+    /**
+     * Перестраивает снимок свойств.
+     * Вызывается после изменения системных свойств в рантайме через System.setProperty/System.clearProperty
+     * (например, в ProxySteps), иначе {@link #tryLoadProperty(String)} продолжит возвращать прежние значения.
+     */
+    public static void refreshProperties() {
+        snapshot = createSnapshot();
+        log.debug("Снимок свойств обновлён, ключей: {}", snapshot.size());
+    }
+
+    /**
+     * @return количество обращений к {@link #tryLoadProperty(String)}, для которых свойство было найдено
+     */
+    public static long getPropertyHits() {
+        return PROPERTY_HITS.sum();
+    }
+
+    /**
+     * @return количество обращений к {@link #tryLoadProperty(String)}, для которых свойство не найдено
+     */
+    public static long getPropertyMisses() {
+        return PROPERTY_MISSES.sum();
+    }
+
+    private static PropertySnapshot createSnapshot() {
+        return PropertySnapshot.of(System.getProperties(), PROFILE_PROPERTIES, PROPERTIES);
+    }
+
 
     /**
      * Вспомогательный метод, возвращает значение свойства по имени.
      */
     public static String loadValueFromFileOrVariableOrDefault(String valueToFind) {
-        String pathAsString = StringUtils.EMPTY;
-        try {
-            Path path = Paths.get(System.getProperty("user.dir", "."))
-                    .resolve(valueToFind);
-            pathAsString = path.toString();
-            String fileValue = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
-            log.debug("Значение из файла {} = {}", valueToFind, fileValue);
-            return fileValue;
-        } catch (IOException | InvalidPathException e) {
-            log.debug("Значение не найдено по пути {}", pathAsString);
+        ValueReference reference = ValueReference.parseBraced(valueToFind);
+        if (reference != null) {
+            return requireReferencedValue(reference);
         }
-        // Попытка загрузить значение как ресурс из classpath (src/test/resources, src/main/resources и т.п.)
-        String resourcePath = valueToFind.startsWith("/") ? valueToFind.substring(1) : valueToFind;
-        try {
-            InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath);
-            if (is == null) {
-                is = PropertyLoader.class.getClassLoader().getResourceAsStream(resourcePath);
-            }
-            if (is != null) {
-                try (InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
-                    String fileValue = readAll(reader);
-                    log.debug("Значение из classpath ресурса {} = {}", valueToFind, fileValue);
-                    return fileValue;
-                }
-            }
-        } catch (IOException e) {
-            log.warn("Ошибка чтения classpath ресурса " + valueToFind, e);
+        if (STRICT_RESOLUTION) {
+            return valueToFind;
+        }
+        String fileValue = loadValueFromFileOrResource(valueToFind);
+        if (fileValue != null) {
+            return fileValue;
         }
         if (CoreScenario.getInstance().tryGetVar(valueToFind) != null) {
             Object var = CoreScenario.getInstance().getVar(valueToFind);
@@ -214,42 +241,27 @@ public class PropertyLoader {
      * Получает значение из properties, файла по переданному пути, значение из хранилища переменных или как String аргумент
      * Используется для получение body.json api шагах, либо для получения script.js в ui шагах
      *
+     * Явная ссылка вида {file:path}, {res:path}, {prop:key} или {var:name} разрешается только из указанного источника.
+     *
      * @param valueToFind - ключ к значению в properties, путь к файлу c нужным значением, значение как String
      * @return значение как String
      */
     public static String loadValueFromFileOrPropertyOrVariableOrDefault(String valueToFind) {
-        String pathAsString = StringUtils.EMPTY;
+        ValueReference reference = ValueReference.parseBraced(valueToFind);
+        if (reference != null) {
+            return requireReferencedValue(reference);
+        }
+        if (STRICT_RESOLUTION) {
+            return valueToFind;
+        }
         String propertyValue = tryLoadProperty(valueToFind);
         if (StringUtils.isNotBlank(propertyValue)) {
             log.debug("Значение переменной: {} из {} = {}", valueToFind, PROPERTIES_FILE, propertyValue);
             return propertyValue;
         }
-        try {
-            Path path = Paths.get(System.getProperty("user.dir", "."))
-                    .resolve(valueToFind);
-            pathAsString = path.toString();
-            String fileValue = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
-            log.debug("Значение из файла {} = {}", valueToFind, fileValue);
+        String fileValue = loadValueFromFileOrResource(valueToFind);
+        if (fileValue != null) {
             return fileValue;
-        } catch (IOException | InvalidPathException e) {
-            log.debug("Значение не найдено по пути: {}", pathAsString);
-        }
-        // Попытка загрузить значение как ресурс из classpath (src/test/resources, src/main/resources и т.п.)
-        String resourcePath = valueToFind.startsWith("/") ? valueToFind.substring(1) : valueToFind;
-        try {
-            InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath);
-            if (is == null) {
-                is = PropertyLoader.class.getClassLoader().getResourceAsStream(resourcePath);
-            }
-            if (is != null) {
-                try (InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
-                    String fileValue = readAll(reader);
-                    log.debug("Значение из classpath ресурса {} = {}", valueToFind, fileValue);
-                    return fileValue;
-                }
-            }
-        } catch (IOException e) {
-            log.warn("Ошибка чтения classpath ресурса " + valueToFind, e);
         }
         if (CoreScenario.getInstance().tryGetVar(valueToFind) != null) {
             Object var = CoreScenario.getInstance().getVar(valueToFind);
@@ -263,6 +275,83 @@ public class PropertyLoader {
         return valueToFind;
     }
 
+    /**
+     * Возвращает содержимое файла (путь относительно user.dir) или classpath-ресурса
+     * (src/test/resources, src/main/resources и т.п.), если они существуют.
+     * Содержимое и отсутствие ресурсов кэшируются в {@link ResourceContentCache}.
+     *
+     * @param valueToFind путь к файлу или имя ресурса
+     * @return содержимое или {@code null}, если ни файл, ни ресурс не найдены
+     */
+    public static String loadValueFromFileOrResource(String valueToFind) {
+        try {
+            String fileValue = ResourceContentCache.readFile(valueToFind);
+            if (fileValue != null) {
+                log.debug("Значение из файла {} = {}", valueToFind, fileValue);
+                return fileValue;
+            }
+        } catch (IOException e) {
+            log.debug("Значение не найдено по пути: {}", valueToFind);
+        }
+        try {
+            String resourceValue = ResourceContentCache.readClasspathResource(valueToFind);
+            if (resourceValue != null) {
+                log.debug("Значение из classpath ресурса {} = {}", valueToFind, resourceValue);
+                return resourceValue;
+            }
+        } catch (IOException e) {
+            log.warn("Ошибка чтения classpath ресурса " + valueToFind, e);
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает значение по явной ссылке только из указанного в ней источника
+     *
+     * @param reference явная ссылка на источник
+     * @return значение или {@code null}, если в источнике значение не найдено
+     */
+    public static String loadReferencedValue(ValueReference reference) {
+        String name = reference.getName();
+        switch (reference.getSource()) {
+            case PROPERTY:
+                return tryLoadProperty(name);
+            case VARIABLE: {
+                Object var = CoreScenario.getInstance().tryGetVar(name);
+                return var == null || var instanceof String ? (String) var : String.valueOf(var);
+            }
+            case FILE:
+                try {
+                    return ResourceContentCache.readFile(name);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Ошибка чтения файла " + name, e);
+                }
+            case RESOURCE:
+                try {
+                    return ResourceContentCache.readClasspathResource(name);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Ошибка чтения classpath ресурса " + name, e);
+                }
+            default:
+                throw new IllegalArgumentException("Неизвестный источник значения: " + reference.getSource());
+        }
+    }
+
+    /**
+     * Возвращает значение по явной ссылке, если значение не найдено, будет выброшено исключение
+     *
+     * @param reference явная ссылка на источник
+     * @return значение из указанного источника
+     */
+    public static String requireReferencedValue(ValueReference reference) {
+        String value = loadReferencedValue(reference);
+        if (value == null) {
+            throw new IllegalArgumentException("Не найдено значение по ссылке " + reference);
+        }
+        log.debug("Значение по ссылке {} = {}", reference, value);
+        return value;
+    }
+
     /**
      * Циклически подставляет параметры из properties, содержимое файла по переданному пути,
      * значение из хранилища переменных или как String аргумент
@@ -270,6 +359,7 @@ public class PropertyLoader {
      * @param processingValue - строка, содержащая в фигурных скобках ключи к значению в properties, переменные сценариев,
      *                        названия путей к файлам c нужным значением, значения как строки. Пример:
      *                        123{var_name} 456{prop_name} 789{file_path_from_project_root}
+     *                        Явные ссылки {file:path}, {res:path}, {prop:key}, {var:name} разрешаются без перебора источников
      * @return значение как String после всевозможных замен
      */
     public static String cycleSubstitutionFromFileOrPropertyOrVariable(String processingValue) {
@@ -282,8 +372,14 @@ public class PropertyLoader {
             }
             for (String match : matches) {
                 String oldValue = match.substring(1, match.length() - 1);
-                String newValue = loadValueFromFileOrPropertyOrVariableOrDefault(oldValue);
-                if (!oldValue.equals(newValue)) {
+                ValueReference reference = ValueReference.parse(oldValue);
+                String newValue;
+                if (reference != null) {
+                    newValue = requireReferencedValue(reference);
+                } else {
+                    newValue = STRICT_RESOLUTION ? null : loadValueFromFileOrPropertyOrVariableOrDefault(oldValue);
+                }
+                if (newValue != null && !oldValue.equals(newValue)) {
                     processingValue = processingValue.replace(match, newValue);
                 }
             }
@@ -418,16 +514,6 @@ public class PropertyLoader {
         return result;
     }
 
-    private static String readAll(InputStreamReader reader) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        char[] buffer = new char[4096];
-        int read;
-        while ((read = reader.read(buffer)) != -1) {
-            sb.append(buffer, 0, read);
-        }
-        return sb.toString();
-    }
-
     /**
      * Загружает обязательное строковое свойство (system/profile/application.properties).
      * Если свойство не найдено или пустое, выбрасывается IllegalArgumentException.
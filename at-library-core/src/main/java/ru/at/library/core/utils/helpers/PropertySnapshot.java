@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Неизменяемый объединённый снимок свойств: системные свойства JVM, свойства профиля и базового properties-файла.
+ * <p>
+ * Приоритет совпадает с {@link PropertyLoader#tryLoadProperty(String)}:
+ * system &gt; profile &gt; application.properties.
+ * Снимок строится один раз, после чего чтение выполняется без блокировок.
+ * Отсутствие ключа в снимке является окончательным ответом до следующего {@link PropertyLoader#refreshProperties()},
+ * поэтому промахи не требуют повторного обхода трёх источников.
+ */
+final class PropertySnapshot {
+
+    private final Map<String, String> values;
+
+    private PropertySnapshot(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static PropertySnapshot of(Properties system, Properties profile, Properties base) {
+        Map<String, String> merged = new HashMap<>(base.size() + profile.size() + system.size());
+        copy(base, merged);
+        copy(profile, merged);
+        for (String name : system.stringPropertyNames()) {
+            String value = system.getProperty(name);
+            // Сохраняем прежнее поведение: системное свойство, значение которого совпадает с именем, игнорируется
+            if (value != null && !name.equals(value)) {
+                merged.put(name, value);
+            }
+        }
+        return new PropertySnapshot(Map.copyOf(merged));
+    }
+
+    private static void copy(Properties source, Map<String, String> target) {
+        for (String name : source.stringPropertyNames()) {
+            String value = source.getProperty(name);
+            if (value != null) {
+                target.put(name, value);
+            }
+        }
+    }
+
+    String get(String name) {
+        return values.get(name);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш содержимого файлов и classpath-ресурсов, используемый при разрешении аргументов шагов
+ * ({@link PropertyLoader#loadValueFromFileOrPropertyOrVariableOrDefault(String)} и т.п.).
+ * <p>
+ * - содержимое файлов хранится по абсолютному пути (LRU, ограничение по суммарному размеру),
+ * запись считается устаревшей при изменении времени модификации или размера файла;
+ * - содержимое classpath-ресурсов хранится по загрузчику и имени ресурса, ресурсы из файловой системы
+ * (например, target/test-classes) также проверяются по времени модификации;
+ * - отрицательные результаты поиска в classpath запоминаются отдельно для каждого загрузчика классов,
+ * так как поиск отсутствующего ресурса требует обхода всего classpath;
+ * - кэшируется уже декодированная строка, поэтому повторное чтение большого тела запроса не требует
+ * ни чтения файла, ни декодирования; вес записи пропорционален размеру содержимого.
+ * <p>
+ * Настройки (системные свойства):
+ * core.resolve.cache.maxBytes - суммарный размер кэша содержимого, по умолчанию 64 МБ;
+ * core.resolve.cache.maxEntryBytes - максимальный размер кэшируемого файла, по умолчанию четверть maxBytes;
+ * core.resolve.cache.negativeMaxSize - максимальное число запоминаемых отсутствующих ресурсов, по умолчанию 10000.
+ */
+@Log4j2
+public final class ResourceContentCache {
+
+    private static final long MAX_BYTES = Long.getLong("core.resolve.cache.maxBytes", 64L * 1024 * 1024);
+    private static final long MAX_ENTRY_BYTES = Long.getLong("core.resolve.cache.maxEntryBytes", MAX_BYTES / 4);
+    private static final long NEGATIVE_MAX_SIZE = Long.getLong("core.resolve.cache.negativeMaxSize", 10_000L);
+
+    /**
+     * Максимальная длина строки, которую имеет смысл проверять как путь к файлу.
+     * Более длинные значения (тела запросов, многострочный текст) путём заведомо не являются.
+     */
+    private static final int MAX_PATH_LENGTH = 4096;
+
+    /**
+     * Один сегмент: иначе Guava делит maximumWeight между сегментами, и крупная запись вытесняется сразу после записи
+     */
+    private static final Cache<Object, Entry> CONTENT = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(MAX_BYTES)
+            .weigher((Object key, Entry entry) -> entry.weight())
+            .build();
+
+    /**
+     * Отсутствующие ресурсы: загрузчик классов -> множество имён ресурсов.
+     * Загрузчики хранятся по слабым ссылкам, чтобы не удерживать их после выгрузки.
+     */
+    private static final Cache<ClassLoader, Cache<String, Boolean>> MISSING_RESOURCES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private ResourceContentCache() {
+    }
+
+    /**
+     * Возвращает содержимое файла по пути относительно user.dir или {@code null}, если файла нет
+     *
+     * @param value путь к файлу
+     * @return содержимое файла в UTF-8 или {@code null}
+     * @throws IOException ошибка чтения существующего файла
+     */
+    public static String readFile(String value) throws IOException {
+        if (!isPathCandidate(value)) {
+            return null;
+        }
+        Path path;
+        try {
+            path = Paths.get(System.getProperty("user.dir", ".")).resolve(value).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        return readPath(path, path);
+    }
+
+    /**
+     * Возвращает содержимое classpath-ресурса или {@code null}, если ресурс не найден.
+     * Поиск выполняется сначала в context classloader текущего потока, затем в загрузчике библиотеки.
+     *
+     * @param value имя ресурса, ведущий "/" игнорируется
+     * @return содержимое ресурса в UTF-8 или {@code null}
+     * @throws IOException ошибка чтения найденного ресурса
+     */
+    public static String readClasspathResource(String value) throws IOException {
+        if (!isPathCandidate(value)) {
+            return null;
+        }
+        String resourcePath = value.startsWith("/") ? value.substring(1) : value;
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader loader = contextLoader != null ? contextLoader : PropertyLoader.class.getClassLoader();
+
+        Cache<String, Boolean> missing = missingResources(loader);
+        if (missing.getIfPresent(resourcePath) != null) {
+            return null;
+        }
+        URL url = loader.getResource(resourcePath);
+        if (url == null && loader != PropertyLoader.class.getClassLoader()) {
+            url = PropertyLoader.class.getClassLoader().getResource(resourcePath);
+        }
+        if (url == null) {
+            missing.put(resourcePath, Boolean.TRUE);
+            return null;
+        }
+
+        if ("file".equals(url.getProtocol())) {
+            try {
+                Path path = Paths.get(url.toURI());
+                String content = readPath(new ResourceKey(loader, resourcePath), path);
+                if (content != null) {
+                    return content;
+                }
+            } catch (URISyntaxException | InvalidPathException e) {
+                log.debug("Не удалось преобразовать URL ресурса {} в путь, ресурс будет прочитан как поток", url);
+            }
+        }
+
+        // Ресурс внутри jar неизменен в рамках прогона, проверка актуальности не требуется
+        ResourceKey key = new ResourceKey(loader, resourcePath);
+        Entry cached = CONTENT.getIfPresent(key);
+        if (cached != null) {
+            return cached.content;
+        }
+        String content;
+        try (InputStream is = url.openStream()) {
+            content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (content.length() <= MAX_ENTRY_BYTES) {
+            CONTENT.put(key, new Entry(content, -1L, -1L));
+        }
+        return content;
+    }
+
+    /**
+     * Очищает кэш содержимого и отрицательных результатов
+     */
+    public static void clear() {
+        CONTENT.invalidateAll();
+        MISSING_RESOURCES.invalidateAll();
+    }
+
+    private static String readPath(Object key, Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            CONTENT.invalidate(key);
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry cached = CONTENT.getIfPresent(key);
+        if (cached != null && cached.modified == modified && cached.size == size) {
+            return cached.content;
+        }
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        if (size <= MAX_ENTRY_BYTES) {
+            CONTENT.put(key, new Entry(content, modified, size));
+        } else {
+            CONTENT.invalidate(key);
+        }
+        return content;
+    }
+
+    private static Cache<String, Boolean> missingResources(ClassLoader loader) {
+        try {
+            return MISSING_RESOURCES.get(loader, () -> CacheBuilder.newBuilder()
+                    .maximumSize(NEGATIVE_MAX_SIZE)
+                    .expireAfterAccess(1, TimeUnit.HOURS)
+                    .build());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static boolean isPathCandidate(String value) {
+        return value != null
+                && !value.isEmpty()
+                && value.length() <= MAX_PATH_LENGTH
+                && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0;
+    }
+
+    private static final class Entry {
+        final String content;
+        final long modified;
+        final long size;
+
+        private Entry(String content, long modified, long size) {
+            this.content = content;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        int weight() {
+            return (int) Math.min(Integer.MAX_VALUE, 2L * content.length() + 64);
+        }
+    }
+
+    private static final class ResourceKey {
+        final ClassLoader loader;
+        final String name;
+
+        private ResourceKey(ClassLoader loader, String name) {
+            this.loader = loader;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ResourceKey)) return false;
+            ResourceKey that = (ResourceKey) o;
+            return loader == that.loader && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(loader) + name.hashCode();
+        }
+    }
+}
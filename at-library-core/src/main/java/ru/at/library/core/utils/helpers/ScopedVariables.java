@@ -12,16 +12,16 @@
 package ru.at.library.core.utils.helpers;
 
 import com.google.common.collect.Maps;
-import groovy.lang.GroovyShell;
+import groovy.lang.Binding;
 import lombok.extern.log4j.Log4j2;
 import ru.at.library.core.cucumber.api.CoreScenario;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static java.lang.String.format;
 import static ru.at.library.core.utils.helpers.PropertyLoader.loadProperty;
 
 /**
@@ -31,13 +31,21 @@ import static ru.at.library.core.utils.helpers.PropertyLoader.loadProperty;
 public class ScopedVariables {
 
     public static final String CURVE_BRACES_PATTERN = "\\{([^{}]+)\\}";
-    private Map<String, Object> variables = Maps.newHashMap();
+    /**
+     * Максимальное число повторных проходов подстановки (защита от циклических ссылок вида a={b}, b={a})
+     */
+    private static final int MAX_RESOLVE_DEPTH = 32;
+    /**
+     * Хранилище может использоваться из нескольких потоков сценария (см. ScenarioContext), поэтому доступ синхронизирован
+     */
+    private final Map<String, Object> variables = Collections.synchronizedMap(Maps.newHashMap());
 
     /**
      * Проверяет заданную строку на возможность подставновки параметров.
      * В случае нахождения параметра в строке заменяет его значение на значение из properties или хранилища переменных.
      * Пример: в файле property есть запись: 'prop.value = test'
      * При обработке строки: 'some_{prop.value}' будет получена строка: 'some_test'
+     * Явные ссылки {prop:key}, {var:name}, {file:path}, {res:path} разрешаются только из указанного источника
      *
      * @param inputString       заданная строка
      * @return                  новая строка
@@ -46,48 +54,156 @@ public class ScopedVariables {
         if (inputString == null || inputString.isEmpty()) {
             return inputString;
         }
-        log.debug(format("Проверка строки %s на возможность подстановки параметров", inputString));
-        Pattern p = Pattern.compile(CURVE_BRACES_PATTERN);
-        Matcher m = p.matcher(inputString);
-        String newString = "";
-        while (m.find()) {
-            String varName = m.group(1);
-            String value = loadProperty(varName, (String) CoreScenario.getInstance().tryGetVar(varName));
-            if (value == null) {
-                log.debug(format("Значение %s не было найдено ни в properties, ни в environment переменной", varName));
-                newString = m.replaceFirst("__[__" + m.group(1) + "__]__");
-            } else {
-                newString = m.replaceFirst(value);
-            }
-            m = p.matcher(newString);
+        log.debug("Проверка строки {} на возможность подстановки параметров", inputString);
+        PlaceholderTemplate template = PlaceholderTemplate.compile(inputString);
+        if (!template.hasPlaceholders()) {
+            return inputString;
         }
-        newString = newString.replaceAll("__\\[__", "{").replaceAll("__\\]__", "}");
-        if (newString.isEmpty()) {
-            newString = inputString;
-        } else {
-            log.debug(format("Найден параметр для подстановки. Новое значение строки %s = %s", inputString, newString));
+        boolean[] needsReparse = new boolean[1];
+        String newString = template.render(ScopedVariables::resolveVar, needsReparse);
+        // Подставленное значение может само содержать параметры: разбираем результат повторно,
+        // но уже без кэширования, т.к. промежуточные строки не повторяются
+        for (int depth = 1; needsReparse[0]; depth++) {
+            if (depth > MAX_RESOLVE_DEPTH) {
+                log.warn("Превышена глубина подстановки параметров ({}) для строки {}", MAX_RESOLVE_DEPTH, inputString);
+                break;
+            }
+            template = PlaceholderTemplate.parse(newString);
+            if (!template.hasPlaceholders()) {
+                break;
+            }
+            newString = template.render(ScopedVariables::resolveVar, needsReparse);
         }
+        newString = PlaceholderTemplate.restoreUnresolved(newString);
+        log.debug("Найден параметр для подстановки. Новое значение строки {} = {}", inputString, newString);
         return newString;
     }
 
+    private static String resolveVar(String varName) {
+        ValueReference reference = ValueReference.parse(varName);
+        if (reference != null) {
+            // Явная ссылка указывает единственный источник: если значения нет, это ошибка, а не литерал
+            return PropertyLoader.requireReferencedValue(reference);
+        }
+        if (PropertyLoader.STRICT_RESOLUTION) {
+            return null;
+        }
+        String value = loadProperty(varName, (String) CoreScenario.getInstance().tryGetVar(varName));
+        if (value == null) {
+            log.debug("Значение {} не было найдено ни в properties, ни в environment переменной", varName);
+        }
+        return value;
+    }
+
     /**
      * @param expression java/groovy-код, который будет выполнен
      *                   Компилирует и выполняет в рантайме переданный на вход java/groovy-код.
-     *                   Предварительно загружает в память все переменные,
-     *                   т.е. на вход в строковом аргументе могут быть переданы переменные из "variables"
+     *                   Предварительно загружает в память переменные, на которые ссылается выражение,
+     *                   т.е. на вход в строковом аргументе могут быть переданы переменные из "variables".
+     *                   Скомпилированные классы скриптов кэшируются по тексту выражения (см. {@link GroovyScriptCache})
      */
     public Object evaluate(String expression) {
-        GroovyShell shell = new GroovyShell();
-        variables.entrySet().forEach(e -> {
-            try {
-                shell.setVariable(e.getKey(), new BigDecimal(e.getValue().toString()));
-            } catch (NumberFormatException exp) {
-                shell.setVariable(e.getKey(), e.getValue());
+        GroovyScriptCache.CompiledScript compiled = GroovyScriptCache.compile(expression);
+        Binding binding = new Binding();
+        for (String name : compiled.getIdentifiers()) {
+            Object value = variables.get(name);
+            if (value != null || variables.containsKey(name)) {
+                binding.setVariable(name, toEvaluationValue(value));
             }
-        });
-        return shell.evaluate(expression);
+        }
+        return compiled.run(binding);
     }
 
+    /**
+     * Числовые значения (числа и строки с записью числа) передаются в скрипт как BigDecimal,
+     * чтобы арифметика и сравнения работали одинаково для строк и чисел. Остальные значения передаются как есть.
+     */
+    static Object toEvaluationValue(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return value;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            return Double.isFinite(number) ? new BigDecimal(value.toString()) : value;
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        if (value instanceof CharSequence && isDecimal((CharSequence) value)) {
+            return new BigDecimal(value.toString());
+        }
+        return value;
+    }
+
+    /**
+     * Проверка, что строка является корректной записью для {@link BigDecimal#BigDecimal(String)}:
+     * [+-] цифры [. цифры] [e|E [+-] цифры], без исключений в качестве управления потоком
+     */
+    static boolean isDecimal(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && Character.isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && value.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < length && Character.isDigit(value.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0 || exponentDigits > 9) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    /**
+     * Очищает кэш скомпилированных выражений {@link #evaluate(String)}
+     */
+    public static void clearScriptCache() {
+        GroovyScriptCache.clear();
+    }
+
+    /**
+     * Приблизительная оценка памяти, удерживаемой каждой переменной (см. {@link VariableSizeEstimator})
+     *
+     * @return имя переменной -> размер в байтах, по убыванию размера
+     */
+    public Map<String, Long> estimateRetainedSizes() {
+        Map<String, Object> copy;
+        synchronized (variables) {
+            copy = new HashMap<>(variables);
+        }
+        Map<String, Long> sizes = new HashMap<>(copy.size());
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            sizes.put(entry.getKey(), VariableSizeEstimator.estimate(entry.getValue()));
+        }
+        Map<String, Long> sorted = new LinkedHashMap<>(sizes.size());
+        sizes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
 
     public void put(String name, Object value) {
         variables.put(name, value);
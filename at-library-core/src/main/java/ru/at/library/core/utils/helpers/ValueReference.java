@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+/**
+ * Явная ссылка на источник значения аргумента шага.
+ * <p>
+ * Поддерживаемые формы: {@code {file:path}}, {@code {res:json/x.json}}, {@code {prop:key}}, {@code {var:name}}.
+ * В отличие от обычного аргумента, значение берётся только из указанного источника,
+ * без последовательного перебора properties, файловой системы, classpath и хранилища переменных.
+ */
+public final class ValueReference {
+
+    /**
+     * Источник значения
+     */
+    public enum Source {
+        /** Файл относительно user.dir */
+        FILE("file"),
+        /** Ресурс из classpath */
+        RESOURCE("res"),
+        /** Свойство из system/profile/properties */
+        PROPERTY("prop"),
+        /** Переменная сценария */
+        VARIABLE("var");
+
+        private final String prefix;
+
+        Source(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+    }
+
+    private final Source source;
+    private final String name;
+
+    private ValueReference(Source source, String name) {
+        this.source = source;
+        this.name = name;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Разбирает содержимое фигурных скобок вида {@code prefix:name}
+     *
+     * @param token строка без фигурных скобок
+     * @return ссылка или {@code null}, если префикс не указан или неизвестен
+     */
+    public static ValueReference parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int colon = token.indexOf(':');
+        if (colon <= 0 || colon == token.length() - 1) {
+            return null;
+        }
+        String prefix = token.substring(0, colon);
+        for (Source source : Source.values()) {
+            if (source.prefix.equals(prefix)) {
+                return new ValueReference(source, token.substring(colon + 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Разбирает аргумент целиком вида {@code {prefix:name}}
+     *
+     * @param value аргумент шага
+     * @return ссылка или {@code null}, если аргумент не является явной ссылкой
+     */
+    public static ValueReference parseBraced(String value) {
+        if (value == null || value.length() < 4 || value.charAt(0) != '{' || value.charAt(value.length() - 1) != '}') {
+            return null;
+        }
+        String token = value.substring(1, value.length() - 1);
+        if (token.indexOf('{') >= 0 || token.indexOf('}') >= 0) {
+            return null;
+        }
+        return parse(token);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + source.prefix + ":" + name + "}";
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.at.library.core.utils.helpers;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+/**
+ * Приблизительная оценка памяти, удерживаемой значением переменной сценария (в байтах).
+ * <p>
+ * Оцениваются строки, массивы, коллекции и словари (рекурсивно, с ограничением глубины).
+ * Для остальных типов используется оценка, зарегистрированная через {@link #register(Class, ToLongFunction)}
+ * (например, модуль api регистрирует оценку тела ответа RestAssured), иначе учитывается только заголовок объекта.
+ * Оценка предназначена для поиска самых «тяжёлых» переменных, а не для точного измерения.
+ */
+public final class VariableSizeEstimator {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int MAX_DEPTH = 4;
+    /**
+     * Количество символов, по которым определяется, хранится ли строка в Latin-1 (1 байт на символ) или UTF-16
+     */
+    private static final int CODER_SAMPLE = 1024;
+
+    private static final List<Estimator<?>> ESTIMATORS = new CopyOnWriteArrayList<>();
+
+    private VariableSizeEstimator() {
+    }
+
+    /**
+     * Регистрирует оценку размера для типа. Оценки, зарегистрированные позже, имеют приоритет.
+     *
+     * @param type      тип значения (учитываются и наследники)
+     * @param estimator оценка размера в байтах
+     */
+    public static <T> void register(Class<T> type, ToLongFunction<? super T> estimator) {
+        ESTIMATORS.add(0, new Estimator<>(type, estimator));
+    }
+
+    /**
+     * @return приблизительный размер значения в байтах
+     */
+    public static long estimate(Object value) {
+        return estimate(value, 0, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static long estimate(Object value, int depth, Set<Object> visited) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof String) {
+            return estimateString((String) value);
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            return OBJECT_HEADER;
+        }
+        if (!visited.add(value)) {
+            return 0L;
+        }
+        for (Estimator<?> estimator : ESTIMATORS) {
+            if (estimator.type.isInstance(value)) {
+                return estimator.apply(value);
+            }
+        }
+        if (value instanceof CharSequence) {
+            return STRING_OVERHEAD + 2L * ((CharSequence) value).length();
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return estimateArray(value, type.getComponentType(), depth, visited);
+        }
+        if (value instanceof Collection) {
+            long size = OBJECT_HEADER + 24;
+            for (Object element : (Collection<?>) value) {
+                size += REFERENCE + (depth < MAX_DEPTH ? estimate(element, depth + 1, visited) : 0L);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = OBJECT_HEADER + 32;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32;
+                if (depth < MAX_DEPTH) {
+                    size += estimate(entry.getKey(), depth + 1, visited) + estimate(entry.getValue(), depth + 1, visited);
+                }
+            }
+            return size;
+        }
+        return OBJECT_HEADER;
+    }
+
+    private static long estimateString(String value) {
+        int length = value.length();
+        int sample = Math.min(length, CODER_SAMPLE);
+        for (int i = 0; i < sample; i++) {
+            if (value.charAt(i) > 0xFF) {
+                return STRING_OVERHEAD + 2L * length;
+            }
+        }
+        return STRING_OVERHEAD + length;
+    }
+
+    private static long estimateArray(Object array, Class<?> componentType, int depth, Set<Object> visited) {
+        int length = Array.getLength(array);
+        if (componentType == byte.class || componentType == boolean.class) {
+            return OBJECT_HEADER + length;
+        }
+        if (componentType == char.class || componentType == short.class) {
+            return OBJECT_HEADER + 2L * length;
+        }
+        if (componentType == int.class || componentType == float.class) {
+            return OBJECT_HEADER + 4L * length;
+        }
+        if (componentType == long.class || componentType == double.class) {
+            return OBJECT_HEADER + 8L * length;
+        }
+        long size = OBJECT_HEADER + (long) REFERENCE * length;
+        if (depth < MAX_DEPTH) {
+            for (Object element : (Object[]) array) {
+                size += estimate(element, depth + 1, visited);
+            }
+        }
+        return size;
+    }
+
+    private static final class Estimator<T> {
+        private final Class<T> type;
+        private final ToLongFunction<? super T> function;
+
+        private Estimator(Class<T> type, ToLongFunction<? super T> function) {
+            this.type = type;
+            this.function = function;
+        }
+
+        long apply(Object value) {
+            try {
+                return Math.max(0L, function.applyAsLong(type.cast(value)));
+            } catch (RuntimeException e) {
+                return OBJECT_HEADER;
+            }
+        }
+    }
+}
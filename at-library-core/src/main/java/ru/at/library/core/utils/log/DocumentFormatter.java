@@ -1,25 +1,34 @@
 package ru.at.library.core.utils.log;
 
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import lombok.extern.log4j.Log4j2;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
-
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.Writer;
 
 
 /**
  * Преобразователь документов для просмотра
+ * <p>
+ * JSON и XML форматируются потоково: документ читается по токенам ({@link JsonReader}, StAX)
+ * и сразу записывается с отступами, без построения дерева в памяти. Вывод можно ограничить по длине -
+ * после достижения ограничения разбор прекращается и в конец добавляется отметка об обрезке.
+ * JSON разбирается строго и должен состоять ровно из одного значения; иначе выводится сообщение об ошибке
+ * и исходный текст без изменений.
+ * Фабрика StAX и буфер вывода создаются один раз на поток и освобождаются после каждого сценария.
+ * <p>
+ * Настройки (системные свойства):
+ * core.log.body.maxChars - ограничение длины тела запроса/ответа в логе (в символах), по умолчанию 65536, 0 - без ограничения.
  */
 @Log4j2
 public class DocumentFormatter {
@@ -27,22 +36,121 @@ public class DocumentFormatter {
     private static final String CONTENT_TYPE_XML = "text/xml";
     private static final String CONTENT_TYPE_JSON = "application/json";
 
+    /**
+     * Ограничение длины документа в логе, по умолчанию 64К символов
+     */
+    public static final int LOG_MAX_CHARS = Integer.getInteger("core.log.body.maxChars", 64 * 1024);
+
+    private static final String XML_INDENT = "    ";
+    private static final String JSON_INDENT = "  ";
+
+    /**
+     * Буфер вывода потока переиспользуется, если не разросся больше этого размера
+     */
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    });
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    /**
+     * Освобождение фабрики StAX и буфера вывода текущего потока по завершении сценария
+     */
+    public static void releaseThreadState() {
+        XML_INPUT_FACTORY.remove();
+        BUFFER.remove();
+    }
+
     /**
      * @param input строка, содержащая json
      * @return выровненный для просмотра документ или текст ошибки
      * преобразования
      * преобразование json к "красивому" виду
      */
-    private static String createPrettyPrintJson(String input) {
+    private static String createPrettyPrintJson(String input, int maxChars) {
         if (input.isEmpty()) {
             return ""; //**QUIT**
         }
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        CountingReader source = new CountingReader(new StringReader(input));
+        LimitedWriter target = new LimitedWriter(buffer(), maxChars);
         try {
-            JsonElement obj = new JsonParser().parse(input);
-            return gson.toJson(obj); //**QUIT**
-        } catch (JsonParseException ex) {
-            return "Error pretty printing json:\n" + ex.getMessage();
+            JsonReader reader = new JsonReader(source);
+            reader.setStrictness(Strictness.STRICT);
+            JsonWriter writer = new JsonWriter(target);
+            writer.setIndent(JSON_INDENT);
+            writer.setHtmlSafe(false);
+            writer.setSerializeNulls(true);
+            copyJson(reader, writer);
+            writer.flush();
+            return target.toString(); //**QUIT**
+        } catch (LimitReachedException ex) {
+            return target.truncated(input.length() - source.count);
+        } catch (IOException | RuntimeException ex) {
+            // Невалидный JSON выводится как есть, чтобы в логе было видно, что именно пришло
+            String raw = maxChars > 0 && input.length() > maxChars
+                    ? input.substring(0, maxChars) + truncationMarker(input.length() - maxChars)
+                    : input;
+            return "Error pretty printing json:\n" + ex.getMessage() + "\n" + raw;
+        }
+    }
+
+    /**
+     * Копирует ровно одно значение верхнего уровня; после него документ должен заканчиваться
+     */
+    private static void copyJson(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    writer.name(reader.nextName());
+                    break;
+                case STRING:
+                    writer.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    // Число переносится как есть, без преобразования к double
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                case END_DOCUMENT:
+                default:
+                    throw new MalformedJsonException("Документ закончился до завершения JSON-значения");
+            }
+        } while (depth > 0);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("После JSON-значения есть лишние данные " + reader.getPath());
         }
     }
 
@@ -52,20 +160,25 @@ public class DocumentFormatter {
      * преобразования
      * преобразование xml к "красивому" виду
      */
-    private static String createPrettyPrintXml(String input) {
-        Source xmlInput = new StreamSource(new StringReader(input));
-        StringWriter stringWriter = new StringWriter();
+    private static String createPrettyPrintXml(String input, int maxChars) {
+        CountingReader source = new CountingReader(new StringReader(input));
+        LimitedWriter target = new LimitedWriter(buffer(), maxChars);
+        XMLStreamReader reader = null;
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-            transformer.transform(xmlInput, new StreamResult(stringWriter));
-
-            return stringWriter.toString().trim();
+            reader = XML_INPUT_FACTORY.get().createXMLStreamReader(source);
+            new XmlPrinter(reader, target).print();
+            return target.toString().trim();
+        } catch (LimitReachedException ex) {
+            return target.truncated(input.length() - source.count);
         } catch (Exception ex) {
             return "Error pretty printing xml:\n" + ex.getMessage();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
         }
     }
 
@@ -77,18 +190,307 @@ public class DocumentFormatter {
      * преобразование документа к "красивому" виду
      */
     public static String createPrettyPrint(String input, String contType) {
-        if (contType == null) {
-            return input;
-        }
-        String typeOnly = contType.split(";")[0];
-        switch (typeOnly) {
-            case CONTENT_TYPE_XML:
-                return createPrettyPrintXml(input);
-            case CONTENT_TYPE_JSON:
-                return createPrettyPrintJson(input);
-            default:
-                return input;
+        return createPrettyPrint(input, contType, 0);
+    }
+
+    /**
+     * Преобразование документа к "красивому" виду с ограничением длины результата
+     *
+     * @param input    документ
+     * @param contType тип содержимого
+     * @param maxChars максимальная длина результата (без отметки об обрезке), 0 - без ограничения
+     */
+    public static String createPrettyPrint(String input, String contType, int maxChars) {
+        if (input == null) {
+            return null;
+        }
+        String typeOnly = contType == null ? "" : contType.split(";")[0].trim().toLowerCase();
+        if (CONTENT_TYPE_XML.equals(typeOnly) || typeOnly.endsWith("/xml") || typeOnly.endsWith("+xml")) {
+            return createPrettyPrintXml(input, maxChars);
         }
+        if (CONTENT_TYPE_JSON.equals(typeOnly) || typeOnly.endsWith("+json")) {
+            return createPrettyPrintJson(input, maxChars);
+        }
+        if (maxChars > 0 && input.length() > maxChars) {
+            return input.substring(0, maxChars) + truncationMarker(input.length() - maxChars);
+        }
+        return input;
     }
-}
 
+    /**
+     * Преобразование документа для вывода в лог с ограничением {@code core.log.body.maxChars}
+     */
+    public static String formatForLog(String input, String contType) {
+        return createPrettyPrint(input, contType, LOG_MAX_CHARS);
+    }
+
+    private static String truncationMarker(long remainingChars) {
+        return String.format("%n... [обрезано, не показано ~%d символов документа]", Math.max(0L, remainingChars));
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            sb = new StringBuilder(1024);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
+
+    /**
+     * Вывод XML с отступами по событиям StAX. Элементы, содержащие только текст, выводятся в одну строку,
+     * пустые элементы - в сокращённой форме.
+     */
+    private static final class XmlPrinter {
+        private final XMLStreamReader reader;
+        private final Writer out;
+        private int depth;
+        /**
+         * Открывающий тег записан без закрывающей скобки (элемент может оказаться пустым)
+         */
+        private boolean startTagOpen;
+        /**
+         * В текущем элементе был текст - закрывающий тег пишется в той же строке
+         */
+        private boolean inlineText;
+        private boolean started;
+
+        private XmlPrinter(XMLStreamReader reader, Writer out) {
+            this.reader = reader;
+            this.out = out;
+        }
+
+        void print() throws XMLStreamException, IOException {
+            if (reader.getVersion() != null) {
+                out.write("<?xml version=\"" + reader.getVersion() + "\"");
+                if (reader.getCharacterEncodingScheme() != null) {
+                    out.write(" encoding=\"" + reader.getCharacterEncodingScheme() + "\"");
+                }
+                if (reader.standaloneSet()) {
+                    out.write(reader.isStandalone() ? " standalone=\"yes\"" : " standalone=\"no\"");
+                }
+                out.write("?>");
+                started = true;
+            }
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        closeStartTag();
+                        newLine();
+                        writeStartElement();
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        if (startTagOpen) {
+                            out.write("/>");
+                            startTagOpen = false;
+                        } else {
+                            if (!inlineText) {
+                                newLine();
+                            }
+                            out.write("</" + qualifiedName() + ">");
+                        }
+                        inlineText = false;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        if (!reader.isWhiteSpace()) {
+                            closeStartTag();
+                            escape(reader.getText().trim(), false);
+                            inlineText = true;
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        closeStartTag();
+                        out.write("<![CDATA[" + reader.getText() + "]]>");
+                        inlineText = true;
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        closeStartTag();
+                        newLine();
+                        out.write("<!--" + reader.getText() + "-->");
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        closeStartTag();
+                        newLine();
+                        String data = reader.getPIData();
+                        out.write("<?" + reader.getPITarget() + (data == null || data.isEmpty() ? "" : " " + data) + "?>");
+                        break;
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        closeStartTag();
+                        out.write("&" + reader.getLocalName() + ";");
+                        inlineText = true;
+                        break;
+                    case XMLStreamConstants.DTD:
+                        newLine();
+                        out.write(reader.getText());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void writeStartElement() throws IOException {
+            out.write("<" + qualifiedName());
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                out.write(prefix == null || prefix.isEmpty() ? " xmlns=\"" : " xmlns:" + prefix + "=\"");
+                escape(reader.getNamespaceURI(i), true);
+                out.write('"');
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String prefix = reader.getAttributePrefix(i);
+                out.write(" " + (prefix == null || prefix.isEmpty() ? "" : prefix + ":") + reader.getAttributeLocalName(i) + "=\"");
+                escape(reader.getAttributeValue(i), true);
+                out.write('"');
+            }
+            startTagOpen = true;
+            inlineText = false;
+        }
+
+        private String qualifiedName() {
+            String prefix = reader.getPrefix();
+            return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+        }
+
+        private void closeStartTag() throws IOException {
+            if (startTagOpen) {
+                out.write('>');
+                startTagOpen = false;
+            }
+        }
+
+        private void newLine() throws IOException {
+            if (started) {
+                out.write('\n');
+            }
+            started = true;
+            for (int i = 0; i < depth; i++) {
+                out.write(XML_INDENT);
+            }
+        }
+
+        private void escape(String text, boolean attribute) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<':
+                        out.write("&lt;");
+                        break;
+                    case '>':
+                        out.write("&gt;");
+                        break;
+                    case '&':
+                        out.write("&amp;");
+                        break;
+                    case '"':
+                        out.write(attribute ? "&quot;" : "\"");
+                        break;
+                    default:
+                        out.write(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сигнал о достижении ограничения длины вывода (без стека вызовов)
+     */
+    private static final class LimitReachedException extends IOException {
+        private LimitReachedException() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Запись в буфер с ограничением длины
+     */
+    private static final class LimitedWriter extends Writer {
+        private final StringBuilder sb;
+        private final int maxChars;
+
+        private LimitedWriter(StringBuilder sb, int maxChars) {
+            this.sb = sb;
+            this.maxChars = maxChars > 0 ? maxChars : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (sb.length() >= maxChars) {
+                throw new LimitReachedException();
+            }
+            sb.append((char) c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            int free = maxChars - sb.length();
+            if (len > free) {
+                sb.append(str, off, off + free);
+                throw new LimitReachedException();
+            }
+            sb.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int free = maxChars - sb.length();
+            if (len > free) {
+                sb.append(cbuf, off, free);
+                throw new LimitReachedException();
+            }
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        String truncated(long remainingChars) {
+            return sb + truncationMarker(remainingChars);
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Подсчёт символов, прочитанных разборщиком (с точностью до его внутреннего буфера)
+     */
+    private static final class CountingReader extends Reader {
+        private final Reader delegate;
+        private long count;
+
+        private CountingReader(Reader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = delegate.read(cbuf, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
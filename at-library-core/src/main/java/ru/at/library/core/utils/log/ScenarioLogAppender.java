@@ -6,6 +6,7 @@ import org.apache.logging.log4j.status.StatusLogger;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.StringLayout;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.appender.AppenderLoggingException;
 import org.apache.logging.log4j.core.config.Configuration;
@@ -22,8 +23,8 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * Log4j2 плагин-аппендер, собирающий логи текущего потока в буфер.
- * Буфер инициализируется в начале сценария и считывается в конце
- * для прикладывания в Allure и записи в отдельный файл.
+ * Буфер ({@link ScenarioLogBuffer}) инициализируется в начале сценария и считывается в конце
+ * для прикладывания в Allure и записи в отдельный файл. Большие логи сбрасываются во временный файл.
  * <p>
  * <b>Рекомендуемый способ подключения</b> — через log4j2.xml потребителя:
  * <pre>{@code
@@ -43,6 +44,7 @@ import java.nio.charset.StandardCharsets;
  * <p>
  * Если аппендер не сконфигурирован в XML, {@link #installIfNeeded()} выполнит
  * программную инициализацию (фолбэк с ограниченной функциональностью).
+ * При профиле с записью логов сценариев в отдельные файлы ({@link ScenarioLogRouting}) буфер не используется.
  */
 @Plugin(name = "ScenarioLog", category = Core.CATEGORY_NAME,
         elementType = "appender", printObject = true)
@@ -54,8 +56,8 @@ public class ScenarioLogAppender extends AbstractAppender {
      */
     private static final StatusLogger STATUS_LOG = StatusLogger.getLogger();
 
-    /** Буфер логов для текущего потока выполнения (один поток = один сценарий). */
-    private static final ThreadLocal<StringBuilder> SCENARIO_LOG = new ThreadLocal<>();
+    /** Буфер логов для текущего потока выполнения (один поток = один сценарий), см. {@link ScenarioLogBuffer}. */
+    private static final ThreadLocal<ScenarioLogBuffer> SCENARIO_LOG = new ThreadLocal<>();
 
     private static volatile ScenarioLogAppender INSTANCE;
 
@@ -104,7 +106,7 @@ public class ScenarioLogAppender extends AbstractAppender {
      * Для полного сбора логов используйте конфигурацию через XML.
      */
     public static void installIfNeeded() {
-        if (INSTANCE != null) {
+        if (INSTANCE != null || ScenarioLogRouting.isActive()) {
             return;
         }
         synchronized (ScenarioLogAppender.class) {
@@ -147,36 +149,81 @@ public class ScenarioLogAppender extends AbstractAppender {
      * Вызывается в начале сценария — очищает и инициализирует буфер логов.
      */
     public static void startScenarioLogging() {
-        SCENARIO_LOG.set(new StringBuilder());
+        ScenarioLogBuffer previous = SCENARIO_LOG.get();
+        if (previous != null) {
+            previous.close();
+        }
+        SCENARIO_LOG.set(new ScenarioLogBuffer());
+    }
+
+    /**
+     * Возвращает буфер с накопленным логом текущего сценария и отвязывает его от потока.
+     * Вызывающий отвечает за закрытие буфера (удаление временного файла).
+     */
+    public static ScenarioLogBuffer takeScenarioLog() {
+        ScenarioLogBuffer buffer = SCENARIO_LOG.get();
+        SCENARIO_LOG.remove();
+        return buffer;
+    }
+
+    /**
+     * @return буфер лога сценария, привязанный к текущему потоку, или {@code null}
+     */
+    public static ScenarioLogBuffer currentScenarioLog() {
+        return SCENARIO_LOG.get();
+    }
+
+    /**
+     * Выполняет задачу так, что события текущего потока попадают в переданный буфер лога сценария,
+     * после чего восстанавливает прежнюю привязку. Используется вспомогательными потоками сценария.
+     *
+     * @param buffer буфер лога сценария или {@code null} (задача выполняется без привязки)
+     */
+    public static void runWithScenarioLog(ScenarioLogBuffer buffer, Runnable task) {
+        if (buffer == null) {
+            task.run();
+            return;
+        }
+        ScenarioLogBuffer previous = SCENARIO_LOG.get();
+        SCENARIO_LOG.set(buffer);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                SCENARIO_LOG.remove();
+            } else {
+                SCENARIO_LOG.set(previous);
+            }
+        }
     }
 
     /**
      * Возвращает накопленный лог текущего сценария и очищает буфер.
+     * Материализует весь лог в строку, для больших логов используйте {@link #takeScenarioLog()}.
      */
     public static String getAndClearScenarioLog() {
-        StringBuilder sb = SCENARIO_LOG.get();
-        if (sb == null) {
-            return null;
+        try (ScenarioLogBuffer buffer = takeScenarioLog()) {
+            return buffer != null ? buffer.toString() : null;
         }
-        String result = sb.toString();
-        SCENARIO_LOG.remove();
-        return result;
     }
 
     // ── Основной метод аппендера ──────────────────────────────────────
 
     @Override
     public void append(LogEvent event) {
-        StringBuilder sb = SCENARIO_LOG.get();
-        if (sb == null) {
+        ScenarioLogBuffer buffer = SCENARIO_LOG.get();
+        if (buffer == null) {
             return; // логгирование вне контекста сценария — пропускаем
         }
         try {
             Layout<? extends Serializable> layout = getLayout();
-            if (layout != null) {
-                sb.append(layout.toSerializable(event));
+            if (layout instanceof StringLayout && StandardCharsets.UTF_8.equals(((StringLayout) layout).getCharset())) {
+                // Кодирование выполняется самим layout'ом, без промежуточной строки
+                buffer.append(layout.toByteArray(event));
+            } else if (layout != null) {
+                buffer.append(String.valueOf(layout.toSerializable(event)));
             } else {
-                sb.append(event.getMessage().getFormattedMessage()).append("\n");
+                buffer.append(event.getMessage().getFormattedMessage() + "\n");
             }
         } catch (Exception e) {
             if (!ignoreExceptions()) {
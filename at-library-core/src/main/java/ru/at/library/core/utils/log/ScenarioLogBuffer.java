@@ -0,0 +1,269 @@
+package ru.at.library.core.utils.log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Буфер лога одного сценария.
+ * <p>
+ * Пока размер лога не превышает {@code core.scenarioLog.memoryLimitBytes} (по умолчанию 4 МБ),
+ * данные хранятся в памяти блоками фиксированного размера (без перевыделения одного большого массива).
+ * При превышении порога накопленное содержимое сбрасывается во временный файл, и дальнейшие записи идут в него.
+ * Лог читается потоково ({@link #writeTo(OutputStream)}, {@link #openStream()}) без сборки в одну строку.
+ * <p>
+ * Необязательное ограничение {@code core.scenarioLog.maxBytes} (по умолчанию 0 - без ограничения)
+ * задаёт максимальный размер лога сценария; события сверх него отбрасываются,
+ * а в конце лога выводится количество отброшенных байт.
+ * <p>
+ * Запись и чтение синхронизированы: кроме потока сценария в буфер пишут его вспомогательные потоки
+ * (см. {@link ScenarioLogAppender#runWithScenarioLog}).
+ * После {@link #close()} временный файл удаляется.
+ */
+public final class ScenarioLogBuffer implements Closeable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private static final long DEFAULT_MEMORY_LIMIT = Long.getLong("core.scenarioLog.memoryLimitBytes", 4L * 1024 * 1024);
+    private static final long DEFAULT_MAX_BYTES = Long.getLong("core.scenarioLog.maxBytes", 0L);
+
+    private final long memoryLimit;
+    private final long maxBytes;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] current = NO_BYTES;
+    private int position;
+
+    private long size;
+    private long droppedBytes;
+
+    private Path spillFile;
+    private OutputStream spillOut;
+    private boolean closed;
+
+    public ScenarioLogBuffer() {
+        this(DEFAULT_MEMORY_LIMIT, DEFAULT_MAX_BYTES);
+    }
+
+    ScenarioLogBuffer(long memoryLimit, long maxBytes) {
+        this.memoryLimit = Math.max(0L, memoryLimit);
+        this.maxBytes = Math.max(0L, maxBytes);
+    }
+
+    public void append(String text) {
+        if (text != null && !text.isEmpty()) {
+            append(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Добавляет в лог уже закодированные в UTF-8 байты
+     */
+    public synchronized void append(byte[] bytes) {
+        if (closed || bytes.length == 0) {
+            return;
+        }
+        if (maxBytes > 0 && size + bytes.length > maxBytes) {
+            droppedBytes += bytes.length;
+            return;
+        }
+        try {
+            if (spillOut == null && size + bytes.length > memoryLimit) {
+                spill();
+            }
+            if (spillOut != null) {
+                spillOut.write(bytes);
+            } else {
+                appendToChunks(bytes);
+            }
+            size += bytes.length;
+        } catch (IOException e) {
+            droppedBytes += bytes.length;
+        }
+    }
+
+    /**
+     * @return размер сохранённого лога в байтах
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && droppedBytes == 0;
+    }
+
+    /**
+     * @return {@code true}, если лог превысил порог памяти и хранится во временном файле
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Потоково записывает лог в переданный поток (поток не закрывается)
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        if (spillFile != null) {
+            spillOut.flush();
+            Files.copy(spillFile, out);
+        } else {
+            for (byte[] chunk : chunks) {
+                out.write(chunk);
+            }
+            out.write(current, 0, position);
+        }
+        byte[] marker = truncationMarker();
+        if (marker.length > 0) {
+            out.write(marker);
+        }
+    }
+
+    /**
+     * Записывает лог в канал файла. Содержимое, сброшенное во временный файл, копируется
+     * средствами {@link FileChannel#transferFrom} без промежуточных буферов в куче.
+     */
+    public synchronized void writeTo(FileChannel target) throws IOException {
+        if (spillFile != null) {
+            spillOut.flush();
+            try (FileChannel source = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+                long length = source.size();
+                long transferred = 0;
+                while (transferred < length) {
+                    transferred += target.transferFrom(source, target.position() + transferred, length - transferred);
+                }
+                target.position(target.position() + transferred);
+            }
+        } else {
+            for (byte[] chunk : chunks) {
+                writeFully(target, ByteBuffer.wrap(chunk));
+            }
+            writeFully(target, ByteBuffer.wrap(current, 0, position));
+        }
+        byte[] marker = truncationMarker();
+        if (marker.length > 0) {
+            writeFully(target, ByteBuffer.wrap(marker));
+        }
+    }
+
+    /**
+     * Открывает поток чтения лога. Поток должен быть прочитан до вызова {@link #close()}.
+     */
+    public synchronized InputStream openStream() throws IOException {
+        List<InputStream> parts = new ArrayList<>();
+        if (spillFile != null) {
+            spillOut.flush();
+            parts.add(Files.newInputStream(spillFile));
+        } else {
+            for (byte[] chunk : chunks) {
+                parts.add(new ByteArrayInputStream(chunk));
+            }
+            parts.add(new ByteArrayInputStream(current, 0, position));
+        }
+        parts.add(new ByteArrayInputStream(truncationMarker()));
+        return new SequenceInputStream(Collections.enumeration(parts));
+    }
+
+    /**
+     * Возвращает лог целиком в виде строки.
+     * Материализует весь лог в памяти, предпочтительно использовать {@link #writeTo(OutputStream)}.
+     */
+    @Override
+    public String toString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, size + 64));
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать лог сценария", e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        current = NO_BYTES;
+        if (spillOut != null) {
+            try {
+                spillOut.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void appendToChunks(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == current.length) {
+                if (current.length > 0) {
+                    chunks.add(current);
+                }
+                current = new byte[CHUNK_SIZE];
+                position = 0;
+            }
+            int length = Math.min(bytes.length - offset, current.length - position);
+            System.arraycopy(bytes, offset, current, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private void spill() throws IOException {
+        Path file = Files.createTempFile("scenario-log-", ".log");
+        OutputStream out;
+        try {
+            out = new BufferedOutputStream(Files.newOutputStream(file), CHUNK_SIZE);
+            for (byte[] chunk : chunks) {
+                out.write(chunk);
+            }
+            out.write(current, 0, position);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        spillFile = file;
+        spillOut = out;
+        chunks.clear();
+        current = NO_BYTES;
+        position = 0;
+    }
+
+    private byte[] truncationMarker() {
+        if (droppedBytes == 0) {
+            return NO_BYTES;
+        }
+        return String.format("%n... лог сценария обрезан, отброшено %d байт (core.scenarioLog.maxBytes=%d)%n", droppedBytes, maxBytes)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.at.library.core.utils.log;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.routing.RoutingAppender;
+
+import java.nio.file.Path;
+
+/**
+ * Запись лога сценария сразу в отдельный файл через {@link RoutingAppender} вместо накопления в {@link ScenarioLogBuffer}.
+ * <p>
+ * Используется, если в конфигурации log4j2 есть аппендер {@value #APPENDER_NAME}
+ * (профиль {@code log4j2-async.xml}). В начале сценария в {@link ThreadContext} потока кладутся
+ * {@value #SCENARIO_ID_KEY} (ключ маршрута) и {@value #LOG_FILE_KEY} (путь к файлу), аппендер создаёт для сценария
+ * собственный файловый аппендер. В конце сценария маршрут удаляется: файл дописывается и закрывается,
+ * после чего его можно прикладывать к отчёту.
+ * <p>
+ * Маршрутизация выполняется в потоке сценария, поэтому все события сценария попадают в файл до его закрытия.
+ */
+public final class ScenarioLogRouting {
+
+    public static final String APPENDER_NAME = "ScenarioFiles";
+    public static final String SCENARIO_ID_KEY = "scenarioId";
+    public static final String LOG_FILE_KEY = "scenarioLogFile";
+
+    private ScenarioLogRouting() {
+    }
+
+    /**
+     * @return {@code true}, если текущая конфигурация log4j2 пишет логи сценариев в отдельные файлы
+     */
+    public static boolean isActive() {
+        return getRoutingAppender(currentContext()) != null;
+    }
+
+    /**
+     * Начинает запись лога текущего сценария в файл
+     *
+     * @param scenarioId уникальный идентификатор запуска сценария
+     * @param logFile    файл лога сценария
+     */
+    public static void start(String scenarioId, Path logFile) {
+        ThreadContext.put(SCENARIO_ID_KEY, scenarioId);
+        ThreadContext.put(LOG_FILE_KEY, logFile.toString());
+    }
+
+    /**
+     * Завершает запись лога текущего сценария: закрывает его файл и очищает {@link ThreadContext}
+     *
+     * @return файл лога сценария или {@code null}, если запись не начиналась
+     */
+    public static Path finish() {
+        return finish(currentContext());
+    }
+
+    static Path finish(LoggerContext context) {
+        String scenarioId = ThreadContext.get(SCENARIO_ID_KEY);
+        String logFile = ThreadContext.get(LOG_FILE_KEY);
+        ThreadContext.remove(SCENARIO_ID_KEY);
+        ThreadContext.remove(LOG_FILE_KEY);
+        if (scenarioId == null || logFile == null) {
+            return null;
+        }
+        RoutingAppender routing = getRoutingAppender(context);
+        if (routing != null) {
+            routing.deleteAppender(scenarioId);
+        }
+        return Path.of(logFile);
+    }
+
+    private static RoutingAppender getRoutingAppender(LoggerContext context) {
+        Appender appender = context.getConfiguration().getAppender(APPENDER_NAME);
+        return appender instanceof RoutingAppender ? (RoutingAppender) appender : null;
+    }
+
+    private static LoggerContext currentContext() {
+        return (LoggerContext) LogManager.getContext(false);
+    }
+}
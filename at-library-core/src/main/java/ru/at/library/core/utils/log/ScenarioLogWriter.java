@@ -0,0 +1,345 @@
+package ru.at.library.core.utils.log;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import lombok.extern.log4j.Log4j2;
+import ru.at.library.core.utils.allure.AllureAttachments;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновая запись логов завершённых сценариев в файл и в отчёт Allure.
+ * <p>
+ * Поток сценария только регистрирует вложение в Allure (это должно происходить в контексте текущего теста)
+ * и ставит задачу в ограниченную очередь, после чего сразу освобождается для следующего сценария.
+ * Запись файла через {@link FileChannel} и содержимого вложения выполняет отдельный поток {@code scenario-log-writer}
+ * в порядке поступления. Если очередь заполнена, поток сценария ждёт освобождения места, поэтому объём памяти,
+ * удерживаемой ожидающими логами, ограничен размером очереди, а порядок записи сохраняется. Если место не освободилось
+ * за {@code core.scenarioLog.writer.enqueueTimeoutSec} или писатель остановлен, поток сценария сам дописывает
+ * всю очередь по порядку и затем свой лог.
+ * <p>
+ * При завершении JVM оставшиеся задачи дописываются по порядку (не дольше {@code core.scenarioLog.writer.shutdownTimeoutSec}).
+ * <p>
+ * Настройки (системные свойства):
+ * core.scenarioLog.async - фоновая запись, по умолчанию true (false - запись в потоке сценария, как раньше);
+ * core.scenarioLog.writer.queueSize - размер очереди, по умолчанию 64;
+ * core.scenarioLog.writer.enqueueTimeoutSec - ожидание места в заполненной очереди, по умолчанию 30 с;
+ * core.scenarioLog.writer.flushTimeoutSec - ожидание записи всех логов после прогона, по умолчанию 60 с;
+ * core.scenarioLog.writer.shutdownTimeoutSec - время ожидания записи при завершении JVM, по умолчанию 60 с.
+ */
+@Log4j2
+public final class ScenarioLogWriter {
+
+    public static final boolean ASYNC = Boolean.parseBoolean(System.getProperty("core.scenarioLog.async", "true"));
+
+    private static final int QUEUE_SIZE = Math.max(1, Integer.getInteger("core.scenarioLog.writer.queueSize", 64));
+    private static final long ENQUEUE_TIMEOUT_SEC = Long.getLong("core.scenarioLog.writer.enqueueTimeoutSec", 30L);
+    private static final long FLUSH_TIMEOUT_SEC = Long.getLong("core.scenarioLog.writer.flushTimeoutSec", 60L);
+    private static final long SHUTDOWN_TIMEOUT_SEC = Long.getLong("core.scenarioLog.writer.shutdownTimeoutSec", 60L);
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final LongAdder WRITTEN = new LongAdder();
+    private static final LongAdder CALLER_RUNS = new LongAdder();
+    private static final LongAdder QUEUE_WAITS = new LongAdder();
+    private static final LongAdder WRITE_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_WRITE_NANOS = new LongAccumulator(Math::max, 0L);
+    private static final LongAccumulator MAX_QUEUE_DEPTH = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Количество поставленных, но ещё не записанных логов (включая выполняемый)
+     */
+    private static final AtomicLong PENDING = new AtomicLong();
+    private static final Object PENDING_LOCK = new Object();
+
+    private ScenarioLogWriter() {
+    }
+
+    /**
+     * Передаёт лог сценария на запись. Владение буфером переходит к писателю, буфер будет закрыт после записи.
+     * Метод вызывается в потоке сценария: вложение регистрируется в текущем тесте Allure сразу,
+     * а его содержимое записывается позже.
+     *
+     * @param scenarioLog    лог сценария
+     * @param logFile        файл, в который будет записан лог (с UTF-8 BOM)
+     * @param attachmentName имя вложения в Allure или {@code null}, если вложение не нужно
+     */
+    public static void submit(ScenarioLogBuffer scenarioLog, Path logFile, String attachmentName) {
+        AllureLifecycle lifecycle = null;
+        String attachmentSource = null;
+        if (attachmentName != null) {
+            try {
+                lifecycle = Allure.getLifecycle();
+                attachmentSource = prepareAttachment(lifecycle, attachmentName, scenarioLog.size());
+            } catch (Exception e) {
+                log.error("Не удалось приложить лог сценария к отчёту", e);
+            }
+        }
+        enqueue(new WriteTask(scenarioLog, logFile, lifecycle, attachmentSource));
+    }
+
+    /**
+     * Прикладывает к отчёту Allure уже записанный файл лога сценария (см. {@link ScenarioLogRouting}).
+     * Вложение регистрируется в потоке сценария, содержимое файла копируется в фоне.
+     *
+     * @param logFile        закрытый файл лога сценария
+     * @param attachmentName имя вложения в Allure
+     */
+    public static void submitFile(Path logFile, String attachmentName) {
+        AllureLifecycle lifecycle;
+        String attachmentSource;
+        try {
+            lifecycle = Allure.getLifecycle();
+            attachmentSource = prepareAttachment(lifecycle, attachmentName, Files.size(logFile));
+        } catch (Exception e) {
+            log.error("Не удалось приложить лог сценария к отчёту", e);
+            return;
+        }
+        enqueue(new WriteTask(null, logFile, lifecycle, attachmentSource));
+    }
+
+    private static void enqueue(WriteTask task) {
+        PENDING.incrementAndGet();
+        if (ASYNC) {
+            ThreadPoolExecutor executor = Holder.EXECUTOR;
+            executor.execute(task);
+            MAX_QUEUE_DEPTH.accumulate(executor.getQueue().size());
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Ожидает записи всех поставленных в очередь логов не дольше core.scenarioLog.writer.flushTimeoutSec
+     *
+     * @return {@code true}, если все логи записаны
+     */
+    public static boolean flush() {
+        return flush(TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SEC));
+    }
+
+    /**
+     * Ожидает записи всех поставленных в очередь логов
+     *
+     * @param timeoutMs максимальное время ожидания
+     * @return {@code true}, если все логи записаны
+     */
+    public static boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (PENDING_LOCK) {
+            while (PENDING.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    PENDING_LOCK.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return текущее количество логов, ожидающих записи
+     */
+    public static long getQueueDepth() {
+        return PENDING.get();
+    }
+
+    /**
+     * @return максимальная наблюдавшаяся длина очереди
+     */
+    public static long getMaxQueueDepth() {
+        return MAX_QUEUE_DEPTH.get();
+    }
+
+    /**
+     * @return количество записанных логов
+     */
+    public static long getWrittenCount() {
+        return WRITTEN.sum();
+    }
+
+    /**
+     * @return количество логов, записанных в потоке сценария, потому что писатель не успевал или был остановлен
+     */
+    public static long getCallerRunsCount() {
+        return CALLER_RUNS.sum();
+    }
+
+    /**
+     * @return сколько раз поток сценария ждал места в заполненной очереди
+     */
+    public static long getQueueWaitCount() {
+        return QUEUE_WAITS.sum();
+    }
+
+    /**
+     * @return среднее время записи одного лога (файл и вложение), мс
+     */
+    public static double getAverageWriteMillis() {
+        long count = WRITTEN.sum();
+        return count > 0 ? WRITE_NANOS.sum() / 1_000_000.0 / count : 0.0;
+    }
+
+    /**
+     * @return максимальное время записи одного лога, мс
+     */
+    public static double getMaxWriteMillis() {
+        return MAX_WRITE_NANOS.get() / 1_000_000.0;
+    }
+
+    private static void writeFile(ScenarioLogBuffer scenarioLog, Path logFile) {
+        try {
+            Files.createDirectories(logFile.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(logFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                // UTF-8 BOM (EF BB BF) — чтобы браузер/Jenkins корректно определял кодировку
+                ByteBuffer bom = ByteBuffer.wrap(UTF8_BOM);
+                while (bom.hasRemaining()) {
+                    channel.write(bom);
+                }
+                scenarioLog.writeTo(channel);
+            }
+            log.debug("Лог сценария записан в файл: {}", logFile.toAbsolutePath());
+        } catch (Exception e) {
+            // Не должен ломать тест, если файл по какой-то причине не записался
+            log.error("Не удалось записать лог сценария в файл", e);
+        }
+    }
+
+    /**
+     * Большие логи прикладываются сжатыми (см. {@link AllureAttachments})
+     */
+    private static String prepareAttachment(AllureLifecycle lifecycle, String attachmentName, long size) {
+        return AllureAttachments.isCompressed("text/plain", size)
+                ? lifecycle.prepareAttachment(attachmentName, AllureAttachments.GZIP_TYPE, "txt.gz")
+                : lifecycle.prepareAttachment(attachmentName, "text/plain", "txt");
+    }
+
+    private static void writeAttachment(ScenarioLogBuffer scenarioLog, Path logFile, AllureLifecycle lifecycle, String source) {
+        try (InputStream content = scenarioLog != null ? scenarioLog.openStream() : Files.newInputStream(logFile)) {
+            if (source.endsWith(".gz")) {
+                try (InputStream compressed = AllureAttachments.gzipStream(content)) {
+                    lifecycle.writeAttachment(source, compressed);
+                }
+            } else {
+                lifecycle.writeAttachment(source, content);
+            }
+        } catch (Exception e) {
+            log.error("Не удалось приложить лог сценария к отчёту", e);
+        }
+    }
+
+    /**
+     * Очередь заполнена: ждём места, чтобы не нарушить порядок записи. Если писатель не успевает
+     * или уже остановлен, дописываем очередь по порядку в текущем потоке, затем новую задачу.
+     */
+    private static void rejected(Runnable task, ThreadPoolExecutor executor) {
+        if (!executor.isShutdown()) {
+            QUEUE_WAITS.increment();
+            try {
+                if (executor.getQueue().offer(task, ENQUEUE_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                    return;
+                }
+                log.warn("Запись логов сценариев не успевает: очередь заполнена дольше {} с", ENQUEUE_TIMEOUT_SEC);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Runnable> queued = new ArrayList<>();
+        executor.getQueue().drainTo(queued);
+        queued.add(task);
+        for (Runnable queuedTask : queued) {
+            CALLER_RUNS.increment();
+            queuedTask.run();
+        }
+    }
+
+    private static void shutdown() {
+        ThreadPoolExecutor executor = Holder.EXECUTOR;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("Не все логи сценариев записаны за {} с, осталось: {}", SHUTDOWN_TIMEOUT_SEC, PENDING.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class WriteTask implements Runnable {
+        private final ScenarioLogBuffer scenarioLog;
+        private final Path logFile;
+        private final AllureLifecycle lifecycle;
+        private final String attachmentSource;
+
+        private WriteTask(ScenarioLogBuffer scenarioLog, Path logFile, AllureLifecycle lifecycle, String attachmentSource) {
+            this.scenarioLog = scenarioLog;
+            this.logFile = logFile;
+            this.lifecycle = lifecycle;
+            this.attachmentSource = attachmentSource;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try (ScenarioLogBuffer buffer = scenarioLog) {
+                // Без буфера файл уже записан, прикладывается его содержимое
+                if (buffer != null) {
+                    writeFile(buffer, logFile);
+                }
+                if (attachmentSource != null) {
+                    writeAttachment(buffer, logFile, lifecycle, attachmentSource);
+                }
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                WRITTEN.increment();
+                WRITE_NANOS.add(elapsed);
+                MAX_WRITE_NANOS.accumulate(elapsed);
+                if (PENDING.decrementAndGet() == 0) {
+                    synchronized (PENDING_LOCK) {
+                        PENDING_LOCK.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Поток записи создаётся при первой постановке лога в очередь
+     */
+    private static final class Holder {
+        static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private static ThreadPoolExecutor createExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE),
+                    r -> {
+                        Thread t = new Thread(r, "scenario-log-writer");
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    ScenarioLogWriter::rejected);
+            Runtime.getRuntime().addShutdownHook(new Thread(ScenarioLogWriter::shutdown, "scenario-log-writer-shutdown"));
+            return executor;
+        }
+    }
+}
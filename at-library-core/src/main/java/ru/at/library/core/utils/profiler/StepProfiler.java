@@ -0,0 +1,268 @@
+package ru.at.library.core.utils.profiler;
+
+import com.google.gson.GsonBuilder;
+import io.cucumber.java.StepDefinitionAnnotation;
+import io.cucumber.java.StepDefinitionAnnotations;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import lombok.extern.log4j.Log4j2;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import ru.at.library.core.utils.allure.AllureAttachments;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Профилировщик шагов: накапливает длительности выполнения методов-шагов Cucumber
+ * (замеры выполняет {@link StepTimingAspect}) и формирует отчёт о самых медленных шагах.
+ * <p>
+ * Статистика собирается отдельно для каждого метода-шага и содержит количество вызовов,
+ * суммарное время, p50/p95/p99 и максимум. Отчёт отсортирован по суммарному времени
+ * и записывается в JSON-файл и во вложение Allure (отдельный служебный результат «Профиль выполнения шагов»).
+ * <p>
+ * Настройки (системные свойства):
+ * core.stepProfiler.enabled - сбор статистики, по умолчанию true;
+ * core.stepProfiler.report - путь к JSON-отчёту, по умолчанию logs/step-timings.json;
+ * core.stepProfiler.allure - прикладывать отчёт к Allure, по умолчанию true.
+ */
+@Log4j2
+public final class StepProfiler {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("core.stepProfiler.enabled", "true"));
+
+    private static final String REPORT_PATH = System.getProperty("core.stepProfiler.report", "logs/step-timings.json");
+    private static final boolean ALLURE_REPORT = Boolean.parseBoolean(System.getProperty("core.stepProfiler.allure", "true"));
+
+    /**
+     * Количество шагов, выводимых в лог по завершении прогона
+     */
+    private static final int LOG_TOP_STEPS = 10;
+
+    /**
+     * Статистика по методам-шагам. Ключ - точка соединения AspectJ (один объект на метод),
+     * что позволяет не вычислять текст шага при каждом вызове.
+     */
+    private static final ConcurrentHashMap<JoinPoint.StaticPart, StepStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private StepProfiler() {
+    }
+
+    static void record(JoinPoint.StaticPart joinPoint, long nanos) {
+        StepStatistics statistics = STATISTICS.get(joinPoint);
+        if (statistics == null) {
+            statistics = STATISTICS.computeIfAbsent(joinPoint, k -> {
+                Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+                return new StepStatistics(stepPattern(method), method.getDeclaringClass().getSimpleName() + "." + method.getName());
+            });
+        }
+        statistics.histogram.record(nanos);
+    }
+
+    /**
+     * Возвращает статистику шагов, отсортированную по убыванию суммарного времени
+     */
+    public static List<StepTiming> getStepTimings() {
+        List<StepTiming> timings = new ArrayList<>(STATISTICS.size());
+        for (StepStatistics statistics : STATISTICS.values()) {
+            if (statistics.histogram.getCount() > 0) {
+                timings.add(new StepTiming(statistics));
+            }
+        }
+        timings.sort(Comparator.comparingDouble((StepTiming t) -> t.totalMs).reversed());
+        return timings;
+    }
+
+    /**
+     * Сбрасывает накопленную статистику
+     */
+    public static void reset() {
+        STATISTICS.clear();
+    }
+
+    /**
+     * Записывает отчёт о длительности шагов в JSON-файл и в Allure и выводит самые медленные шаги в лог
+     */
+    public static void writeReport() {
+        List<StepTiming> timings = getStepTimings();
+        if (!ENABLED || timings.isEmpty()) {
+            return;
+        }
+        String json = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(timings);
+        try {
+            Path reportFile = Paths.get(REPORT_PATH).toAbsolutePath();
+            Files.createDirectories(reportFile.getParent());
+            Files.write(reportFile, json.getBytes(StandardCharsets.UTF_8));
+            log.info("Отчёт о длительности шагов записан в файл: {}", reportFile);
+        } catch (Exception e) {
+            log.error("Не удалось записать отчёт о длительности шагов", e);
+        }
+        if (ALLURE_REPORT) {
+            attachToAllure(json);
+        }
+        log.info(formatTopSteps(timings));
+    }
+
+    private static String formatTopSteps(List<StepTiming> timings) {
+        StringBuilder sb = new StringBuilder("\n++++++++++++\nСамые медленные шаги (по суммарному времени)\n");
+        for (StepTiming t : timings.subList(0, Math.min(LOG_TOP_STEPS, timings.size()))) {
+            sb.append(String.format("%.0f мс | вызовов: %d | p50: %.1f мс | p95: %.1f мс | p99: %.1f мс | макс: %.1f мс | %s%n",
+                    t.totalMs, t.count, t.p50Ms, t.p95Ms, t.p99Ms, t.maxMs, t.step));
+        }
+        return sb.append("++++++++++++").toString();
+    }
+
+    /**
+     * Отчёт формируется после завершения всех сценариев, когда текущего теста Allure уже нет,
+     * поэтому вложение добавляется к отдельному служебному результату
+     */
+    private static void attachToAllure(String json) {
+        try {
+            AllureLifecycle lifecycle = Allure.getLifecycle();
+            String uuid = UUID.randomUUID().toString();
+            long now = System.currentTimeMillis();
+            TestResult result = new TestResult()
+                    .setUuid(uuid)
+                    .setHistoryId("at-library-step-profile")
+                    .setName("Профиль выполнения шагов")
+                    .setFullName("at-library.step-profile")
+                    .setStatus(Status.PASSED)
+                    .setStart(now)
+                    .setStop(now)
+                    .setLabels(Collections.singletonList(new Label().setName("suite").setValue("Служебное")));
+            lifecycle.scheduleTestCase(result);
+            lifecycle.startTestCase(uuid);
+            AllureAttachments.attach("Длительность шагов", "application/json", "json", json);
+            lifecycle.stopTestCase(uuid);
+            lifecycle.writeTestCase(uuid);
+        } catch (Exception e) {
+            log.error("Не удалось приложить отчёт о длительности шагов к Allure", e);
+        }
+    }
+
+    /**
+     * Текст шага из аннотаций Cucumber (@И, @Когда, @Given и т.п.); для повторяющихся аннотаций - через " | "
+     */
+    private static String stepPattern(Method method) {
+        StringJoiner patterns = new StringJoiner(" | ");
+        for (Annotation annotation : method.getAnnotations()) {
+            Class<? extends Annotation> type = annotation.annotationType();
+            if (type.isAnnotationPresent(StepDefinitionAnnotation.class)) {
+                patterns.add(annotationValue(annotation));
+            } else if (type.isAnnotationPresent(StepDefinitionAnnotations.class)) {
+                Object repeated = invokeValue(annotation);
+                if (repeated instanceof Annotation[]) {
+                    for (Annotation inner : (Annotation[]) repeated) {
+                        patterns.add(annotationValue(inner));
+                    }
+                }
+            }
+        }
+        return patterns.length() > 0 ? patterns.toString() : method.getName();
+    }
+
+    private static String annotationValue(Annotation annotation) {
+        return String.valueOf(invokeValue(annotation));
+    }
+
+    private static Object invokeValue(Annotation annotation) {
+        try {
+            return annotation.annotationType().getMethod("value").invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            return annotation.annotationType().getSimpleName();
+        }
+    }
+
+    private static final class StepStatistics {
+        final String step;
+        final String method;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        private StepStatistics(String step, String method) {
+            this.step = step;
+            this.method = method;
+        }
+    }
+
+    /**
+     * Итоговая статистика одного шага (сериализуется в JSON-отчёт)
+     */
+    public static final class StepTiming {
+        private final String step;
+        private final String method;
+        private final long count;
+        private final double totalMs;
+        private final double meanMs;
+        private final double p50Ms;
+        private final double p95Ms;
+        private final double p99Ms;
+        private final double maxMs;
+
+        private StepTiming(StepStatistics statistics) {
+            LatencyHistogram histogram = statistics.histogram;
+            this.step = statistics.step;
+            this.method = statistics.method;
+            this.count = histogram.getCount();
+            this.totalMs = toMillis(histogram.getTotalNanos());
+            this.meanMs = count > 0 ? toMillis(histogram.getTotalNanos() / count) : 0.0;
+            this.p50Ms = toMillis(histogram.percentileNanos(50));
+            this.p95Ms = toMillis(histogram.percentileNanos(95));
+            this.p99Ms = toMillis(histogram.percentileNanos(99));
+            this.maxMs = toMillis(histogram.getMaxNanos());
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+
+        public double getMeanMs() {
+            return meanMs;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public double getP95Ms() {
+            return p95Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.at.library.core.utils.profiler;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * Аспект замера длительности шагов Cucumber библиотеки (ru.at.library.*).
+ * <p>
+ * Вплетается при загрузке классов агентом aspectjweaver, который уже подключается в surefire для Allure
+ * (аспект объявлен в META-INF/aop.xml). Без агента аспект не активен и не влияет на выполнение.
+ */
+@Aspect
+public class StepTimingAspect {
+
+    /**
+     * Методы библиотеки, помеченные аннотацией шага (@И, @Когда, @Given и т.п.) или несколькими такими аннотациями
+     */
+    @Pointcut("within(ru.at.library..*) && ("
+            + "execution(@(@io.cucumber.java.StepDefinitionAnnotation *) * *(..)) || "
+            + "execution(@(@io.cucumber.java.StepDefinitionAnnotations *) * *(..)))")
+    public void stepDefinition() {
+    }
+
+    @Around("stepDefinition()")
+    public Object timeStep(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!StepProfiler.ENABLED) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            StepProfiler.record(joinPoint.getStaticPart(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ru.at.library.core.utils.scheduling;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * История длительностей сценариев между запусками.
+ * <p>
+ * Хранится в текстовом файле, по строке {@code <ключ сценария>\t<длительность, мс>} на каждое завершение сценария.
+ * Во время прогона строки только дописываются в конец файла. При первом обращении в следующем прогоне файл читается,
+ * длительности одного сценария сворачиваются в сглаженную оценку (экспоненциальное скользящее среднее)
+ * и файл перезаписывается по одной строке на сценарий, поэтому его размер не растёт от запуска к запуску.
+ * <p>
+ * Ключ сценария - {@code <имя feature-файла>:<строка>}, одинаковый при retry и между запусками.
+ * <p>
+ * Настройки (системные свойства):
+ * core.durationHistory.enabled - запись истории, по умолчанию true;
+ * core.durationHistory.file - путь к файлу истории, по умолчанию logs/scenario-durations.tsv;
+ * для распределения сценариев между шардами история используется, только если путь задан явно.
+ */
+@Log4j2
+public final class ScenarioDurationHistory {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("core.durationHistory.enabled", "true"));
+
+    private static final String FILE_PROPERTY = "core.durationHistory.file";
+    private static final String FILE = System.getProperty(FILE_PROPERTY, "logs/scenario-durations.tsv");
+
+    /**
+     * Вес нового замера в сглаженной оценке: последние запуски важнее, но единичный выброс не переворачивает порядок
+     */
+    private static final double SMOOTHING = 0.3;
+
+    private final Path file;
+    private Map<String, Long> estimates;
+
+    ScenarioDurationHistory(Path file) {
+        this.file = file;
+    }
+
+    public static ScenarioDurationHistory getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return задан ли файл истории явно (core.durationHistory.file), а не взят локальный файл по умолчанию
+     */
+    public static boolean isFileConfigured() {
+        return System.getProperty(FILE_PROPERTY) != null;
+    }
+
+    /**
+     * Ключ сценария по URI feature-файла и номеру строки сценария (для структуры сценария - строки примера)
+     */
+    public static String key(URI uri, int line) {
+        String path = uri.toString();
+        return path.substring(path.lastIndexOf('/') + 1) + ":" + line;
+    }
+
+    /**
+     * Оценки длительности сценариев по предыдущим запускам, мс.
+     * Замеры текущего прогона в оценки не попадают и будут учтены в следующем.
+     */
+    public synchronized Map<String, Long> getEstimates() {
+        if (estimates == null) {
+            estimates = Collections.unmodifiableMap(load());
+        }
+        return estimates;
+    }
+
+    /**
+     * @return оценка длительности сценария в мс или -1, если сценарий ещё не выполнялся
+     */
+    public long estimateMillis(String key) {
+        Long estimate = getEstimates().get(key);
+        return estimate != null ? estimate : -1L;
+    }
+
+    /**
+     * Дописывает длительность завершённого сценария в файл истории
+     */
+    public synchronized void record(String key, long durationMs) {
+        if (durationMs < 0) {
+            return;
+        }
+        // Перед первой записью история прошлых запусков сворачивается, чтобы новые строки дописывались к сжатому файлу
+        getEstimates();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, (key + '\t' + durationMs + '\n').getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            log.warn("Не удалось записать длительность сценария {} в {}: {}", key, file.toAbsolutePath(), e.toString());
+        }
+    }
+
+    private Map<String, Long> load() {
+        Map<String, Long> result = new HashMap<>();
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf('\t');
+                if (separator <= 0) {
+                    continue;
+                }
+                long durationMs;
+                try {
+                    durationMs = Long.parseLong(line.substring(separator + 1).trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                lines++;
+                result.merge(line.substring(0, separator), durationMs,
+                        (previous, current) -> Math.round(previous * (1 - SMOOTHING) + current * SMOOTHING));
+            }
+        } catch (NoSuchFileException e) {
+            return result;
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать историю длительностей сценариев {}: {}", file.toAbsolutePath(), e.toString());
+            return result;
+        }
+        if (lines > result.size()) {
+            compact(result);
+        }
+        log.debug("История длительностей сценариев: {} сценариев, {} записей", result.size(), lines);
+        return result;
+    }
+
+    /**
+     * Перезаписывает файл по одной строке на сценарий. Замена выполняется через временный файл,
+     * поэтому при сбое остаётся прежняя история.
+     */
+    private void compact(Map<String, Long> result) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : result.entrySet()) {
+                    writer.write(entry.getKey() + '\t' + entry.getValue() + '\n');
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось сжать историю длительностей сценариев {}: {}", file.toAbsolutePath(), e.toString());
+        }
+    }
+
+    private static final class Holder {
+        static final ScenarioDurationHistory INSTANCE = new ScenarioDurationHistory(Paths.get(FILE));
+    }
+}
@@ -0,0 +1,212 @@
+package ru.at.library.core.utils.scheduling;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Порядок запуска сценариев в раннере TestNG и распределение сценариев между машинами (шардами).
+ * <p>
+ * В режиме {@code longestFirst} сценарии сортируются по убыванию ожидаемой длительности из {@link ScenarioDurationHistory},
+ * чтобы самые долгие сценарии стартовали первыми, а короткие заполняли освободившиеся потоки в конце прогона
+ * и общее время не определялось одним поздно начатым долгим сценарием.
+ * Для сценариев без истории используется средняя длительность известных сценариев; при равных оценках
+ * сохраняется исходный порядок.
+ * <p>
+ * При {@code shard.total > 1} каждая машина выполняет только свою часть сценариев. Распределение детерминировано,
+ * поэтому все шарды должны использовать одинаковые feature-файлы. По умолчанию сценарии распределяются по хешу ключа:
+ * файл истории по умолчанию локален для агента и содержит только выполненные им сценарии, и распределения
+ * по разным историям разошлись бы (часть сценариев была бы пропущена или выполнена дважды).
+ * Если {@code core.durationHistory.file} явно указывает на общий для всех агентов файл, сценарии с историей
+ * распределяются жадной упаковкой (самый долгий - в наименее загруженный шард), сценарии без истории - по хешу ключа.
+ * <p>
+ * Использование в раннере:
+ * <pre>{@code
+ * @Override
+ * @DataProvider(parallel = true)
+ * public Object[][] scenarios() {
+ *     Object[][] scenarios = ScenarioScheduler.order(super.scenarios());
+ *     CoreInitialSetup.totalScenarios = scenarios.length;
+ *     return scenarios;
+ * }
+ * }</pre>
+ * Настройки (системные свойства):
+ * core.scheduling - порядок запуска: default (порядок Cucumber) или longestFirst, по умолчанию default;
+ * shard.total - количество шардов, по умолчанию 1 (без шардирования);
+ * shard.index - номер текущего шарда от 0 до shard.total - 1, по умолчанию 0.
+ */
+@Log4j2
+public final class ScenarioScheduler {
+
+    public static final String MODE = System.getProperty("core.scheduling", "default");
+    public static final int SHARD_TOTAL = Integer.getInteger("shard.total", 1);
+    public static final int SHARD_INDEX = Integer.getInteger("shard.index", 0);
+
+    private ScenarioScheduler() {
+    }
+
+    /**
+     * Отбирает сценарии текущего шарда ({@code shard.index}/{@code shard.total}) и упорядочивает строки
+     * {@code DataProvider} ({@link PickleWrapper}, FeatureWrapper) согласно {@code core.scheduling}
+     */
+    public static Object[][] order(Object[][] scenarios) {
+        boolean longestFirst = "longestFirst".equalsIgnoreCase(MODE);
+        if (!longestFirst && SHARD_TOTAL <= 1) {
+            return scenarios;
+        }
+        Map<String, Long> estimates = ScenarioDurationHistory.getInstance().getEstimates();
+        Object[][] result = scenarios;
+        if (SHARD_TOTAL > 1) {
+            boolean sharedHistory = ScenarioDurationHistory.isFileConfigured();
+            if (!sharedHistory) {
+                log.info("Файл истории длительностей не задан явно (core.durationHistory.file), "
+                        + "сценарии распределяются между шардами по хешу ключа");
+            }
+            result = shard(result, SHARD_INDEX, SHARD_TOTAL, ScenarioScheduler::scenarioKey,
+                    shardEstimates(estimates, sharedHistory));
+        }
+        if (longestFirst) {
+            result = longestFirst(result, ScenarioScheduler::scenarioKey, estimates);
+        }
+        return result;
+    }
+
+    /**
+     * Ключ истории длительностей для строки {@code DataProvider} или {@code null}, если строка не содержит сценарий
+     */
+    public static String scenarioKey(Object[] row) {
+        if (row.length == 0 || !(row[0] instanceof PickleWrapper)) {
+            return null;
+        }
+        Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+        return ScenarioDurationHistory.key(pickle.getUri(), pickle.getLine());
+    }
+
+    static Object[][] longestFirst(Object[][] scenarios, Function<Object[], String> keyOf, Map<String, Long> estimates) {
+        Expected expected = new Expected(scenarios, keyOf, estimates);
+        Integer[] indexes = new Integer[scenarios.length];
+        for (int i = 0; i < scenarios.length; i++) {
+            indexes[i] = i;
+        }
+        // Сортировка устойчивая: при равных оценках сохраняется порядок Cucumber
+        Arrays.sort(indexes, Comparator.comparingLong((Integer i) -> expected.millis[i]).reversed());
+
+        Object[][] ordered = new Object[scenarios.length][];
+        long total = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            ordered[i] = scenarios[indexes[i]];
+            total += expected.millis[indexes[i]];
+        }
+        log.info("Сценарии упорядочены по убыванию длительности: история есть для {} из {}, ожидаемое суммарное время {} с",
+                expected.knownCount, scenarios.length, total / 1000);
+        return ordered;
+    }
+
+    /**
+     * Оценки длительности для распределения по шардам: только из общего для всех агентов файла истории,
+     * иначе пустые (распределение по хешу ключа)
+     */
+    static Map<String, Long> shardEstimates(Map<String, Long> estimates, boolean sharedHistory) {
+        return sharedHistory ? estimates : Map.of();
+    }
+
+    /**
+     * Сценарии шарда {@code index} из {@code total} в исходном порядке
+     */
+    static Object[][] shard(Object[][] scenarios, int index, int total,
+                            Function<Object[], String> keyOf, Map<String, Long> estimates) {
+        if (total < 1 || index < 0 || index >= total) {
+            throw new IllegalArgumentException(String.format(
+                    "Некорректные параметры шардирования: shard.index=%d, shard.total=%d (ожидается 0 <= shard.index < shard.total)",
+                    index, total));
+        }
+        Expected expected = new Expected(scenarios, keyOf, estimates);
+        int[] owners = new int[scenarios.length];
+        long[] loads = new long[total];
+        List<Integer> known = new ArrayList<>();
+        for (int i = 0; i < scenarios.length; i++) {
+            if (expected.known[i]) {
+                known.add(i);
+            } else {
+                // Без истории - по хешу ключа, чтобы сценарий попадал в один и тот же шард на всех машинах
+                String key = expected.keys[i];
+                owners[i] = key != null ? Math.floorMod(spread(key.hashCode()), total) : i % total;
+                loads[owners[i]] += expected.millis[i];
+            }
+        }
+        known.sort(Comparator.comparingLong((Integer i) -> expected.millis[i]).reversed());
+        for (int i : known) {
+            int lightest = 0;
+            for (int s = 1; s < total; s++) {
+                if (loads[s] < loads[lightest]) {
+                    lightest = s;
+                }
+            }
+            owners[i] = lightest;
+            loads[lightest] += expected.millis[i];
+        }
+
+        List<Object[]> owned = new ArrayList<>();
+        StringBuilder details = new StringBuilder();
+        for (int i = 0; i < scenarios.length; i++) {
+            if (owners[i] == index) {
+                owned.add(scenarios[i]);
+                details.append(String.format("%n  %s - %s", expected.keys[i],
+                        expected.known[i] ? expected.millis[i] / 1000 + " с" : "нет истории"));
+            }
+        }
+        long[] loadsSec = new long[total];
+        for (int s = 0; s < total; s++) {
+            loadsSec[s] = loads[s] / 1000;
+        }
+        log.info("Шард {} из {}: {} из {} сценариев, ожидаемая длительность {} с (по шардам, с: {}){}",
+                index, total, owned.size(), scenarios.length, loadsSec[index], Arrays.toString(loadsSec), details);
+        return owned.toArray(new Object[0][]);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Ожидаемые длительности строк {@code DataProvider}; для сценариев без истории - средняя длительность известных
+     */
+    private static final class Expected {
+        final String[] keys;
+        final long[] millis;
+        final boolean[] known;
+        final int knownCount;
+
+        Expected(Object[][] scenarios, Function<Object[], String> keyOf, Map<String, Long> estimates) {
+            keys = new String[scenarios.length];
+            millis = new long[scenarios.length];
+            known = new boolean[scenarios.length];
+            long knownTotal = 0;
+            int count = 0;
+            for (int i = 0; i < scenarios.length; i++) {
+                keys[i] = keyOf.apply(scenarios[i]);
+                Long estimate = keys[i] != null ? estimates.get(keys[i]) : null;
+                if (estimate != null) {
+                    millis[i] = estimate;
+                    known[i] = true;
+                    knownTotal += estimate;
+                    count++;
+                }
+            }
+            knownCount = count;
+            long fallback = count > 0 ? knownTotal / count : 0L;
+            for (int i = 0; i < scenarios.length; i++) {
+                if (!known[i]) {
+                    millis[i] = fallback;
+                }
+            }
+        }
+    }
+}
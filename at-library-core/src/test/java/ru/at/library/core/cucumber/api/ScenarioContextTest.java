@@ -0,0 +1,122 @@
+package ru.at.library.core.cucumber.api;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.testng.annotations.Test;
+import ru.at.library.core.utils.helpers.AssertionHelper;
+import ru.at.library.core.utils.log.ScenarioLogAppender;
+import ru.at.library.core.utils.log.ScenarioLogBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class ScenarioContextTest {
+
+    @Test
+    public void contextIsPropagatedToVirtualThreads() throws Exception {
+        Thread worker = new Thread(() -> {
+            CoreScenario scenario = CoreScenario.getInstance();
+            scenario.setEnvironment(new CoreEnvironment(null));
+            scenario.setAssertionHelper(new AssertionHelper());
+            ScenarioContext context = scenario.getContext();
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newThreadPerTaskExecutor(context.virtualThreadFactory())) {
+                for (int i = 0; i < 50; i++) {
+                    int index = i;
+                    results.add(executor.submit(() -> {
+                        CoreScenario.getInstance().setVar("var_" + index, "value_" + index);
+                        return Thread.currentThread().isVirtual()
+                                && CoreScenario.getInstance().getAssertionHelper() == context.getAssertionHelper();
+                    }));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < 50; i++) {
+                assertEquals(scenario.getVar("var_" + i), "value_" + i);
+            }
+        });
+        runAndRethrow(worker);
+    }
+
+    @Test
+    public void logContextIsPropagatedToVirtualThreads() throws Exception {
+        Thread worker = new Thread(() -> {
+            ThreadContext.put("scenarioId", "a.feature_7");
+            try {
+                ScenarioContext context = new ScenarioContext(new CoreEnvironment(null), null);
+                try (ExecutorService executor = Executors.newThreadPerTaskExecutor(context.virtualThreadFactory())) {
+                    assertEquals(executor.submit(() -> ThreadContext.get("scenarioId")).get(), "a.feature_7");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            } finally {
+                ThreadContext.clearMap();
+            }
+        });
+        runAndRethrow(worker);
+    }
+
+    @Test
+    public void scenarioLogBufferIsSharedWithVirtualThreads() throws Exception {
+        ScenarioLogAppender appender = ScenarioLogAppender.createAppender("test-scenario-log", null, null);
+        appender.start();
+        Thread worker = new Thread(() -> {
+            ScenarioLogAppender.startScenarioLogging();
+            ScenarioContext context = new ScenarioContext(new CoreEnvironment(null), null);
+            try (ExecutorService executor = Executors.newThreadPerTaskExecutor(context.virtualThreadFactory())) {
+                for (int i = 0; i < 20; i++) {
+                    String message = "запрос " + i;
+                    executor.submit(() -> appender.append(Log4jLogEvent.newBuilder()
+                            .setLoggerName("ru.at.library.test").setLevel(Level.INFO)
+                            .setMessage(new SimpleMessage(message)).build()));
+                }
+            }
+            try (ScenarioLogBuffer buffer = ScenarioLogAppender.takeScenarioLog()) {
+                String log = buffer.toString();
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(log.contains("запрос " + i + "\n"), log);
+                }
+            }
+        });
+        runAndRethrow(worker);
+    }
+
+    @Test
+    public void runRestoresPreviousBinding() throws Exception {
+        Thread worker = new Thread(() -> {
+            assertNull(ScenarioContext.current());
+            ScenarioContext context = new ScenarioContext(new CoreEnvironment(null), null);
+            context.run(() -> assertSame(CoreScenario.getInstance().getContext(), context));
+            assertNull(ScenarioContext.current());
+        });
+        runAndRethrow(worker);
+    }
+
+    private static void runAndRethrow(Thread worker) throws Exception {
+        Throwable[] failure = new Throwable[1];
+        worker.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+        worker.start();
+        worker.join();
+        if (failure[0] instanceof Error) {
+            throw (Error) failure[0];
+        }
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ru.at.library.core.utils.allure;
+
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AllureAttachmentsTest {
+
+    @Test
+    public void identicalContentIsStoredOnce() {
+        MemoryWriter writer = new MemoryWriter();
+        AllureLifecycle lifecycle = new AllureLifecycle(writer);
+        String schema = "{\"type\":\"object\",\"id\":\"" + UUID.randomUUID() + "\"}";
+
+        String uuid = startTest(lifecycle);
+        AllureAttachments.attach(lifecycle, "schema", "application/json", "json", schema.getBytes(StandardCharsets.UTF_8));
+        lifecycle.startStep(uuid, "step", new StepResult().setName("шаг"));
+        AllureAttachments.attach(lifecycle, "schema again", "application/json", ".json", schema.getBytes(StandardCharsets.UTF_8));
+        lifecycle.stopStep("step");
+        AllureAttachments.attach(lifecycle, "other", "text/plain", "txt", "другое".getBytes(StandardCharsets.UTF_8));
+        finishTest(lifecycle, uuid);
+
+        TestResult result = writer.results.get(0);
+        Attachment first = result.getAttachments().get(0);
+        Attachment second = result.getSteps().get(0).getAttachments().get(0);
+        Attachment other = result.getAttachments().get(1);
+        assertEquals(first.getSource(), second.getSource());
+        assertNotEquals(first.getSource(), other.getSource());
+        assertTrue(first.getSource().endsWith("-attachment.json"), first.getSource());
+        assertEquals(writer.blobs.size(), 2, writer.blobs.keySet().toString());
+        assertEquals(new String(writer.blobs.get(first.getSource()), StandardCharsets.UTF_8), schema);
+    }
+
+    @Test
+    public void largeTextIsCompressed() throws IOException {
+        MemoryWriter writer = new MemoryWriter();
+        AllureLifecycle lifecycle = new AllureLifecycle(writer);
+        String text = UUID.randomUUID() + "строка лога\n".repeat(100_000);
+
+        String uuid = startTest(lifecycle);
+        AllureAttachments.attach(lifecycle, "log", "text/plain", "txt", text.getBytes(StandardCharsets.UTF_8));
+        finishTest(lifecycle, uuid);
+
+        Attachment attachment = writer.results.get(0).getAttachments().get(0);
+        assertEquals(attachment.getType(), AllureAttachments.GZIP_TYPE);
+        assertTrue(attachment.getSource().endsWith(".txt.gz"), attachment.getSource());
+        byte[] stored = writer.blobs.get(attachment.getSource());
+        assertTrue(stored.length < text.length() / 10, "compressed size " + stored.length);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(stored))) {
+            assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), text);
+        }
+    }
+
+    @Test
+    public void gzipStreamCompressesWhileReading() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            text.append("строка лога ").append(i).append('\n');
+        }
+        byte[] content = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed;
+        try (InputStream gzip = AllureAttachments.gzipStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] small = new byte[1000];
+            for (int read; (read = gzip.read(small, 0, small.length)) >= 0; ) {
+                out.write(small, 0, read);
+            }
+            assertEquals(gzip.read(), -1);
+            compressed = out.toByteArray();
+        }
+        assertEquals(compressed, AllureAttachments.gzip(new ByteArrayInputStream(content)));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(in.readAllBytes(), content);
+        }
+    }
+
+    @Test
+    public void textTypes() {
+        assertTrue(AllureAttachments.isText("application/json; charset=UTF-8"));
+        assertTrue(AllureAttachments.isText("application/problem+json"));
+        assertTrue(AllureAttachments.isText("text/html"));
+        assertFalse(AllureAttachments.isText("image/png"));
+        assertFalse(AllureAttachments.isCompressed("image/png", Long.MAX_VALUE));
+    }
+
+    private static String startTest(AllureLifecycle lifecycle) {
+        String uuid = UUID.randomUUID().toString();
+        lifecycle.scheduleTestCase(new TestResult().setUuid(uuid).setName("test"));
+        lifecycle.startTestCase(uuid);
+        return uuid;
+    }
+
+    private static void finishTest(AllureLifecycle lifecycle, String uuid) {
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+    }
+
+    private static final class MemoryWriter implements AllureResultsWriter {
+        private final List<TestResult> results = new CopyOnWriteArrayList<>();
+        private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+        @Override
+        public void write(TestResult testResult) {
+            results.add(testResult);
+        }
+
+        @Override
+        public void write(TestResultContainer testResultContainer) {
+        }
+
+        @Override
+        public void write(String source, InputStream attachment) {
+            try {
+                blobs.put(source, attachment.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
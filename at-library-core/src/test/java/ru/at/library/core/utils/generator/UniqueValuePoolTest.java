@@ -0,0 +1,77 @@
+package ru.at.library.core.utils.generator;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class UniqueValuePoolTest {
+
+    @Test
+    public void valuesAreUniqueAcrossThreads() throws Exception {
+        UniqueValuePool pool = new UniqueValuePool("test-digits", () -> RandomData.digits(5), 64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    List<String> values = new ArrayList<>();
+                    for (int j = 0; j < 50; j++) {
+                        values.addAll(pool.take(7));
+                    }
+                    return values;
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                for (String value : future.get()) {
+                    assertTrue(all.add(value), "duplicate value " + value);
+                }
+            }
+            assertEquals(all.size(), 8 * 50 * 7);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void smallValueSpaceIsFullyIssuedThenExhausted() {
+        UniqueValuePool pool = new UniqueValuePool("test-range", () -> String.valueOf(RandomData.number(1, 3)), 10);
+        Set<String> values = new HashSet<>(pool.take(3));
+        assertEquals(values, Set.of("1", "2", "3"));
+        try {
+            pool.take();
+            throw new AssertionError("pool must be exhausted");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("test-range"));
+        }
+    }
+
+    @Test
+    public void detachedRangePoolsDoNotShareIssuedValues() {
+        Set<String> all = Set.of("0", "1", "2");
+        assertEquals(new HashSet<>(UniqueValuePool.detachedNumbers(0, 2).take(3)), all);
+        assertEquals(new HashSet<>(UniqueValuePool.detachedNumbers(0, 2).take(3)), all);
+    }
+
+    @Test
+    public void generatorsRespectAlphabetAndRange() {
+        for (String value : RandomData.strings(200, 6, RandomData.CYRILLIC)) {
+            assertTrue(value.matches("[а-я]{6}"), value);
+        }
+        for (String value : RandomData.numbers(200, Long.MAX_VALUE - 1, Long.MAX_VALUE)) {
+            assertTrue(Long.parseLong(value) >= Long.MAX_VALUE - 1, value);
+        }
+        assertTrue(RandomData.guid().matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+        assertEquals(RandomData.alphabetOf("кириллице"), RandomData.CYRILLIC);
+        assertEquals(RandomData.alphabetOf("en"), RandomData.LATIN);
+    }
+}
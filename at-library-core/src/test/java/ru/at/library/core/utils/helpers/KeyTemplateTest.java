@@ -0,0 +1,98 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class KeyTemplateTest {
+
+    @Test
+    public void literalKeysWithRegexMetacharacters() {
+        KeyTemplate template = KeyTemplate.parse("a=$a.b; b=[x]*; c=$a.b", List.of("$a.b", "[x]*"));
+        assertEquals(template.render(List.of("1", "2")), "a=1; b=2; c=1");
+        assertTrue(template.getMissingKeys().isEmpty());
+    }
+
+    @Test
+    public void leftmostLongestWithoutOverlaps() {
+        assertEquals(KeyTemplate.parse("abcd", List.of("bc", "abcd")).render(List.of("X", "Y")), "Y");
+        assertEquals(KeyTemplate.parse("@id@@id_2@", List.of("@id@", "@id_2@")).render(List.of("1", "2")), "12");
+        assertEquals(KeyTemplate.parse("aaaa", List.of("aa")).render(List.of("b")), "bb");
+        assertEquals(KeyTemplate.parse("xabcx", List.of("ab", "bcx", "abc")).render(List.of("1", "2", "3")), "x3x");
+        assertEquals(KeyTemplate.parse("шаблон: @имя@, @возраст@", List.of("@имя@", "@возраст@"))
+                .render(List.of("Иван", "30")), "шаблон: Иван, 30");
+    }
+
+    @Test
+    public void replacementsAreNotRescanned() {
+        KeyTemplate template = KeyTemplate.parse("@a@ @b@", List.of("@a@", "@b@"));
+        assertEquals(template.render(List.of("@b@", "x")), "@b@ x");
+    }
+
+    @Test
+    public void missingKeysAreReported() {
+        KeyTemplate template = KeyTemplate.parse("text @a@", List.of("@a@", "@missing@"));
+        assertEquals(template.getMissingKeys(), List.of("@missing@"));
+        assertEquals(template.render(List.of("1", "2")), "text 1");
+    }
+
+    @Test
+    public void regexModeMatchesAllPatternsInOnePass() {
+        KeyTemplate template = KeyTemplate.parseRegex("id=17, date=2024-01-31, id=5",
+                List.of("(\\d{4})-(\\d{2})-\\d{2}", "id=\\d+", "absent"));
+        assertEquals(template.render(List.of("DATE", "ID", "-")), "ID, date=DATE, ID");
+        assertEquals(template.getMissingKeys(), List.of("absent"));
+    }
+
+    @Test
+    public void regexBackreferencesKeepTheirGroupNumbers() {
+        String text = "<a>1</a> <b>2</c> x-x y-z";
+        List<String> patterns = List.of("<(\\w+)>(\\d)</\\1>", "(\\w)-\\1");
+        KeyTemplate template = KeyTemplate.parseRegex(text, patterns);
+        assertEquals(template.render(List.of("[$1=$2]", "<$1>")), "[a=1] <b>2</c> <x> y-z");
+        assertEquals(template.render(List.of("[$1=$2]", "<$1>")),
+                text.replaceAll(patterns.get(0), "[$1=$2]").replaceAll(patterns.get(1), "<$1>"));
+    }
+
+    @Test
+    public void regexValuesSupportNamedGroupsAndEscapes() {
+        KeyTemplate template = KeyTemplate.parseRegex("price=100 price=25", List.of("price=(?<amount>\\d+)"));
+        assertEquals(template.render(List.of("${amount}\\$")), "100$ 25$");
+        assertEquals(template.render(List.of("\\\\${amount}")), "\\100 \\25");
+    }
+
+    @Test
+    public void literalValuesAreNotExpanded() {
+        assertEquals(KeyTemplate.parse("sum: @s@", List.of("@s@")).render(List.of("$1 \\n")), "sum: $1 \\n");
+    }
+
+    @Test
+    public void matchesNaiveReplaceForManyKeys() {
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            keys.add("@key_" + i + "@");
+            values.add("value-" + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            text.append("<item attr=\"@key_").append(i % 150).append("@\">текст ").append(i).append("</item>\n");
+        }
+        String expected = text.toString();
+        for (int i = 149; i >= 0; i--) {
+            expected = expected.replace(keys.get(i), values.get(i));
+        }
+        assertEquals(KeyTemplate.parse(text.toString(), keys).render(values), expected);
+    }
+
+    @Test
+    public void compiledTemplateIsCached() {
+        String text = "cached @a@";
+        assertSame(KeyTemplate.compile(text, List.of("@a@")), KeyTemplate.compile(text, List.of("@a@")));
+    }
+}
@@ -0,0 +1,97 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class PlaceholderTemplateTest {
+
+    @Test
+    public void rendersAllPlaceholdersInOnePass() {
+        PlaceholderTemplate template = PlaceholderTemplate.parse("{\"id\": {id}, \"name\": \"{name}\", \"again\": {id}}");
+        Map<String, String> values = Map.of("id", "42", "name", "Rex");
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = template.render(name -> {
+            calls.incrementAndGet();
+            return values.get(name);
+        });
+
+        assertEquals(result, "{\"id\": 42, \"name\": \"Rex\", \"again\": 42}");
+        assertEquals(calls.get(), 3);
+        assertEquals(template.getNames(), List.of("id", "name", "id"));
+    }
+
+    @Test
+    public void unresolvedPlaceholderIsMarkedAndRestored() {
+        PlaceholderTemplate template = PlaceholderTemplate.parse("a{missing}b");
+
+        String rendered = template.render(name -> null);
+
+        assertEquals(rendered, "a__[__missing__]__b");
+        assertEquals(PlaceholderTemplate.restoreUnresolved(rendered), "a{missing}b");
+    }
+
+    @Test
+    public void replacementIsTakenLiterally() {
+        PlaceholderTemplate template = PlaceholderTemplate.parse("price={price}");
+
+        assertEquals(template.render(name -> "$1\\0"), "price=$1\\0");
+    }
+
+    @Test
+    public void reparseIsRequestedOnlyWhenNewPlaceholderMayAppear() {
+        boolean[] reparse = new boolean[1];
+
+        PlaceholderTemplate.parse("x{a}y").render(name -> "plain", reparse);
+        assertFalse(reparse[0]);
+
+        PlaceholderTemplate.parse("x{a}y").render(name -> "{b}", reparse);
+        assertTrue(reparse[0]);
+
+        PlaceholderTemplate.parse("{a{b}}").render(name -> "x", reparse);
+        assertTrue(reparse[0]);
+    }
+
+    @Test
+    public void jsonBodyIsRenderedInOnePass() {
+        String body = "{\n  \"id\": {id},\n  \"tags\": [{\"name\": \"{tag}\"}],\n  \"empty\": {}\n}";
+        PlaceholderTemplate template = PlaceholderTemplate.compile(body);
+        boolean[] reparse = new boolean[1];
+
+        String result = template.render(Map.of("id", "7", "tag", "dog")::get, reparse);
+
+        assertEquals(result, "{\n  \"id\": 7,\n  \"tags\": [{\"name\": \"dog\"}],\n  \"empty\": {}\n}");
+        assertEquals(template.getNames(), List.of("id", "tag"));
+        assertFalse(reparse[0]);
+        assertSame(PlaceholderTemplate.compile(body), template);
+    }
+
+    @Test
+    public void quotedTextInBracesIsNotPlaceholder() {
+        assertFalse(PlaceholderTemplate.parse("{\"title\":\"patched\"}").hasPlaceholders());
+        assertFalse(PlaceholderTemplate.parse("{\n}").hasPlaceholders());
+    }
+
+    @Test
+    public void stringWithoutPlaceholdersHasSingleLiteral() {
+        PlaceholderTemplate template = PlaceholderTemplate.parse("no params here");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals(template.render(name -> "unused"), "no params here");
+    }
+
+    @Test
+    public void compiledTemplateIsCached() {
+        String input = "cached {value} " + System.nanoTime();
+
+        assertSame(PlaceholderTemplate.compile(input), PlaceholderTemplate.compile(input));
+    }
+}
@@ -0,0 +1,63 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class ResourceContentCacheTest {
+
+    @Test
+    public void fileContentIsReloadedAfterModification() throws IOException {
+        Path file = Files.createTempFile("resource-cache", ".json");
+        try {
+            Files.write(file, "{\"v\": 1}".getBytes(StandardCharsets.UTF_8));
+            assertEquals(ResourceContentCache.readFile(file.toString()), "{\"v\": 1}");
+
+            Files.write(file, "{\"v\": 22}".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000L));
+            assertEquals(ResourceContentCache.readFile(file.toString()), "{\"v\": 22}");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void largeFileIsServedFromCacheOnSecondRead() throws IOException {
+        Path file = Files.createTempFile("resource-cache-large", ".json");
+        try {
+            Files.write(file, "x".repeat(5 * 1024 * 1024).getBytes(StandardCharsets.UTF_8));
+
+            String first = ResourceContentCache.readFile(file.toString());
+            String second = ResourceContentCache.readFile(file.toString());
+
+            assertEquals(first.length(), 5 * 1024 * 1024);
+            assertSame(second, first);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void missingFileAndLiteralsReturnNull() throws IOException {
+        assertNull(ResourceContentCache.readFile("200"));
+        assertNull(ResourceContentCache.readFile("{\n  \"multi\": \"line\"\n}"));
+    }
+
+    @Test
+    public void classpathResourceIsFoundAndMissingOneIsRemembered() throws IOException {
+        assertNotNull(ResourceContentCache.readClasspathResource("testFile/example.txt"));
+        assertEquals(ResourceContentCache.readClasspathResource("/testFile/example.txt"),
+                ResourceContentCache.readClasspathResource("testFile/example.txt"));
+        assertNull(ResourceContentCache.readClasspathResource("available"));
+        assertNull(ResourceContentCache.readClasspathResource("available"));
+    }
+}
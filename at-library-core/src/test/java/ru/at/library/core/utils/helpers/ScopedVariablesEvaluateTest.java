@@ -0,0 +1,85 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class ScopedVariablesEvaluateTest {
+
+    @Test
+    public void numericStringsAreComparedAsNumbers() {
+        ScopedVariables variables = new ScopedVariables();
+        variables.put("x", "5");
+        variables.put("y", "5.0");
+
+        assertEquals(variables.evaluate("x + y"), new BigDecimal("10.0"));
+        assertEquals(variables.evaluate("x == y"), true);
+    }
+
+    @Test
+    public void nonNumericValuesArePassedAsIs() {
+        ScopedVariables variables = new ScopedVariables();
+        variables.put("name", "Rex");
+        variables.put("unused", new Object());
+
+        assertEquals(variables.evaluate("name.toUpperCase()"), "REX");
+    }
+
+    @Test
+    public void compiledScriptIsReusedWithFreshBinding() {
+        String expression = "counter * 2 // " + System.nanoTime();
+        ScopedVariables first = new ScopedVariables();
+        first.put("counter", 2);
+        ScopedVariables second = new ScopedVariables();
+        second.put("counter", 21);
+
+        assertEquals(first.evaluate(expression), new BigDecimal("4"));
+        assertEquals(second.evaluate(expression), new BigDecimal("42"));
+        assertSame(GroovyScriptCache.compile(expression), GroovyScriptCache.compile(expression));
+    }
+
+    @Test
+    public void evictedScriptClassIsCollected() throws InterruptedException {
+        String expression = "def twice = { it * 2 }; twice(value) // " + System.nanoTime();
+        ScopedVariables variables = new ScopedVariables();
+        variables.put("value", 1);
+        variables.evaluate(expression);
+        WeakReference<Class<?>> scriptClass = new WeakReference<>(GroovyScriptCache.compile(expression).getScriptClass());
+
+        GroovyScriptCache.invalidate(expression);
+        for (int i = 0; i < 50 && scriptClass.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(scriptClass.get(), "Класс вытесненного скрипта не выгружен");
+    }
+
+    @Test
+    public void failedAssertionIsPropagated() {
+        ScopedVariables variables = new ScopedVariables();
+        variables.put("x", "1");
+
+        assertThrows(AssertionError.class, () -> variables.evaluate("assert(x == 2)"));
+    }
+
+    @Test
+    public void decimalDetectionMatchesBigDecimalSyntax() {
+        assertTrue(ScopedVariables.isDecimal("-12.5"));
+        assertTrue(ScopedVariables.isDecimal("1e10"));
+        assertTrue(ScopedVariables.isDecimal(".5"));
+        assertTrue(ScopedVariables.isDecimal("5."));
+        assertFalse(ScopedVariables.isDecimal(""));
+        assertFalse(ScopedVariables.isDecimal("1e"));
+        assertFalse(ScopedVariables.isDecimal("12a"));
+        assertFalse(ScopedVariables.isDecimal("."));
+    }
+}
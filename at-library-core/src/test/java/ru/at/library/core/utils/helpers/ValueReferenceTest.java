@@ -0,0 +1,43 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+public class ValueReferenceTest {
+
+    @Test
+    public void parsesKnownPrefixes() {
+        assertEquals(ValueReference.parse("file:bodies/a.json").getSource(), ValueReference.Source.FILE);
+        assertEquals(ValueReference.parse("res:json/x.json").getSource(), ValueReference.Source.RESOURCE);
+        assertEquals(ValueReference.parse("prop:url.service").getSource(), ValueReference.Source.PROPERTY);
+        assertEquals(ValueReference.parse("var:response").getName(), "response");
+    }
+
+    @Test
+    public void unknownOrEmptyPrefixIsNotReference() {
+        assertNull(ValueReference.parse("http://host"));
+        assertNull(ValueReference.parse("\"key\": 1"));
+        assertNull(ValueReference.parse("prop:"));
+        assertNull(ValueReference.parse(":name"));
+        assertNull(ValueReference.parse("plain"));
+    }
+
+    @Test
+    public void bracedFormRequiresWholeArgument() {
+        assertEquals(ValueReference.parseBraced("{prop:key.text}").toString(), "{prop:key.text}");
+        assertNull(ValueReference.parseBraced("prop:key.text"));
+        assertNull(ValueReference.parseBraced("x{prop:key.text}"));
+        assertNull(ValueReference.parseBraced("{prop:{nested}}"));
+    }
+
+    @Test
+    public void missingReferenceInTemplateFails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ScopedVariables.resolveVars("{\"id\": {prop:no.such.reference.key}}"));
+        assertThrows(IllegalArgumentException.class,
+                () -> PropertyLoader.cycleSubstitutionFromFileOrPropertyOrVariable("id={prop:no.such.reference.key}"));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.at.library.core.utils.helpers;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class VariableSizeEstimatorTest {
+
+    @Test
+    public void stringsAndArraysAreSizedByContent() {
+        assertTrue(VariableSizeEstimator.estimate("a".repeat(10_000)) >= 10_000);
+        assertTrue(VariableSizeEstimator.estimate("я".repeat(10_000)) >= 20_000);
+        assertTrue(VariableSizeEstimator.estimate(new byte[1_000_000]) >= 1_000_000);
+        assertEquals(VariableSizeEstimator.estimate(null), 0L);
+    }
+
+    @Test
+    public void collectionsAreSizedRecursivelyAndCyclesAreCountedOnce() {
+        List<Object> list = new ArrayList<>(Arrays.asList("x".repeat(5_000), "y".repeat(5_000)));
+        list.add(list);
+        long size = VariableSizeEstimator.estimate(list);
+        assertTrue(size >= 10_000 && size < 12_000, "size = " + size);
+    }
+
+    @Test
+    public void registeredEstimatorIsUsed() {
+        VariableSizeEstimator.register(StringBuilderHolder.class, holder -> 123_456L);
+        assertEquals(VariableSizeEstimator.estimate(new StringBuilderHolder()), 123_456L);
+    }
+
+    @Test
+    public void variablesAreSortedByRetainedSize() {
+        ScopedVariables variables = new ScopedVariables();
+        variables.put("small", "abc");
+        variables.put("big", new byte[100_000]);
+        variables.put("medium", "m".repeat(1_000));
+
+        Map<String, Long> sizes = variables.estimateRetainedSizes();
+        assertEquals(new ArrayList<>(sizes.keySet()), Arrays.asList("big", "medium", "small"));
+    }
+
+    private static final class StringBuilderHolder {
+    }
+}
@@ -0,0 +1,61 @@
+package ru.at.library.core.utils.log;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DocumentFormatterTest {
+
+    @Test
+    public void jsonIsIndentedWithoutHtmlEscaping() {
+        String formatted = DocumentFormatter.createPrettyPrint(
+                "{\"a\":1.50,\"b\":[true,null,\"<x>=\"],\"c\":{}}", "application/json; charset=UTF-8");
+        assertEquals(formatted, "{\n  \"a\": 1.50,\n  \"b\": [\n    true,\n    null,\n    \"<x>=\"\n  ],\n  \"c\": {}\n}");
+    }
+
+    @Test
+    public void xmlIsIndented() {
+        String formatted = DocumentFormatter.createPrettyPrint(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><a xmlns:n=\"urn:x\"><n:b id=\"1 &amp; 2\">текст &lt;</n:b><c/><!--к--></a>",
+                "text/xml");
+        assertEquals(formatted, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<a xmlns:n=\"urn:x\">\n"
+                + "    <n:b id=\"1 &amp; 2\">текст &lt;</n:b>\n"
+                + "    <c/>\n"
+                + "    <!--к-->\n"
+                + "</a>");
+    }
+
+    @Test
+    public void outputIsCappedWithMarker() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append('}');
+        }
+        String formatted = DocumentFormatter.createPrettyPrint(json.append(']').toString(), "application/json", 1000);
+        assertTrue(formatted.startsWith("[\n  {\n    \"id\": 0\n  },"), formatted);
+        assertTrue(formatted.contains("... [обрезано, не показано ~"), formatted);
+        assertTrue(formatted.length() < 1100, "length " + formatted.length());
+
+        String text = DocumentFormatter.createPrettyPrint("0123456789", "text/plain", 4);
+        assertTrue(text.startsWith("0123" + System.lineSeparator() + "... [обрезано, не показано ~6 символов"), text);
+    }
+
+    @Test
+    public void invalidDocumentsReportError() {
+        assertTrue(DocumentFormatter.createPrettyPrint("{\"a\":", "application/json").startsWith("Error pretty printing json"));
+        assertTrue(DocumentFormatter.createPrettyPrint("<a><b></a>", "text/xml").startsWith("Error pretty printing xml"));
+        assertEquals(DocumentFormatter.createPrettyPrint("plain", null), "plain");
+    }
+
+    @Test
+    public void malformedJsonFallsBackToRawBody() {
+        for (String body : new String[]{"{\"a\":1} {\"b\":2}", "{a:1}", "['x']", "[1,]", "{\"a\":1}garbage", "   "}) {
+            String formatted = DocumentFormatter.createPrettyPrint(body, "application/json");
+            assertTrue(formatted.startsWith("Error pretty printing json:\n"), body + " -> " + formatted);
+            assertTrue(formatted.endsWith("\n" + body), body + " -> " + formatted);
+        }
+        assertEquals(DocumentFormatter.createPrettyPrint(" \"text\" ", "application/json"), "\"text\"");
+    }
+}
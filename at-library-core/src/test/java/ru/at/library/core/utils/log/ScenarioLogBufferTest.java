@@ -0,0 +1,60 @@
+package ru.at.library.core.utils.log;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ScenarioLogBufferTest {
+
+    @Test
+    public void smallLogStaysInMemory() throws IOException {
+        try (ScenarioLogBuffer buffer = new ScenarioLogBuffer(1024, 0)) {
+            buffer.append("первая строка\n");
+            buffer.append("вторая строка\n");
+
+            assertFalse(buffer.isSpilled());
+            assertEquals(buffer.toString(), "первая строка\nвторая строка\n");
+            try (InputStream in = buffer.openStream()) {
+                assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), "первая строка\nвторая строка\n");
+            }
+        }
+    }
+
+    @Test
+    public void largeLogSpillsToFile() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        try (ScenarioLogBuffer buffer = new ScenarioLogBuffer(100 * 1024, 0)) {
+            for (int i = 0; i < 5000; i++) {
+                String line = "строка лога номер " + i + "\n";
+                expected.append(line);
+                buffer.append(line);
+            }
+            assertTrue(buffer.isSpilled());
+            assertEquals(buffer.size(), expected.toString().getBytes(StandardCharsets.UTF_8).length);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            buffer.writeTo(out);
+            assertEquals(out.toString(StandardCharsets.UTF_8), expected.toString());
+        }
+    }
+
+    @Test
+    public void logIsTruncatedAtMaxBytes() {
+        try (ScenarioLogBuffer buffer = new ScenarioLogBuffer(1024, 10)) {
+            buffer.append("12345");
+            buffer.append("67890");
+            buffer.append("лишнее");
+
+            assertEquals(buffer.size(), 10);
+            assertTrue(buffer.toString().startsWith("1234567890"));
+            assertTrue(buffer.toString().contains("отброшено 12 байт"));
+        }
+    }
+}
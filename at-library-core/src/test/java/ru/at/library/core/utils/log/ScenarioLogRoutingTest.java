@@ -0,0 +1,92 @@
+package ru.at.library.core.utils.log;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import ru.at.library.core.cucumber.api.CoreEnvironment;
+import ru.at.library.core.cucumber.api.ScenarioContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ScenarioLogRoutingTest {
+
+    private LoggerContext context;
+
+    @BeforeClass
+    public void initAsyncProfile() {
+        context = Configurator.initialize("scenario-routing-test", getClass().getClassLoader(), "log4j2-async.xml");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void shutdown() {
+        Configurator.shutdown(context);
+    }
+
+    @Test
+    public void scenarioEventsAreWrittenToOwnFile() throws Exception {
+        Path dir = Files.createTempDirectory("scenario-logs");
+        Path first = dir.resolve("первый.log");
+        Path second = dir.resolve("второй.log");
+        Logger logger = context.getLogger("ru.at.library.test");
+
+        logger.info("вне сценария");
+        ScenarioLogRouting.start("a.feature_1", first);
+        logger.info("шаг первого сценария");
+        assertEquals(ScenarioLogRouting.finish(context), first);
+
+        ScenarioLogRouting.start("a.feature_2", second);
+        logger.debug("шаг второго сценария");
+        assertEquals(ScenarioLogRouting.finish(context), second);
+        logger.info("после сценария");
+
+        String firstLog = Files.readString(first, StandardCharsets.UTF_8);
+        assertTrue(firstLog.startsWith("\uFEFF"), firstLog);
+        assertTrue(firstLog.contains("шаг первого сценария"), firstLog);
+        assertFalse(firstLog.contains("вне сценария"), firstLog);
+        assertFalse(firstLog.contains("второго"), firstLog);
+
+        String secondLog = Files.readString(second, StandardCharsets.UTF_8);
+        assertTrue(secondLog.contains("DEBUG") && secondLog.contains("шаг второго сценария"), secondLog);
+        assertFalse(secondLog.contains("после сценария"), secondLog);
+    }
+
+    @Test
+    public void fanOutEventsAreWrittenToScenarioFile() throws Exception {
+        Path file = Files.createTempDirectory("scenario-logs").resolve("параллельный.log");
+        Logger logger = context.getLogger("ru.at.library.test");
+
+        ScenarioLogRouting.start("fan.feature_1", file);
+        ScenarioContext scenario = new ScenarioContext(new CoreEnvironment(null), null);
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(scenario.virtualThreadFactory())) {
+            for (int i = 0; i < 20; i++) {
+                int index = i;
+                executor.submit(() -> logger.info("параллельный запрос {}", index));
+            }
+        }
+        assertEquals(ScenarioLogRouting.finish(context), file);
+
+        String log = Files.readString(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(log.contains("параллельный запрос " + i), log);
+        }
+    }
+
+    @Test
+    public void finishWithoutStartReturnsNull() {
+        assertNull(ScenarioLogRouting.finish(context));
+        assertNotNull(context.getConfiguration().getAppender(ScenarioLogRouting.APPENDER_NAME));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.at.library.core.utils.log;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ScenarioLogWriterTest {
+
+    @Test
+    public void logIsWrittenWithBomAfterFlush() throws IOException {
+        Path dir = Files.createTempDirectory("scenario-log-writer");
+        Path inMemory = dir.resolve("memory.log");
+        Path spilled = dir.resolve("spilled.log");
+        try {
+            ScenarioLogBuffer small = new ScenarioLogBuffer(1024, 0);
+            small.append("короткий лог\n");
+            ScenarioLogBuffer large = new ScenarioLogBuffer(16, 0);
+            large.append("лог, сброшенный во временный файл\n");
+
+            ScenarioLogWriter.submit(small, inMemory, null);
+            ScenarioLogWriter.submit(large, spilled, null);
+            assertTrue(ScenarioLogWriter.flush(10_000L));
+
+            assertEquals(readWithoutBom(inMemory), "короткий лог\n");
+            assertEquals(readWithoutBom(spilled), "лог, сброшенный во временный файл\n");
+            assertTrue(ScenarioLogWriter.getWrittenCount() >= 2);
+        } finally {
+            Files.deleteIfExists(inMemory);
+            Files.deleteIfExists(spilled);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static String readWithoutBom(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(Arrays.copyOf(bytes, 3), new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        return new String(bytes, 3, bytes.length - 3, StandardCharsets.UTF_8);
+    }
+}
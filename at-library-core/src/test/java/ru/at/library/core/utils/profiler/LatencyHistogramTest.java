@@ -0,0 +1,59 @@
+package ru.at.library.core.utils.profiler;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBoundsCoverRecordedValue() {
+        for (long micros : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456, 10_000_000}) {
+            long upper = LatencyHistogram.bucketUpperBoundMicros(LatencyHistogram.bucketIndex(micros));
+            assertTrue(upper >= micros, "upper bound " + upper + " < " + micros);
+            assertTrue(upper <= micros + micros / 16 + 1, "bucket too wide for " + micros + ": " + upper);
+        }
+    }
+
+    @Test
+    public void percentilesFollowDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMaxNanos(), 1000 * 1_000_000L);
+        assertWithin(histogram.percentileNanos(50), 500 * 1_000_000L);
+        assertWithin(histogram.percentileNanos(95), 950 * 1_000_000L);
+        assertWithin(histogram.percentileNanos(99), 990 * 1_000_000L);
+        assertEquals(histogram.percentileNanos(100), 1000 * 1_000_000L);
+    }
+
+    @Test
+    public void bucketsAreVisitedInAscendingOrder() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000_000L);
+        histogram.record(5_000_000L);
+        histogram.record(200_000L);
+        histogram.record(90_000_000L);
+
+        List<long[]> buckets = new ArrayList<>();
+        histogram.forEachBucket((upperBoundMicros, count) -> buckets.add(new long[]{upperBoundMicros, count}));
+
+        assertEquals(buckets.size(), 3);
+        assertWithin(buckets.get(0)[0], 200);
+        assertEquals(buckets.get(1)[1], 2);
+        assertWithin(buckets.get(1)[0], 5_000);
+        assertWithin(buckets.get(2)[0], 90_000);
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "expected ~" + expected + " but was " + actual);
+    }
+}
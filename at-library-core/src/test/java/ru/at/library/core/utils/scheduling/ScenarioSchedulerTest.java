@@ -0,0 +1,129 @@
+package ru.at.library.core.utils.scheduling;
+
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ScenarioSchedulerTest {
+
+    @Test
+    public void historyIsAppendedAndCompactedOnNextRun() throws Exception {
+        Path file = Files.createTempDirectory("durations").resolve("scenario-durations.tsv");
+
+        ScenarioDurationHistory firstRun = new ScenarioDurationHistory(file);
+        firstRun.record("a.feature:3", 1000);
+        firstRun.record("a.feature:3", 2000);
+        firstRun.record("b.feature:7", 500);
+        assertEquals(firstRun.estimateMillis("a.feature:3"), -1L);
+        assertEquals(Files.readAllLines(file, StandardCharsets.UTF_8).size(), 3);
+
+        ScenarioDurationHistory secondRun = new ScenarioDurationHistory(file);
+        assertEquals(secondRun.estimateMillis("a.feature:3"), 1300L);
+        assertEquals(secondRun.estimateMillis("b.feature:7"), 500L);
+        List<String> compacted = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(compacted.size(), 2);
+        assertEquals(new ScenarioDurationHistory(file).getEstimates(), secondRun.getEstimates());
+    }
+
+    @Test
+    public void keyUsesFeatureFileNameAndLine() {
+        assertEquals(ScenarioDurationHistory.key(URI.create("classpath:features/api/send.feature"), 12), "send.feature:12");
+    }
+
+    @Test
+    public void longestFirstKeepsOriginalOrderForEqualEstimates() {
+        Object[][] scenarios = {{"short"}, {"unknown"}, {"long"}, {"medium"}, {"short2"}};
+        Map<String, Long> estimates = new HashMap<>();
+        estimates.put("short", 100L);
+        estimates.put("short2", 100L);
+        estimates.put("medium", 400L);
+        estimates.put("long", 9000L);
+
+        Object[][] ordered = ScenarioScheduler.longestFirst(scenarios, row -> (String) row[0], estimates);
+
+        // без истории - средняя длительность известных сценариев (2400 мс)
+        assertEquals(names(ordered), new String[]{"long", "unknown", "medium", "short", "short2"});
+    }
+
+    @Test
+    public void shardsPartitionScenariosAndBalanceKnownDurations() {
+        Object[][] scenarios = new Object[40][];
+        Map<String, Long> estimates = new HashMap<>();
+        for (int i = 0; i < scenarios.length; i++) {
+            scenarios[i] = new Object[]{"s" + i};
+            if (i % 4 != 0) {
+                // первые сценарии в файле самые долгие, как при разбиении по порядку файлов
+                estimates.put("s" + i, i < 6 ? 540_000L : 60_000L + i * 1000L);
+            }
+        }
+        // сценарии без истории учитываются со средней длительностью известных
+        long fallback = estimates.values().stream().mapToLong(Long::longValue).sum() / estimates.size();
+        int total = 6;
+        Set<String> seen = new HashSet<>();
+        long[] loads = new long[total];
+        for (int index = 0; index < total; index++) {
+            for (Object[] row : ScenarioScheduler.shard(scenarios, index, total, r -> (String) r[0], estimates)) {
+                assertTrue(seen.add((String) row[0]), "scenario in two shards: " + row[0]);
+                Long estimate = estimates.get((String) row[0]);
+                loads[index] += estimate != null ? estimate : fallback;
+            }
+        }
+        assertEquals(seen.size(), scenarios.length);
+        long max = Arrays.stream(loads).max().getAsLong();
+        long min = Arrays.stream(loads).min().getAsLong();
+        assertTrue(max - min <= 100_000L, "unbalanced shards: " + Arrays.toString(loads));
+    }
+
+    @Test
+    public void shardsAreDisjointWhenAgentsHaveDifferentLocalHistories() {
+        Object[][] scenarios = new Object[30][];
+        Map<String, Long> firstAgent = new HashMap<>();
+        Map<String, Long> secondAgent = new HashMap<>();
+        for (int i = 0; i < scenarios.length; i++) {
+            scenarios[i] = new Object[]{"s" + i};
+            // каждый агент знает длительности только выполненных им сценариев
+            (i % 2 == 0 ? firstAgent : secondAgent).put("s" + i, 1000L + i * 500L);
+        }
+        Set<String> seen = new HashSet<>();
+        List<Map<String, Long>> histories = List.of(firstAgent, secondAgent);
+        for (int index = 0; index < histories.size(); index++) {
+            Map<String, Long> estimates = ScenarioScheduler.shardEstimates(histories.get(index), false);
+            for (Object[] row : ScenarioScheduler.shard(scenarios, index, histories.size(), r -> (String) r[0], estimates)) {
+                assertTrue(seen.add((String) row[0]), "scenario in two shards: " + row[0]);
+            }
+        }
+        assertEquals(seen.size(), scenarios.length);
+    }
+
+    @Test
+    public void shardKeepsOriginalOrder() {
+        Object[][] scenarios = {{"a"}, {"b"}, {"c"}, {"d"}};
+        Object[][] shard = ScenarioScheduler.shard(scenarios, 0, 1, r -> (String) r[0], new HashMap<>());
+        assertEquals(names(shard), new String[]{"a", "b", "c", "d"});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shardIndexOutOfRangeIsRejected() {
+        ScenarioScheduler.shard(new Object[][]{{"a"}}, 2, 2, r -> (String) r[0], new HashMap<>());
+    }
+
+    private static String[] names(Object[][] rows) {
+        String[] names = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            names[i] = (String) rows[i][0];
+        }
+        return names;
+    }
+}
@@ -35,6 +35,30 @@
       | THREE    |
       | 123!@#   |
 
+  Сценарий: Пакетная генерация значений
+    Когда генерация 100 guid и сохранение в переменную "список_guid"
+    Тогда верно, что "список_guid.size() == 100 && список_guid.every { it.length() == 36 }"
+    Когда генерация 50 случайных чисел в диапазоне от -5 до 5 и сохранение в переменную "список_чисел"
+    Тогда верно, что "список_чисел.size() == 50 && список_чисел.every { (it as int) >= -5 && (it as int) <= 5 }"
+    Когда генерация 20 строк из 8 случайных символов на кириллице и сохранение в переменную "список_строк"
+    Тогда верно, что "список_строк.size() == 20 && список_строк.every { it ==~ /[а-я]{8}/ }"
+    Когда сохранено в переменную "список_из_списка" 10 случайных значений из списка:
+      | one |
+      | два |
+    Тогда верно, что "список_из_списка.size() == 10 && список_из_списка.every { it in ['one', 'два'] }"
+
+  Сценарий: Генерация уникальных значений
+    Когда генерация 500 уникальных случайных чисел из 4 цифр и сохранение в переменную "уникальные_числа"
+    Тогда верно, что "уникальные_числа.toSet().size() == 500"
+    Когда генерация 5 уникальных случайных чисел в диапазоне от 0 до 100 и сохранение в переменную "числа_диапазона"
+    Когда генерация 5 уникальных случайных чисел в диапазоне от 0 до 100 и сохранение в переменную "ещё_числа_диапазона"
+    Тогда верно, что "(числа_диапазона + ещё_числа_диапазона).toSet().size() == 10"
+    Тогда верно, что "(числа_диапазона + ещё_числа_диапазона).every { (it as int) in 0..100 }"
+    Когда генерация 30 уникальных строк из 3 случайных символов на латинице и сохранение в переменную "уникальные_строки"
+    Тогда верно, что "уникальные_строки.toSet().size() == 30"
+    Когда генерация уникального случайного числа из 12 цифр и сохранение в переменную "уникальное_число"
+    Тогда длина строки переменной "уникальное_число" равна 12
+
       # saveBase64ToPdf
   Сценарий: Декодирование base64 и сохранение в файл
     И переменная "JVBERi0xLjQKJcTl8uXrp/Og0MTGCjEgMCBvYmoKPDwKL0xlbmd0aCAyIDAgUgovRmlsdGVyIC9GbGF0ZURlY29kZQo+PgpcbiAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgXG4KZW5kb2JqCg==" содержит base64 кодирование, декодирована в pdf и сохранена по пути "./target" с именем "sample" в формате "pdf"
@@ -41,6 +41,17 @@
       | @varible@ | A meta-markup language |
     Тогда значение переменной "заполненный_шаблон" равно "Шаблон с текстом: A meta-markup language"
 
+  Сценарий: Заполнение шаблона ключами со спецсимволами и по регулярным выражениям
+    Когда установлено значение переменной "шаблон_цены" равным "Цена: $price (руб.), скидка: $price.discount"
+    Когда шаблон "шаблон_цены" заполнен данными из таблицы и сохранён в переменную "заполненная_цена"
+      | $price          | 100 |
+      | $price.discount | 5%  |
+    Тогда значение переменной "заполненная_цена" равно "Цена: 100 (руб.), скидка: 5%"
+    Когда установлено значение переменной "шаблон_даты" равным "с 2024-01-31 по 2024-02-29"
+    Когда шаблон "шаблон_даты" заполнен по регулярным выражениям данными из таблицы и сохранён в переменную "заполненные_даты"
+      | \d{4}-\d{2}-\d{2} | DATE |
+    Тогда значение переменной "заполненные_даты" равно "с DATE по DATE"
+
   Сценарий: Проверка длины строки переменной
     Когда установлено значение переменной "строка_для_длины" равным "0123456789"
     Тогда длина строки переменной "строка_для_длины" равна 10
@@ -71,3 +82,12 @@
   Сценарий: Перемещение файла с помощью шага core
     И подготовлены test-файлы для шага перемещения файла
     И перемещение файла из "core.test.move.source" в "core.test.move.dest"
+
+  Сценарий: Явные ссылки на источник значения
+    Когда установлено значение переменной "исходная" равным "значение из переменной"
+    Тогда значение переменной "исходная" равно "{var:исходная}"
+    Когда сохранено значение "key.text" из property файла в переменную "из_property"
+    Тогда значение переменной "из_property" равно "{prop:key.text}"
+    Когда шаблон "{res:testFile/example.txt}" заполнен данными из таблицы и сохранён в переменную "шаблон_из_ресурса"
+      | @varible@ | typed |
+    Тогда значение переменной "шаблон_из_ресурса" равно "Шаблон с текстом: typed"
@@ -69,6 +69,13 @@ public final class WebScenario {
         }
     }
 
+    /**
+     * Очистка реестра страниц текущего потока по завершении сценария
+     */
+    public static void clearPages() {
+        PAGES_HOLDER.remove();
+    }
+
     public static CorePage getCurrentPage() {
         return getPages().getCurrentPage();
     }
@@ -1,8 +1,7 @@
 package ru.at.library.web.selenide;
 
-import io.qameta.allure.Allure;
+import ru.at.library.core.utils.allure.AllureAttachments;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -80,8 +79,8 @@ public class ElementChecker {
     public static void attachCheckListResults(String message, List<IElementCheck> checkList, boolean status) {
         List<IElementCheck> checkListWithStatus = status ? getPassedCheckList(checkList) : getFailedCheckList(checkList);
         if (!checkListWithStatus.isEmpty()) {
-            Allure.getLifecycle().addAttachment(String.format("%s: %d из %d", message, checkListWithStatus.size(), checkList.size()), "text/html", ".txt",
-                    elementCheckListAsString(checkListWithStatus).getBytes(StandardCharsets.UTF_8));
+            AllureAttachments.attach(String.format("%s: %d из %d", message, checkListWithStatus.size(), checkList.size()), "text/html", "txt",
+                    elementCheckListAsString(checkListWithStatus));
         }
     }
 
@@ -1,5 +1,6 @@
 package ru.at.library.web.setup;
 
+import io.cucumber.java.After;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 import io.qameta.allure.Step;
@@ -18,4 +19,13 @@ public class WebInitialSetup {
         WebScenario.initPages();
     }
 
+    /**
+     * Очистка реестра страниц, чтобы страницы и элементы не удерживались потоком до следующего сценария.
+     * Выполняется до очистки контекста сценария в ядре (@After с order = 1).
+     */
+    @After(order = 2)
+    public void clearPages() {
+        WebScenario.clearPages();
+    }
+
 }
\ No newline at end of file
@@ -11,8 +11,8 @@ import org.openqa.selenium.OutputType;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebElement;
+import ru.at.library.core.utils.allure.AllureAttachments;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -158,12 +158,7 @@ final class BlockAllureReport {
             }
 
             byte[] screenshot = screenshotDriver.getScreenshotAs(OutputType.BYTES);
-            Allure.addAttachment(
-                    "Состояние страницы при ошибке блока",
-                    "image/png",
-                    new ByteArrayInputStream(screenshot),
-                    ".png"
-            );
+            AllureAttachments.attach("Состояние страницы при ошибке блока", "image/png", "png", screenshot);
         } catch (RuntimeException ignored) {
             // Диагностика не должна маскировать исходную ошибку.
         }
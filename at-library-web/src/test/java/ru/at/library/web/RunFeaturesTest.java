@@ -4,6 +4,7 @@ import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
 import org.testng.annotations.DataProvider;
 import ru.at.library.core.setup.CoreInitialSetup;
+import ru.at.library.core.utils.scheduling.ScenarioScheduler;
 
 @CucumberOptions(
         monochrome = true,
@@ -17,7 +18,7 @@ public class RunFeaturesTest extends AbstractTestNGCucumberTests {
     @Override
     @DataProvider(parallel = false)
     public Object[][] scenarios() {
-        Object[][] scenarios = super.scenarios();
+        Object[][] scenarios = ScenarioScheduler.order(super.scenarios());
         CoreInitialSetup.totalScenarios = scenarios.length;
         return scenarios;
     }